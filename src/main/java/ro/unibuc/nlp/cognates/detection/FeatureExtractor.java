@@ -10,11 +10,14 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.stream.IntStream;
 
 import org.apache.log4j.Logger;
 
+import ro.unibuc.nlp.cognates.detection.aligners.Alignment;
 import ro.unibuc.nlp.cognates.detection.aligners.NeedlemanWunsch;
 import ro.unibuc.nlp.cognates.metrics.Metric;
+import ro.unibuc.nlp.cognates.metrics.MetricVector;
 import ro.unibuc.nlp.cognates.utils.FileUtils;
 import weka.core.Attribute;
 import weka.core.FastVector;
@@ -41,9 +44,9 @@ public class FeatureExtractor {
 	public Set<String> getFeatures(String string1, String string2, int n, boolean useRange) {
 		
 		NeedlemanWunsch nw = new NeedlemanWunsch();
-		String alignment = nw.align(string1, string2);
-		String aligned1 = "$" + alignment.split("_")[0] + "$";
-		String aligned2 = "$" + alignment.split("_")[1] + "$";
+		Alignment alignment = nw.getAlignment(string1, string2);
+		String aligned1 = "$" + alignment.getFirst() + "$";
+		String aligned2 = "$" + alignment.getSecond() + "$";
 
 
 		int beginning = useRange ? 1 : n; // initial n-gram size
@@ -271,10 +274,88 @@ public class FeatureExtractor {
 	 */
 	public void writeMetricArff(List<String> paths, Metric metric, String delimiter) {
 		FastVector attributes = new FastVector();
+		attributes.addElement(new Attribute(metric.getClass().getSimpleName()));
+		
+		writeArff(paths, delimiter, attributes, ".metric=" + metric, (pairs, rows) -> {
+			// the distances of all the pairs are computed in parallel
+			double[] distances = metric.computeDistances(pairs);
+			for (int i = 0; i < rows.length; i++) {
+				rows[i][1] = distances[i];
+			}
+		});
+	}
+	
+	/**
+	 * Computes several metrics between the pairs of aligned words and builds an ARFF file for each input file,
+	 * with one attribute per metric. The metrics of each pair are computed together.
+	 * 		Input file format: word1____word2____label
+	 * 		The output file is saved in the same location as the input file, with an appended .metrics=x.arff extension.
+	 * 
+	 * @param paths the input files containing aligned pairs of words 
+	 * @param metrics the metrics to compute
+	 */
+	public void writeMetricArff(List<String> paths, MetricVector metrics) {
+		writeMetricArff(paths, metrics, "____");
+	}
+	
+	/**
+	 * Computes several metrics between the pairs of aligned words and builds an ARFF file for each input file,
+	 * with one attribute per metric. The metrics of each pair are computed together.
+	 * 		Input file format: word1<delimiter>word2<delimiter>label
+	 * 		The output file is saved in the same location as the input file, with an appended .metrics=x.arff extension.
+	 * 
+	 * @param paths the input files containing aligned pairs of words 
+	 * @param metrics the metrics to compute
+	 * @param delimiter the sequence of characters delimiting the items
+	 */
+	public void writeMetricArff(List<String> paths, MetricVector metrics, String delimiter) {
+		FastVector attributes = new FastVector();
+		for (MetricVector.Feature feature : metrics.getFeatures()) {
+			attributes.addElement(new Attribute(feature.toString()));
+		}
+		
+		writeArff(paths, delimiter, attributes, ".metrics=" + metrics, (pairs, rows) -> {
+			// the features of each pair are written directly after the dummy attribute, in parallel
+			IntStream.range(0, rows.length).parallel().forEach(i -> {
+				String[] pair = pairs.get(i);
+				metrics.computeDistances(pair[0], pair[1], rows[i], 1);
+			});
+		});
+	}
+	
+	/**
+	 * Computes the values of the pairs of words of an input file.
+	 */
+	private interface PairValues {
+		
+		/**
+		 * Computes the values of the pairs into the rows of the dataset.
+		 * 
+		 * @param pairs the pairs of words, with their labels
+		 * @param rows the rows of the pairs, with the dummy attribute first and the class label last
+		 */
+		public void computeValues(List<String[]> pairs, double[][] rows);
+	}
+	
+	/**
+	 * Builds an ARFF file for each input file, with a row for each pair of words.
+	 * 		Input file format: word1<delimiter>word2<delimiter>label
+	 * 		The output file is saved in the same location as the input file, with the given extension and .arff appended.
+	 * 
+	 * @param paths the input files containing aligned pairs of words
+	 * @param delimiter the sequence of characters delimiting the items
+	 * @param values the attributes of the values, without the dummy and the class attributes
+	 * @param extension the extension of the output files, without .arff
+	 * @param pairValues computes the values of the pairs of each input file
+	 */
+	private void writeArff(List<String> paths, String delimiter, FastVector values, String extension, PairValues pairValues) {
+		FastVector attributes = new FastVector();
 		
 		// add dummy attribute
 		attributes.addElement(new Attribute("dummy"));
-		attributes.addElement(new Attribute(metric.getClass().getSimpleName()));
+		for (int i = 0; i < values.size(); i++) {
+			attributes.addElement(values.elementAt(i));
+		}
 		
 		Set<String> labels = getAllLabels(paths);
 		FastVector classes = new FastVector();
@@ -284,8 +365,8 @@ public class FeatureExtractor {
 		}
 
 		// add class label
-	     attributes.addElement(new Attribute("class", classes));
-	     
+		attributes.addElement(new Attribute("class", classes));
+		
 		for (String path : paths) {
 			Instances dataset = new Instances(labels.toString().replace(" ", ""), attributes, 0);
 			
@@ -298,31 +379,35 @@ public class FeatureExtractor {
 				continue;
 			}
 			
+			List<String[]> pairs = new ArrayList<String[]>(lines.size());
 			for (String line : lines) {
 				String[] split = line.split(delimiter);
 				if (split.length < 3) {
 					logger.error("Invalid input line: " + line);
 					continue;
 				}
-				
-				// + 1 for dummy (first) attribute
-				// + 1 for class label (last) attribute 
-				double[] values = new double[3];
-				
-				values[1] = metric.computeDistance(split[0], split[1]);
-				values[2] = classes.indexOf(split[2]);
-				dataset.add(new Instance(1.0, values));
+				pairs.add(split);
+			}
+			
+			// + 1 for dummy (first) attribute
+			// + 1 for class label (last) attribute
+			double[][] rows = new double[pairs.size()][attributes.size()];
+			pairValues.computeValues(pairs, rows);
+			
+			for (int i = 0; i < rows.length; i++) {
+				rows[i][attributes.size() - 1] = classes.indexOf(pairs.get(i)[2]);
+				dataset.add(new Instance(1.0, rows[i]));
 			}
 
 			try {
 				NonSparseToSparse nonSparseToSparseInstance = new NonSparseToSparse(); 
-			    nonSparseToSparseInstance.setInputFormat(dataset); 
-			    Instances sparseDataset = Filter.useFilter(dataset, nonSparseToSparseInstance);
-			    
-			    BufferedWriter out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(new File(
-			    		path.replace(".txt", "") + ".metric=" + metric + ".arff")), Charset.forName("UTF8")));
-			    out.write(sparseDataset.toString());
-			    out.close();
+				nonSparseToSparseInstance.setInputFormat(dataset); 
+				Instances sparseDataset = Filter.useFilter(dataset, nonSparseToSparseInstance);
+				
+				BufferedWriter out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(new File(
+						path.replace(".txt", "") + extension + ".arff")), Charset.forName("UTF8")));
+				out.write(sparseDataset.toString());
+				out.close();
 			}
 			catch (Exception e) {
 				logger.error("Error while writing ARFF file for input file " + path, e);
@@ -24,4 +24,22 @@ public interface Aligner {
 	 * @return the alignment of the input strings
 	 */
 	public String align(String string1, String string2s);
+	
+	/**
+	 * Computes the alignment of the input strings, as aligned character sequences. By default,
+	 * the alignment is read from the output of {@link #align(String, String)}: two sequences of
+	 * the same length around a one-character separator. The aligners of this package override it.
+	 * 
+	 * @param string1 the first string
+	 * @param string2 the second string
+	 * @return the alignment of the input strings
+	 */
+	public default Alignment getAlignment(String string1, String string2) {
+		
+		String alignment = align(string1, string2);
+		int length = (alignment.length() - 1) / 2;
+		
+		return new Alignment(alignment.substring(0, length).toCharArray(), 
+							 alignment.substring(length + 1).toCharArray(), 0, getScore(string1, string2));
+	}
 }
@@ -0,0 +1,132 @@
+package ro.unibuc.nlp.cognates.detection.aligners;
+
+/**
+ * The alignment of two strings: two sequences of the same length, in which the characters of
+ * each string are aligned either with a character of the other string or with a gap.
+ *
+ * The aligned sequences are kept as the character arrays filled by the traceback of the
+ * aligner, so that the aligned positions can be read without building or splitting strings.
+ */
+public final class Alignment {
+
+	/**
+	 * The character that marks a gap in an aligned sequence.
+	 */
+	public static final char GAP = '-';
+
+	private final char[] first;
+	private final char[] second;
+	private final int offset;
+	private final int score;
+
+	/**
+	 * Creates an alignment from the ends of two buffers, filled backwards by a traceback.
+	 *
+	 * @param first the buffer of the first aligned sequence
+	 * @param second the buffer of the second aligned sequence
+	 * @param offset the position of the first aligned character in both buffers
+	 * @param score the score of the alignment
+	 */
+	Alignment(char[] first, char[] second, int offset, int score) {
+
+		this.first = first;
+		this.second = second;
+		this.offset = offset;
+		this.score = score;
+	}
+
+	/**
+	 * Returns the number of aligned positions.
+	 *
+	 * @return the length of the aligned sequences
+	 */
+	public int length() {
+
+		return first.length - offset;
+	}
+
+	/**
+	 * Returns the score of the alignment.
+	 *
+	 * @return the alignment score
+	 */
+	public int getScore() {
+
+		return score;
+	}
+
+	/**
+	 * Returns the character of the first string at the given aligned position.
+	 *
+	 * @param position the aligned position
+	 * @return the character, or {@link #GAP}
+	 * @throws IndexOutOfBoundsException
+	 */
+	public char getFirst(int position) throws IndexOutOfBoundsException {
+
+		return first[index(position)];
+	}
+
+	/**
+	 * Returns the character of the second string at the given aligned position.
+	 *
+	 * @param position the aligned position
+	 * @return the character, or {@link #GAP}
+	 * @throws IndexOutOfBoundsException
+	 */
+	public char getSecond(int position) throws IndexOutOfBoundsException {
+
+		return second[index(position)];
+	}
+
+	/**
+	 * Returns the aligned sequence of the first string.
+	 *
+	 * @return the first string, with gaps
+	 */
+	public String getFirst() {
+
+		return new String(first, offset, length());
+	}
+
+	/**
+	 * Returns the aligned sequence of the second string.
+	 *
+	 * @return the second string, with gaps
+	 */
+	public String getSecond() {
+
+		return new String(second, offset, length());
+	}
+
+	/**
+	 * Formats the alignment as the two aligned sequences joined by the given separator.
+	 *
+	 * @param separator character or sequence of characters delimiting the sequences
+	 * @return the formatted alignment. Example: 'exhaustiv-<separator>es-austivo'
+	 */
+	public String toString(String separator) {
+
+		StringBuilder builder = new StringBuilder(2 * length() + separator.length());
+		builder.append(first, offset, length());
+		builder.append(separator);
+		builder.append(second, offset, length());
+
+		return builder.toString();
+	}
+
+	@Override
+	public String toString() {
+
+		return toString("_");
+	}
+
+	private int index(int position) {
+
+		if (position < 0 || position >= length()) {
+			throw new IndexOutOfBoundsException("Invalid position " + position + " for an alignment of length " + length());
+		}
+
+		return offset + position;
+	}
+}
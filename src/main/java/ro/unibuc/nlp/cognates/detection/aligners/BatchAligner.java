@@ -0,0 +1,215 @@
+package ro.unibuc.nlp.cognates.detection.aligners;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.text.Normalizer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import org.apache.log4j.Logger;
+
+import ro.unibuc.nlp.cognates.metrics.MetricUtils;
+import ro.unibuc.nlp.cognates.utils.FileUtils;
+
+/**
+ * Aligns the pairs of strings of large files in parallel, on a fork-join pool.
+ *
+ * The input is streamed: the lines are read in chunks of at most <code>granularity</code> lines,
+ * each chunk is aligned by a worker thread, and the aligned chunks are written in the order of
+ * the input. At most {@link #WINDOW_PER_THREAD} chunks per thread of the pool are read ahead of the
+ * writer, so that the memory does not depend on the size of the input. The aligners keep no
+ * mutable state, and the matrices of {@link NeedlemanWunsch} are reused by each worker thread.
+ */
+public final class BatchAligner {
+
+	private static final Logger logger = Logger.getLogger(BatchAligner.class);
+
+	/**
+	 * The default number of lines aligned sequentially by a task.
+	 */
+	public static final int DEFAULT_GRANULARITY = 256;
+
+	/**
+	 * The number of chunks read ahead of the writer, for each thread of the pool.
+	 */
+	public static final int WINDOW_PER_THREAD = 4;
+
+	private final Aligner aligner;
+	private final ForkJoinPool pool;
+	private final int granularity;
+
+	/**
+	 * Creates a batch aligner running on the common fork-join pool.
+	 *
+	 * @param aligner the aligner
+	 * @throws IllegalArgumentException
+	 */
+	public BatchAligner(Aligner aligner) throws IllegalArgumentException {
+
+		this(aligner, ForkJoinPool.commonPool(), DEFAULT_GRANULARITY);
+	}
+
+	/**
+	 * Creates a batch aligner running on the given fork-join pool.
+	 *
+	 * @param aligner the aligner
+	 * @param pool the fork-join pool
+	 * @param granularity the maximum number of lines aligned sequentially by a task
+	 * @throws IllegalArgumentException
+	 */
+	public BatchAligner(Aligner aligner, ForkJoinPool pool, int granularity) throws IllegalArgumentException {
+
+		MetricUtils.validate(aligner, pool);
+
+		if (granularity < 1) {
+			throw new IllegalArgumentException("The granularity must be positive.");
+		}
+
+		this.aligner = aligner;
+		this.pool = pool;
+		this.granularity = granularity;
+	}
+
+	/**
+	 * Aligns all the pairs of strings from the input file. The lines are normalized (NFKC) before
+	 * being split.
+	 *
+	 * @param inFile input file containing pairs of strings. Format: string1<separator>string2
+	 * @param outFile output file containing the aligned strings. Format: aligned1<separator>aligned2
+	 * @param separator the character or sequence of characters delimiting the strings
+	 * @throws IllegalArgumentException if a line does not contain a pair of strings
+	 * @throws IOException
+	 */
+	public void alignFiles(String inFile, String outFile, String separator) throws IllegalArgumentException, IOException {
+
+		alignFiles(inFile, outFile, separator, separator, true);
+	}
+
+	/**
+	 * Aligns all the pairs of strings from the input file.
+	 *
+	 * @param inFile input file containing pairs of strings. Format: string1<inputSeparator>string2
+	 * @param outFile output file containing the aligned strings. Format: aligned1<outputSeparator>aligned2
+	 * @param inputSeparator the regular expression delimiting the input strings
+	 * @param outputSeparator the character or sequence of characters delimiting the aligned strings
+	 * @param normalize specifies whether the lines are normalized (NFKC) before being split
+	 * @throws IllegalArgumentException if a line does not contain a pair of strings
+	 * @throws IOException
+	 */
+	public void alignFiles(String inFile, String outFile, String inputSeparator, String outputSeparator,
+						   boolean normalize) throws IllegalArgumentException, IOException {
+
+		MetricUtils.validate(inFile, outFile);
+
+		logger.info("Aligning the pairs of file " + inFile + " into file " + outFile);
+
+		try (BufferedReader in = FileUtils.getReader(inFile);
+			 BufferedWriter out = FileUtils.getWriter(outFile)) {
+			align(in, out, inputSeparator, outputSeparator, normalize);
+		}
+	}
+
+	/**
+	 * Aligns all the pairs of strings read from the input, writing one aligned pair per line.
+	 *
+	 * @param in the input, one pair of strings per line. Format: string1<inputSeparator>string2
+	 * @param out the output. Format: aligned1<outputSeparator>aligned2
+	 * @param inputSeparator the regular expression delimiting the input strings
+	 * @param outputSeparator the character or sequence of characters delimiting the aligned strings
+	 * @param normalize specifies whether the lines are normalized (NFKC) before being split
+	 * @return the number of aligned pairs
+	 * @throws IllegalArgumentException if a line does not contain a pair of strings
+	 * @throws IOException
+	 */
+	public long align(BufferedReader in, Writer out, String inputSeparator, String outputSeparator,
+					  boolean normalize) throws IllegalArgumentException, IOException {
+
+		MetricUtils.validate(in, out);
+		MetricUtils.validate(inputSeparator, outputSeparator);
+
+		int window = WINDOW_PER_THREAD * pool.getParallelism();
+		ArrayDeque<Future<String[]>> pending = new ArrayDeque<Future<String[]>>(window);
+		long lines = 0;
+
+		try {
+			List<String> chunk = new ArrayList<String>(granularity);
+			for (String line = in.readLine(); line != null; line = in.readLine()) {
+				chunk.add(line);
+				if (chunk.size() == granularity) {
+					if (pending.size() == window) {
+						lines += write(pending.poll(), out);
+					}
+					pending.add(submit(chunk, inputSeparator, outputSeparator, normalize));
+					chunk = new ArrayList<String>(granularity);
+				}
+			}
+			if (!chunk.isEmpty()) {
+				pending.add(submit(chunk, inputSeparator, outputSeparator, normalize));
+			}
+
+			while (!pending.isEmpty()) {
+				lines += write(pending.poll(), out);
+			}
+		}
+		finally {
+			for (Future<String[]> future : pending) {
+				future.cancel(false);
+			}
+		}
+
+		if (logger.isDebugEnabled())
+			logger.debug("Aligned " + lines + " pairs with " + aligner.getClass().getSimpleName());
+
+		return lines;
+	}
+
+	private Future<String[]> submit(List<String> chunk, String inputSeparator, String outputSeparator, boolean normalize) {
+
+		return pool.submit(() -> {
+			String[] aligned = new String[chunk.size()];
+			for (int i = 0; i < aligned.length; i++) {
+				String line = normalize ? Normalizer.normalize(chunk.get(i), Normalizer.Form.NFKC) : chunk.get(i);
+				String[] split = line.split(inputSeparator);
+				if (split.length < 2) {
+					throw new IllegalArgumentException("Invalid input line: " + line);
+				}
+				aligned[i] = aligner.getAlignment(split[0], split[1]).toString(outputSeparator);
+			}
+			return aligned;
+		});
+	}
+
+	/**
+	 * Waits for an aligned chunk and writes its lines.
+	 */
+	private static int write(Future<String[]> future, Writer out) throws IOException {
+
+		String[] aligned;
+		try {
+			aligned = future.get();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while aligning the pairs.", e);
+		}
+		catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IOException(e.getCause());
+		}
+
+		for (String line : aligned) {
+			out.write(line);
+			out.write('\n');
+		}
+
+		return aligned.length;
+	}
+}
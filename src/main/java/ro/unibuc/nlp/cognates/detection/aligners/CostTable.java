@@ -0,0 +1,75 @@
+package ro.unibuc.nlp.cognates.detection.aligners;
+
+import ro.unibuc.nlp.cognates.utils.DiacriticUtils;
+
+/**
+ * The default substitution costs of the aligners: the characters that are equal once their
+ * diacritics are removed are aligned for free, the other ones for a fixed substitution cost,
+ * and the gaps for a fixed gap cost.
+ *
+ * The characters are folded through the lookup table of {@link DiacriticUtils#removeDiacritics(char)},
+ * so that each cost is computed in constant time, without building strings.
+ */
+public class CostTable implements SubstitutionCosts {
+
+	private final int substitutionCost;
+	private final int gapCost;
+
+	/**
+	 * Creates a cost table with unit substitution and gap costs.
+	 */
+	public CostTable() {
+
+		this(1, 1);
+	}
+
+	/**
+	 * Creates a cost table with the given substitution and gap costs.
+	 * 
+	 * @param substitutionCost the cost of aligning two different characters
+	 * @param gapCost the cost of aligning a character with a gap
+	 * @throws IllegalArgumentException if a cost is negative
+	 */
+	public CostTable(int substitutionCost, int gapCost) throws IllegalArgumentException {
+
+		if (substitutionCost < 0 || gapCost < 0) {
+			throw new IllegalArgumentException("Invalid costs: " + substitutionCost + " " + gapCost);
+		}
+
+		this.substitutionCost = substitutionCost;
+		this.gapCost = gapCost;
+	}
+
+	@Override
+	public int getCost(char char1, char char2) {
+
+		if (char1 == char2) {
+			return 0;
+		}
+		if (char1 == '\0' || char2 == '\0') {
+			return gapCost;
+		}
+
+		return DiacriticUtils.removeDiacritics(char1) == DiacriticUtils.removeDiacritics(char2) ? 0 : substitutionCost;
+	}
+
+	/**
+	 * Returns the cost of aligning two different characters.
+	 * 
+	 * @return the substitution cost
+	 */
+	public int getSubstitutionCost() {
+
+		return substitutionCost;
+	}
+
+	/**
+	 * Returns the cost of aligning a character with a gap.
+	 * 
+	 * @return the gap cost
+	 */
+	public int getGapCost() {
+
+		return gapCost;
+	}
+}
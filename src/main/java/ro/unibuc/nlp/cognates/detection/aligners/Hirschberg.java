@@ -0,0 +1,375 @@
+package ro.unibuc.nlp.cognates.detection.aligners;
+
+import java.util.Arrays;
+
+import org.apache.log4j.Logger;
+
+import ro.unibuc.nlp.cognates.metrics.MetricUtils;
+
+/**
+ * Aligns strings in linear space, using Hirschberg's divide and conquer strategy over the
+ * Needleman-Wunsch scores, for sequences too long for the full alignment matrix.
+ *
+ * The alignments are identical to those of {@link NeedlemanWunsch} with the same costs, ties
+ * included: each forward pass over the rows of a block also records, for every cell below its
+ * middle row, the column where the Needleman-Wunsch traceback from that cell reaches the middle
+ * row. The traceback from the end of the block is thus split at the exact cell where it crosses
+ * the middle row, and both halves are aligned recursively, keeping only a few rows of the matrix
+ * in memory.
+ */
+public class Hirschberg implements Aligner {
+
+	private static final Logger logger = Logger.getLogger(Hirschberg.class);
+
+	private final SubstitutionCosts costs;
+
+	/**
+	 * Creates an aligner with the default costs: the characters that differ only by their
+	 * diacritics are equal, and all the other edits cost 1.
+	 */
+	public Hirschberg() {
+
+		this(new CostTable());
+	}
+
+	/**
+	 * Creates an aligner with the given substitution costs.
+	 *
+	 * @param costs the costs of aligning two characters, or a character with a gap
+	 * @throws IllegalArgumentException
+	 */
+	public Hirschberg(SubstitutionCosts costs) throws IllegalArgumentException {
+
+		MetricUtils.validate(costs);
+
+		this.costs = costs;
+	}
+
+	/**
+	 * Returns the substitution costs of the aligner.
+	 *
+	 * @return the substitution costs
+	 */
+	public SubstitutionCosts getCosts() {
+
+		return costs;
+	}
+
+	/**
+	 * Computes the alignment score for string1 and string2, keeping a single row of the matrix
+	 * (see {@link NeedlemanWunsch#getScore(String, String)}).
+	 *
+	 * @param string1 the first input string
+	 * @param string2 the second input string
+	 * @return the alignment score of the two strings
+	 * @throws IllegalArgumentException
+	 */
+	@Override
+	public int getScore(String string1, String string2) throws IllegalArgumentException {
+
+		MetricUtils.validate(string1, string2);
+
+		if (logger.isDebugEnabled())
+			logger.debug("Computing the Hirschberg alignment score for strings " + string1 + " " + string2);
+
+		return NeedlemanWunsch.computeScore(costs, string1, string2, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Computes the alignment of the input strings.
+	 *
+	 * @param string1 the first input string
+	 * @param string2 the second input string
+	 * @return the orthographic alignment of the strings. Example:
+	 * 		   Input: 'exhaustiv', 'esaustivo'
+	 * 		   Output: 'exhaustiv-_es-austivo'
+	 */
+	@Override
+	public String align(String string1, String string2) {
+
+		return align(string1, string2, "_");
+	}
+
+	/**
+	 * Computes the alignment of the input strings.
+	 *
+	 * @param string1 the first input string
+	 * @param string2 the second input string
+	 * @param separator character or sequence of characters delimiting the strings
+	 * @return the orthographic alignment of the strings. Example:
+	 * 		   Input: 'exhaustiv', 'esaustivo'
+	 * 		   Output: 'exhaustiv-<separator>es-austivo'
+	 */
+	public String align(String string1, String string2, String separator) {
+
+		return getAlignment(string1, string2).toString(separator);
+	}
+
+	/**
+	 * Computes the alignment of the input strings, in memory linear in their lengths.
+	 *
+	 * @param string1 the first input string
+	 * @param string2 the second input string
+	 * @return the alignment of the strings
+	 * @throws IllegalArgumentException
+	 */
+	@Override
+	public Alignment getAlignment(String string1, String string2) throws IllegalArgumentException {
+
+		MetricUtils.validate(string1, string2);
+
+		if (logger.isDebugEnabled())
+			logger.debug("Computing the Hirschberg alignment for strings " + string1 + " " + string2);
+
+		return new Traceback(string1, string2).align();
+	}
+
+	/**
+	 * The state of the alignment of a pair of strings: the rows reused by the forward passes and
+	 * the aligned sequences, filled from their end.
+	 *
+	 * A block is given by its rows i0..i1 and its columns j0..j1, with the values of the matrix on
+	 * its top row and on its left column. Each block emits the part of the traceback from the cell
+	 * where it reaches the top row of the block to the bottom right cell of the block; the lower
+	 * half of a block is solved before its upper half, so the traceback is emitted backwards.
+	 *
+	 * The top rows are kept in a single buffer: once the forward pass of a block has found the
+	 * crossing column, the values of its top row right of that column are no longer needed, and
+	 * the top row of its lower half is stored in their place. The buffer thus holds the width of
+	 * the matrix and two cells per level of the recursion.
+	 */
+	private final class Traceback {
+
+		private final String string1;
+		private final String string2;
+
+		private int[] previous;
+		private int[] current;
+		private int[] previousArrivals;
+		private int[] currentArrivals;
+		private final int[] middle;
+		private final int[] tops;
+
+		private final char[] aligned1;
+		private final char[] aligned2;
+		private int position;
+		private int score;
+
+		private Traceback(String string1, String string2) {
+
+			this.string1 = string1;
+			this.string2 = string2;
+
+			int width = string2.length() + 1;
+			previous = new int[width];
+			current = new int[width];
+			previousArrivals = new int[width];
+			currentArrivals = new int[width];
+			middle = new int[width];
+			// the recursion is at most log2(length1) + 1 levels deep
+			tops = new int[width + 2 * (Integer.SIZE - Integer.numberOfLeadingZeros(string1.length()))];
+
+			aligned1 = new char[string1.length() + string2.length()];
+			aligned2 = new char[string1.length() + string2.length()];
+			position = aligned1.length;
+		}
+
+		private Alignment align() {
+
+			int length1 = string1.length();
+			int length2 = string2.length();
+
+			for (int j = 1; j <= length2; j++) {
+				tops[j] = tops[j - 1] + costs.getCost('\0', string2.charAt(j - 1));
+			}
+
+			if (length1 == 0) {
+				emitInsertions(0, length2);
+				score = tops[length2];
+			}
+			else {
+				int[] left = new int[length1 + 1];
+				for (int i = 1; i <= length1; i++) {
+					left[i] = left[i - 1] + costs.getCost(string1.charAt(i - 1), '\0');
+				}
+				solve(0, length1, 0, length2, 0, left);
+			}
+
+			return new Alignment(aligned1, aligned2, position, score);
+		}
+
+		/**
+		 * Emits the traceback of a block, from the top row of the block to its bottom right cell.
+		 *
+		 * @param top the position in {@link #tops} of the values of the row i0, columns j0..j1
+		 * @param left the values of the column j0, rows i0..i1
+		 */
+		private void solve(int i0, int i1, int j0, int j1, int top, int[] left) {
+
+			if (i1 - i0 == 1) {
+				solveRow(i0, j0, j1, top, left);
+				return;
+			}
+
+			int mid = (i0 + i1) >>> 1;
+			int crossing = forward(i0, i1, j0, j1, top, left, mid);
+
+			// the traceback below the middle row stays right of the crossing column, so the
+			// lower block starts one column before it, to compare with the cells on its left
+			int lowerJ0 = Math.max(crossing - 1, j0);
+			int[] lowerLeft = lowerJ0 == j0
+							  ? Arrays.copyOfRange(left, mid - i0, i1 - i0 + 1)
+							  : column(mid, i1, j0, lowerJ0, left, i0);
+			int lowerTop = top + crossing - j0 + 1;
+			System.arraycopy(middle, lowerJ0 - j0, tops, lowerTop, j1 - lowerJ0 + 1);
+
+			solve(mid, i1, lowerJ0, j1, lowerTop, lowerLeft);
+			solve(i0, mid, j0, crossing, top, left);
+		}
+
+		/**
+		 * Computes the rows i0 + 1..i1 of a block, copies its middle row, and returns the column
+		 * where the traceback from the bottom right cell of the block crosses the middle row.
+		 */
+		private int forward(int i0, int i1, int j0, int j1, int top, int[] left, int mid) {
+
+			int width = j1 - j0;
+			System.arraycopy(tops, top, previous, 0, width + 1);
+
+			for (int i = i0 + 1; i <= i1; i++) {
+				char c1 = string1.charAt(i - 1);
+				int deletion = costs.getCost(c1, '\0');
+				boolean below = i > mid;
+				boolean first = i == mid + 1;
+
+				current[0] = left[i - i0];
+				// the column j0 is only on the traceback when it is the first column, climbed upwards
+				currentArrivals[0] = first || j0 > 0 ? j0 : previousArrivals[0];
+
+				for (int k = 1; k <= width; k++) {
+					char c2 = string2.charAt(j0 + k - 1);
+					int up = previous[k] + deletion;
+					int back = current[k - 1] + costs.getCost('\0', c2);
+					int diagonal = previous[k - 1] + costs.getCost(c1, c2);
+					int value = Math.min(diagonal, Math.min(up, back));
+					current[k] = value;
+
+					// the moves are tried in the order of the Needleman-Wunsch traceback
+					if (below) {
+						if (value == up) {
+							currentArrivals[k] = first ? j0 + k : previousArrivals[k];
+						}
+						else if (value == back) {
+							currentArrivals[k] = currentArrivals[k - 1];
+						}
+						else {
+							currentArrivals[k] = first ? j0 + k - 1 : previousArrivals[k - 1];
+						}
+					}
+				}
+
+				if (i == mid) {
+					System.arraycopy(current, 0, middle, 0, width + 1);
+				}
+				swapRows();
+			}
+
+			if (i1 == string1.length() && j1 == string2.length()) {
+				score = previous[width];
+			}
+
+			return previousArrivals[width];
+		}
+
+		/**
+		 * Computes the values of the column j of the rows mid..i1 of a block, from its middle row.
+		 */
+		private int[] column(int mid, int i1, int j0, int j, int[] left, int i0) {
+
+			int width = j - j0;
+			int[] column = new int[i1 - mid + 1];
+			column[0] = middle[width];
+			System.arraycopy(middle, 0, previous, 0, width + 1);
+
+			for (int i = mid + 1; i <= i1; i++) {
+				char c1 = string1.charAt(i - 1);
+				int deletion = costs.getCost(c1, '\0');
+				current[0] = left[i - i0];
+				for (int k = 1; k <= width; k++) {
+					char c2 = string2.charAt(j0 + k - 1);
+					current[k] = Math.min(previous[k - 1] + costs.getCost(c1, c2),
+										  Math.min(previous[k] + deletion, current[k - 1] + costs.getCost('\0', c2)));
+				}
+				column[i - mid] = current[width];
+				swapRows();
+			}
+
+			return column;
+		}
+
+		/**
+		 * Emits the traceback of a block of two rows, walking back along its bottom row.
+		 */
+		private void solveRow(int i0, int j0, int j1, int top, int[] left) {
+
+			int width = j1 - j0;
+			char c1 = string1.charAt(i0);
+			int deletion = costs.getCost(c1, '\0');
+
+			current[0] = left[1];
+			for (int k = 1; k <= width; k++) {
+				char c2 = string2.charAt(j0 + k - 1);
+				current[k] = Math.min(tops[top + k - 1] + costs.getCost(c1, c2),
+									  Math.min(tops[top + k] + deletion, current[k - 1] + costs.getCost('\0', c2)));
+			}
+			if (i0 + 1 == string1.length() && j1 == string2.length()) {
+				score = current[width];
+			}
+
+			int k = width;
+			while (k > 0 && current[k] != tops[top + k] + deletion
+					&& current[k] == current[k - 1] + costs.getCost('\0', string2.charAt(j0 + k - 1))) {
+				k--;
+			}
+
+			int j = j0 + k;
+			boolean up = k == 0 || current[k] == tops[top + k] + deletion;
+			emitInsertions(j, j1);
+			if (up) {
+				emit(c1, Alignment.GAP);
+			}
+			else {
+				emit(c1, string2.charAt(j - 1));
+			}
+			if (i0 == 0) {
+				// the traceback ends along the first row
+				emitInsertions(0, up ? j : j - 1);
+			}
+		}
+
+		private void emitInsertions(int from, int to) {
+
+			for (int j = to - 1; j >= from; j--) {
+				emit(Alignment.GAP, string2.charAt(j));
+			}
+		}
+
+		private void emit(char c1, char c2) {
+
+			position--;
+			aligned1[position] = c1;
+			aligned2[position] = c2;
+		}
+
+		private void swapRows() {
+
+			int[] aux = previous;
+			previous = current;
+			current = aux;
+
+			aux = previousArrivals;
+			previousArrivals = currentArrivals;
+			currentArrivals = aux;
+		}
+	}
+}
@@ -2,13 +2,8 @@ package ro.unibuc.nlp.cognates.detection.aligners;
 
 import org.apache.log4j.Logger;
 import ro.unibuc.nlp.cognates.metrics.MetricUtils;
-import ro.unibuc.nlp.cognates.utils.FileUtils;
-import ro.unibuc.nlp.cognates.utils.StringUtils;
 
-import java.io.BufferedWriter;
 import java.io.IOException;
-import java.text.Normalizer;
-import java.util.List;
 
 /**
  * Aligns strings using the Needleman-Wunsch algorithm.
@@ -19,18 +14,68 @@ public class NeedlemanWunsch implements Aligner {
 
 	private static final Logger logger = Logger.getLogger(Aligner.class);
 	
+	/**
+	 * The row and the gap costs of the score computations, reused by all the computations of a thread.
+	 */
+	private static final ThreadLocal<int[][]> rows = ThreadLocal.withInitial(() -> new int[2][64]);
+	
+	/**
+	 * The alignment matrix, reused by all the alignments of a thread while it is small enough.
+	 */
+	private static final ThreadLocal<int[][]> matrices = ThreadLocal.withInitial(() -> new int[16][16]);
+	
+	/**
+	 * The maximum number of cells of a matrix kept for reuse.
+	 */
+	private static final int MAX_REUSED_CELLS = 1 << 20;
+	
+	private final SubstitutionCosts costs;
+	
+	/**
+	 * Creates an aligner with the default costs: the characters that differ only by their 
+	 * diacritics are equal, and all the other edits cost 1.
+	 */
+	public NeedlemanWunsch() {
+		
+		this(new CostTable());
+	}
+	
+	/**
+	 * Creates an aligner with the given substitution costs.
+	 * 
+	 * @param costs the costs of aligning two characters, or a character with a gap
+	 * @throws IllegalArgumentException
+	 */
+	public NeedlemanWunsch(SubstitutionCosts costs) throws IllegalArgumentException {
+		
+		MetricUtils.validate(costs);
+		
+		this.costs = costs;
+	}
+	
+	/**
+	 * Returns the substitution costs of the aligner.
+	 * 
+	 * @return the substitution costs
+	 */
+	public SubstitutionCosts getCosts() {
+		
+		return costs;
+	}
+	
 	/**
 	 * Computes the alignment matrix for the Needleman-Wunsch algorithm.
 	 */
 	private int[][] computeMatrix(String string1, String string2) {
 		
-		logger.info("Computing the alignment matrix for strings " + 
-					string1 + " " + string2);
+		if (logger.isDebugEnabled())
+			logger.debug("Computing the alignment matrix for strings " + 
+						 string1 + " " + string2);
 		
 		int length1 = string1.length();
 		int length2 = string2.length();
 		
-		int[][] matrix = new int[length1 + 1][length2 + 1];
+		int[][] matrix = getMatrix(length1 + 1, length2 + 1);
 		matrix[0][0] = 0;
 
 		for (int i = 1; i <= length1; i++) { 
@@ -51,6 +96,29 @@ public class NeedlemanWunsch implements Aligner {
 		return matrix;
 	}
 
+	/**
+	 * Returns a matrix of at least the given size. The matrices of the current thread are reused
+	 * (their cells are overwritten by {@link #computeMatrix(String, String)}), unless they are too large.
+	 */
+	private static int[][] getMatrix(int rows, int columns) {
+		
+		int[][] matrix = matrices.get();
+		if (matrix.length >= rows && matrix[0].length >= columns) {
+			return matrix;
+		}
+		
+		int reusedRows = Math.max(rows, matrix.length);
+		int reusedColumns = Math.max(columns, matrix[0].length);
+		if ((long) reusedRows * reusedColumns > MAX_REUSED_CELLS) {
+			return new int[rows][columns];
+		}
+		
+		matrix = new int[reusedRows][reusedColumns];
+		matrices.set(matrix);
+		
+		return matrix;
+	}
+
 	/**
 	 * Computes the Needleman-Wunsch alignment of the input strings.
 	 * 
@@ -77,41 +145,56 @@ public class NeedlemanWunsch implements Aligner {
 	 */
 	public String align(String string1, String string2, String separator) {
 		
+		return getAlignment(string1, string2).toString(separator);
+	}
+	
+	/**
+	 * Computes the Needleman-Wunsch alignment of the input strings. The traceback fills the 
+	 * aligned sequences backwards, from the end of buffers of the maximum alignment length.
+	 * 
+	 * @param string1 the first input string
+	 * @param string2 the second input string
+	 * @return the alignment of the strings
+	 * @throws IllegalArgumentException
+	 */
+	public Alignment getAlignment(String string1, String string2) throws IllegalArgumentException {
+		
 		MetricUtils.validate(string1, string2);
 		
-		logger.info("Computing the Needleman-Wunsch alignment for strings " +
-				    string1 + " " + string2);
+		if (logger.isDebugEnabled())
+			logger.debug("Computing the Needleman-Wunsch alignment for strings " +
+						 string1 + " " + string2);
 
 		int[][] matrix = computeMatrix(string1, string2);
 		
 		int length1 = string1.length();
 		int length2 = string2.length();
 		
-		String aligned1 = "";
-		String aligned2 = "";
+		char[] aligned1 = new char[length1 + length2];
+		char[] aligned2 = new char[length1 + length2];
+		int position = aligned1.length;
 
 		while (length1 > 0 || length2 > 0) {
+			position--;
 			if (length1 > 0 && 
 				matrix[length1][length2] == matrix[length1 - 1][length2] + 
 											getWeight(string1.charAt(length1 - 1), '\0')) {
-				aligned1 = string1.charAt(--length1) + aligned1;
-				aligned2 = "-" + aligned2;
+				aligned1[position] = string1.charAt(--length1);
+				aligned2[position] = Alignment.GAP;
 			} 
 			else if (length2 > 0 && 
 				matrix[length1][length2] == matrix[length1][length2 - 1] + 
 											getWeight('\0', string2.charAt(length2 - 1))) {
-				aligned1 = "-" + aligned1;
-				aligned2 = string2.charAt(--length2) + aligned2;
+				aligned1[position] = Alignment.GAP;
+				aligned2[position] = string2.charAt(--length2);
 			}
-			else if (length1 > 0 && length2 > 0 && 
-				matrix[length1][length2] == matrix[length1 - 1][length2 - 1] + 
-											getWeight(string1.charAt(length1 - 1), string2.charAt(length2 - 1))) { 
-				aligned1 = string1.charAt(--length1) + aligned1;
-				aligned2 = string2.charAt(--length2) + aligned2;
+			else { 
+				aligned1[position] = string1.charAt(--length1);
+				aligned2[position] = string2.charAt(--length2);
 			} 
 		}
 
-		return aligned1 + separator + aligned2;
+		return new Alignment(aligned1, aligned2, position, matrix[string1.length()][string2.length()]);
 	}
 
 	/**
@@ -122,15 +205,12 @@ public class NeedlemanWunsch implements Aligner {
 	 */
 	private int getWeight(char char1, char char2) {
 		
-		if (char1 == char2 || StringUtils.areEqual(char1 + "", char2 + "", true)) { 
-			return 0;
-		}
-		
-		return 1;
+		return costs.getCost(char1, char2);
 	}
 	
 	/**
-	 * Computes the Needleman-Wunsch alignment score for string1 and string2.
+	 * Computes the Needleman-Wunsch alignment score for string1 and string2. Only one row of the 
+	 * matrix is kept, over the shorter string.
 	 * 
 	 * @param string1 the first input string
 	 * @param string2 the second input string
@@ -138,18 +218,88 @@ public class NeedlemanWunsch implements Aligner {
 	 */
 	public int getScore(String string1, String string2) {
 		
+		return getScore(string1, string2, Integer.MAX_VALUE);
+	}
+	
+	/**
+	 * Computes the Needleman-Wunsch alignment score for string1 and string2, if it does not exceed 
+	 * the given bound. The computation stops as soon as all the cells of a row exceed the bound, 
+	 * since the costs are not negative.
+	 * 
+	 * @param string1 the first input string
+	 * @param string2 the second input string
+	 * @param maxScore the maximum score of interest
+	 * @return the alignment score of the two strings, or maxScore + 1 if it exceeds maxScore
+	 * @throws IllegalArgumentException
+	 */
+	public int getScore(String string1, String string2, int maxScore) throws IllegalArgumentException {
+		
 		MetricUtils.validate(string1, string2);
 		
-		logger.info("Computing the Needleman-Wunsch alignment score for strings " +
-					string1 + " " + string2);
+		if (maxScore < 0) {
+			throw new IllegalArgumentException("The maximum score cannot be negative: " + maxScore);
+		}
+		
+		if (logger.isDebugEnabled())
+			logger.debug("Computing the Needleman-Wunsch alignment score for strings " +
+						 string1 + " " + string2);
 		
-		int[][] matrix = computeMatrix(string1, string2);
+		return computeScore(costs, string1, string2, maxScore);
+	}
+	
+	/**
+	 * Computes the alignment score for string1 and string2, keeping one row of the matrix over 
+	 * the shorter string, in buffers owned by the current thread.
+	 * 
+	 * @return the alignment score, or maxScore + 1 if it exceeds maxScore
+	 */
+	static int computeScore(SubstitutionCosts costs, String string1, String string2, int maxScore) {
+		
+		// the matrix is transposed when the columns stand for the first string
+		boolean transposed = string1.length() < string2.length();
+		String columns = transposed ? string1 : string2;
+		String lines = transposed ? string2 : string1;
+		int width = columns.length();
+		
+		int[][] buffers = rows.get();
+		if (buffers[0].length <= width) {
+			buffers[0] = new int[width + 1];
+			buffers[1] = new int[width + 1];
+		}
+		int[] row = buffers[0];
+		int[] gaps = buffers[1];
 		
-		return matrix[string1.length()][string2.length()];
+		row[0] = 0;
+		for (int k = 1; k <= width; k++) {
+			char c = columns.charAt(k - 1);
+			gaps[k] = transposed ? costs.getCost(c, '\0') : costs.getCost('\0', c);
+			row[k] = row[k - 1] + gaps[k];
+		}
+		
+		for (int i = 1; i <= lines.length(); i++) {
+			char c = lines.charAt(i - 1);
+			int gap = transposed ? costs.getCost('\0', c) : costs.getCost(c, '\0');
+			int diagonal = row[0];
+			row[0] += gap;
+			int minimum = row[0];
+			for (int k = 1; k <= width; k++) {
+				int substitution = transposed ? costs.getCost(columns.charAt(k - 1), c) 
+											  : costs.getCost(c, columns.charAt(k - 1));
+				int value = Math.min(diagonal + substitution, Math.min(row[k] + gap, row[k - 1] + gaps[k]));
+				diagonal = row[k];
+				row[k] = value;
+				minimum = Math.min(minimum, value);
+			}
+			if (minimum > maxScore) {
+				return maxScore + 1;
+			}
+		}
+		
+		return row[width] > maxScore ? maxScore + 1 : row[width];
 	}
 	
 	/**
-	 * Aligns all the pairs of strings from the input file
+	 * Aligns all the pairs of strings from the input file, in parallel (see {@link BatchAligner}).
 	 * 
 	 * @param inFile input file containing pairs of strings. Format: string1<separator>string2
 	 * @param outFile output file containing the aligned string. Format: aligned1<separator>aligned2
@@ -158,16 +308,6 @@ public class NeedlemanWunsch implements Aligner {
 	 */
 	public void alignFiles(String inFile, String outFile, String separator) throws IOException {
 		
-		List<String> lines = FileUtils.readLines(inFile);
-		BufferedWriter out = FileUtils.getWriter(outFile);
-
-		for (String line : lines) {
-			line = Normalizer.normalize(line, Normalizer.Form.NFKC);
-			String left = line.split(separator)[0];
-			String right = line.split(separator)[1];
-			out.write(align(left, right, separator) + "\n");
-		}
-		
-		out.close();
+		new BatchAligner(this).alignFiles(inFile, outFile, separator);
 	}
 }
\ No newline at end of file
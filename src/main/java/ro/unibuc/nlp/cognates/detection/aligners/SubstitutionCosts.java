@@ -0,0 +1,19 @@
+package ro.unibuc.nlp.cognates.detection.aligners;
+
+/**
+ * Gives the cost of aligning two characters. The null character stands for a gap, so that
+ * {@code getCost(c, '\0')} is the cost of deleting c and {@code getCost('\0', c)} the cost of
+ * inserting it.
+ */
+@FunctionalInterface
+public interface SubstitutionCosts {
+
+	/**
+	 * Computes the cost of aligning character char1 with character char2.
+	 * 
+	 * @param char1 source character, or '\0' for a gap
+	 * @param char2 target character, or '\0' for a gap
+	 * @return the non-negative cost of the char1 -> char2 transition
+	 */
+	public int getCost(char char1, char char2);
+}
@@ -0,0 +1,364 @@
+package ro.unibuc.nlp.cognates.metrics;
+
+/**
+ * Bit-parallel kernels for the string metrics. The characters of the pattern (usually the shorter
+ * input) are encoded as bits of {@code long} words, so that a whole column of the dynamic
+ * programming matrix is updated with a handful of word operations. The kernels read the text as
+ * the slots of its symbols in the pattern, so they serve both strings and interned sequences.
+ */
+final class BitParallelUtils {
+
+	/**
+	 * The maximum length of a pattern that fits in a single word.
+	 */
+	static final int WORD_SIZE = 64;
+
+	private static final long HIGH_BIT = 1L << 63;
+
+	private static final ThreadLocal<PatternMask> patternMasks = ThreadLocal.withInitial(PatternMask::new);
+
+	private static final ThreadLocal<long[][]> vectors = ThreadLocal.withInitial(() -> new long[2][4]);
+
+	private static final ThreadLocal<int[][]> slots = ThreadLocal.withInitial(() -> new int[1][64]);
+
+	private BitParallelUtils() {
+	}
+
+	/**
+	 * Computes the unnormalized edit distance between the input character sequences, using
+	 * Myers' bit-vector algorithm. Patterns of more than 64 characters are processed in blocks
+	 * of 64 characters (Hyyro's blocked variant).
+	 *
+	 * @param pattern the first character sequence (preferably the shorter one)
+	 * @param text the second character sequence
+	 * @return the unnormalized edit distance between the input character sequences
+	 */
+	static int computeEdit(CharSequence pattern, CharSequence text) {
+
+		return computeEdit(patternMasks.get().build(pattern), text);
+	}
+
+	/**
+	 * Computes the unnormalized edit distance between a pattern, given by its bit vectors, and
+	 * a character sequence.
+	 *
+	 * @param mask the bit vectors of the pattern
+	 * @param text the character sequence
+	 * @return the unnormalized edit distance between the pattern and the character sequence
+	 */
+	static int computeEdit(PatternMask mask, CharSequence text) {
+
+		return computeEdit(mask, findSlots(mask, text), text.length());
+	}
+
+	/**
+	 * Computes the unnormalized edit distance between a pattern, given by its bit vectors, and
+	 * a text given by the slots of its symbols in the pattern (see {@link PatternMask}).
+	 *
+	 * @param mask the bit vectors of the pattern
+	 * @param text the slots of the symbols of the text
+	 * @param length the length of the text
+	 * @return the unnormalized edit distance between the pattern and the text
+	 */
+	static int computeEdit(PatternMask mask, int[] text, int length) {
+
+		if (mask.length() == 0) {
+			return length;
+		}
+		if (mask.blocks() == 1) {
+			return computeEditWord(mask, text, length);
+		}
+
+		return computeEditBlocks(mask, text, length);
+	}
+
+	/**
+	 * Single-word kernel, for patterns of at most 64 characters.
+	 */
+	private static int computeEditWord(PatternMask mask, int[] text, int length) {
+
+		int score = mask.length();
+		long last = 1L << (score - 1);
+		long pv = -1L;
+		long mv = 0L;
+
+		for (int j = 0; j < length; j++) {
+			long eq = mask.mask(text[j], 0);
+			long xv = eq | mv;
+			long xh = (((eq & pv) + pv) ^ pv) | eq;
+			long ph = mv | ~(xh | pv);
+			long mh = pv & xh;
+
+			if ((ph & last) != 0) {
+				score++;
+			}
+			else if ((mh & last) != 0) {
+				score--;
+			}
+
+			// the first row of the matrix increases by one in every column
+			ph = (ph << 1) | 1L;
+			mh <<= 1;
+			pv = mh | ~(xv | ph);
+			mv = ph & xv;
+		}
+
+		return score;
+	}
+
+	/**
+	 * Multi-word kernel: the horizontal delta at the bottom of each block is carried
+	 * into the next block.
+	 */
+	private static int computeEditBlocks(PatternMask mask, int[] text, int length) {
+
+		int blocks = mask.blocks();
+		long[][] buffers = vectors.get();
+		if (buffers[0].length < blocks) {
+			buffers[0] = new long[blocks];
+			buffers[1] = new long[blocks];
+		}
+		long[] pvs = buffers[0];
+		long[] mvs = buffers[1];
+		for (int b = 0; b < blocks; b++) {
+			pvs[b] = -1L;
+			mvs[b] = 0L;
+		}
+
+		int score = mask.length();
+		long last = 1L << ((score - 1) & (WORD_SIZE - 1));
+
+		for (int j = 0; j < length; j++) {
+			int slot = text[j];
+			int hin = 1;
+
+			for (int b = 0; b < blocks; b++) {
+				long eq = mask.mask(slot, b);
+				long pv = pvs[b];
+				long mv = mvs[b];
+				long hinNegative = hin < 0 ? 1L : 0L;
+
+				long xv = eq | mv;
+				eq |= hinNegative;
+				long xh = (((eq & pv) + pv) ^ pv) | eq;
+				long ph = mv | ~(xh | pv);
+				long mh = pv & xh;
+
+				long bottom = b == blocks - 1 ? last : HIGH_BIT;
+				int hout = 0;
+				if ((ph & bottom) != 0) {
+					hout = 1;
+				}
+				else if ((mh & bottom) != 0) {
+					hout = -1;
+				}
+
+				ph <<= 1;
+				mh = (mh << 1) | hinNegative;
+				if (hin > 0) {
+					ph |= 1L;
+				}
+				pvs[b] = mh | ~(xv | ph);
+				mvs[b] = ph & xv;
+
+				hin = hout;
+			}
+
+			score += hin;
+		}
+
+		return score;
+	}
+
+	/**
+	 * Computes the length of the longest common subsequence of the input character sequences, using
+	 * the bit-parallel algorithm of Allison and Dix (in the formulation of Hyyro). Patterns of more
+	 * than 64 characters are processed in blocks of 64 characters, propagating the carry of the
+	 * addition between blocks.
+	 *
+	 * @param pattern the first character sequence (preferably the shorter one)
+	 * @param text the second character sequence
+	 * @return the length of the longest common subsequence of the input character sequences
+	 */
+	static int computeLcs(CharSequence pattern, CharSequence text) {
+
+		return computeLcs(patternMasks.get().build(pattern), text);
+	}
+
+	/**
+	 * Computes the length of the longest common subsequence of a pattern, given by its bit vectors,
+	 * and a character sequence.
+	 *
+	 * @param mask the bit vectors of the pattern
+	 * @param text the character sequence
+	 * @return the length of the longest common subsequence of the pattern and the character sequence
+	 */
+	static int computeLcs(PatternMask mask, CharSequence text) {
+
+		return computeLcs(mask, findSlots(mask, text), text.length());
+	}
+
+	/**
+	 * Computes the length of the longest common subsequence of a pattern, given by its bit vectors,
+	 * and a text given by the slots of its symbols in the pattern (see {@link PatternMask}).
+	 *
+	 * @param mask the bit vectors of the pattern
+	 * @param text the slots of the symbols of the text
+	 * @param length the length of the text
+	 * @return the length of the longest common subsequence of the pattern and the text
+	 */
+	static int computeLcs(PatternMask mask, int[] text, int length) {
+
+		if (mask.length() == 0) {
+			return 0;
+		}
+		if (mask.blocks() == 1) {
+			return computeLcsWord(mask, text, length);
+		}
+
+		return computeLcsBlocks(mask, text, length);
+	}
+
+	/**
+	 * Single-word kernel, for patterns of at most 64 characters.
+	 */
+	private static int computeLcsWord(PatternMask mask, int[] text, int length) {
+
+		long v = -1L;
+
+		for (int j = 0; j < length; j++) {
+			long u = v & mask.mask(text[j], 0);
+			v = (v + u) | (v - u);
+		}
+
+		return Long.bitCount(~v & lastBlockMask(mask.length()));
+	}
+
+	/**
+	 * Multi-word kernel: the carry of the addition is propagated from each block into the next one.
+	 */
+	private static int computeLcsBlocks(PatternMask mask, int[] text, int length) {
+
+		int blocks = mask.blocks();
+		long[][] buffers = vectors.get();
+		if (buffers[0].length < blocks) {
+			buffers[0] = new long[blocks];
+			buffers[1] = new long[blocks];
+		}
+		long[] vs = buffers[0];
+		for (int b = 0; b < blocks; b++) {
+			vs[b] = -1L;
+		}
+
+		for (int j = 0; j < length; j++) {
+			int slot = text[j];
+			if (slot < 0) {
+				continue;
+			}
+
+			long carry = 0L;
+			for (int b = 0; b < blocks; b++) {
+				long v = vs[b];
+				long u = v & mask.mask(slot, b);
+				long sum = v + u + carry;
+				carry = ((v & u) | ((v | u) & ~sum)) >>> (WORD_SIZE - 1);
+				vs[b] = sum | (v - u);
+			}
+		}
+
+		int lcs = 0;
+		for (int b = 0; b < blocks - 1; b++) {
+			lcs += Long.bitCount(~vs[b]);
+		}
+
+		return lcs + Long.bitCount(~vs[blocks - 1] & lastBlockMask(mask.length()));
+	}
+
+	/**
+	 * Computes both the unnormalized edit distance and the length of the longest common
+	 * subsequence of the input character sequences. The bit vectors of the pattern are built
+	 * once, and patterns of at most 64 characters are processed in a single pass over the text,
+	 * the two kernels sharing the lookup of each character.
+	 *
+	 * @param pattern the first character sequence (preferably the shorter one)
+	 * @param text the second character sequence
+	 * @param results receives the edit distance at index 0 and the longest common subsequence at index 1
+	 */
+	static void computeEditAndLcs(CharSequence pattern, CharSequence text, int[] results) {
+
+		PatternMask mask = patternMasks.get().build(pattern);
+		int length = text.length();
+
+		if (mask.length() == 0) {
+			results[0] = length;
+			results[1] = 0;
+			return;
+		}
+		int[] slots = findSlots(mask, text);
+		if (mask.blocks() > 1) {
+			results[0] = computeEditBlocks(mask, slots, length);
+			results[1] = computeLcsBlocks(mask, slots, length);
+			return;
+		}
+
+		int score = mask.length();
+		long last = 1L << (score - 1);
+		long pv = -1L;
+		long mv = 0L;
+		long v = -1L;
+
+		for (int j = 0; j < length; j++) {
+			long eq = mask.mask(slots[j], 0);
+
+			long u = v & eq;
+			v = (v + u) | (v - u);
+
+			long xv = eq | mv;
+			long xh = (((eq & pv) + pv) ^ pv) | eq;
+			long ph = mv | ~(xh | pv);
+			long mh = pv & xh;
+
+			if ((ph & last) != 0) {
+				score++;
+			}
+			else if ((mh & last) != 0) {
+				score--;
+			}
+
+			ph = (ph << 1) | 1L;
+			mh <<= 1;
+			pv = mh | ~(xv | ph);
+			mv = ph & xv;
+		}
+
+		results[0] = score;
+		results[1] = Long.bitCount(~v & lastBlockMask(mask.length()));
+	}
+
+	/**
+	 * Looks up the characters of the text in the pattern, in a buffer owned by the current thread.
+	 */
+	private static int[] findSlots(PatternMask mask, CharSequence text) {
+
+		int[][] buffer = slots.get();
+		if (buffer[0].length < text.length()) {
+			buffer[0] = new int[Math.max(text.length(), 2 * buffer[0].length)];
+		}
+		int[] found = buffer[0];
+		for (int j = 0; j < text.length(); j++) {
+			found[j] = mask.find(text.charAt(j));
+		}
+
+		return found;
+	}
+
+	/**
+	 * Returns the mask of the positions of the pattern that fall in its last block.
+	 */
+	private static long lastBlockMask(int length) {
+
+		int bits = length & (WORD_SIZE - 1);
+
+		return bits == 0 ? -1L : (1L << bits) - 1;
+	}
+}
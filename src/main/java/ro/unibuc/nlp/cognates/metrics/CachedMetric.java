@@ -0,0 +1,324 @@
+package ro.unibuc.nlp.cognates.metrics;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.DoubleSupplier;
+
+import org.apache.log4j.Logger;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+/**
+ * Decorates a metric with a bounded cache of the distances and similarities of the string pairs
+ * it has already computed.
+ *
+ * The words are interned to integer identifiers, and each pair is cached under a single
+ * {@code long} key built from the identifiers of its words, so that a word is stored once
+ * however many pairs it occurs in. Both the words and the pairs are evicted in least recently
+ * used order, so that the approximate memory of the cache stays within the given cap. The
+ * decorator is as thread-safe as the metrics: one instance can be shared by all the threads of
+ * a pool. The token sequences and the words of word pools are not cached.
+ */
+public final class CachedMetric implements Metric {
+
+	private static final Logger logger = Logger.getLogger(CachedMetric.class);
+
+	/**
+	 * The default memory cap of the cache, in bytes.
+	 */
+	public static final long DEFAULT_MAX_BYTES = 64L << 20;
+
+	/**
+	 * The approximate memory of a cached pair: the entry of the cache, the boxed key and value.
+	 */
+	private static final int PAIR_BYTES = 128;
+
+	/**
+	 * The approximate memory of an interned word, without its characters.
+	 */
+	private static final int WORD_BYTES = 160;
+
+	/**
+	 * The flag of the keys of the similarities, above the two 31-bit word identifiers.
+	 */
+	private static final long SIMILARITY = 1L << 63;
+
+	private final Metric metric;
+	private final long maxBytes;
+
+	private final AtomicReference<Tables> tables = new AtomicReference<Tables>();
+
+	/**
+	 * The statistics of the tables discarded when the word identifiers ran out.
+	 */
+	private volatile CacheStats retired = new CacheStats(0, 0, 0, 0, 0, 0);
+
+	/**
+	 * Creates a cache of {@link #DEFAULT_MAX_BYTES} bytes around the given metric.
+	 *
+	 * @param metric the metric
+	 * @throws IllegalArgumentException
+	 */
+	public CachedMetric(Metric metric) throws IllegalArgumentException {
+
+		this(metric, DEFAULT_MAX_BYTES);
+	}
+
+	/**
+	 * Creates a cache around the given metric. A quarter of the memory is reserved for the
+	 * interned words, the rest for the pairs.
+	 *
+	 * @param metric the metric
+	 * @param maxBytes the approximate maximum memory of the cache, in bytes
+	 * @throws IllegalArgumentException
+	 */
+	public CachedMetric(Metric metric, long maxBytes) throws IllegalArgumentException {
+
+		MetricUtils.validate(metric);
+
+		if (maxBytes <= 0) {
+			throw new IllegalArgumentException("The memory of the cache must be positive.");
+		}
+
+		this.metric = metric;
+		this.maxBytes = maxBytes;
+		this.tables.set(new Tables(maxBytes));
+	}
+
+	/**
+	 * Returns the decorated metric.
+	 *
+	 * @return the metric
+	 */
+	public Metric getMetric() {
+
+		return metric;
+	}
+
+	@Override
+	public double computeDistance(String a, String b) throws IllegalArgumentException {
+
+		MetricUtils.validate(a, b);
+
+		return lookup(a, b, false, () -> metric.computeDistance(a, b));
+	}
+
+	@Override
+	public double computeSimilarity(String a, String b) throws IllegalArgumentException {
+
+		MetricUtils.validate(a, b);
+
+		return lookup(a, b, true, () -> metric.computeSimilarity(a, b));
+	}
+
+	@Override
+	public double computeDistance(PreparedWord a, PreparedWord b) throws IllegalArgumentException {
+
+		MetricUtils.validate(a, b);
+
+		return lookup(a.getValue(), b.getValue(), false, () -> metric.computeDistance(a, b));
+	}
+
+	@Override
+	public double computeSimilarity(PreparedWord a, PreparedWord b) throws IllegalArgumentException {
+
+		MetricUtils.validate(a, b);
+
+		return lookup(a.getValue(), b.getValue(), true, () -> metric.computeSimilarity(a, b));
+	}
+
+	@Override
+	public double computeDistance(String a, String b, boolean normalized) throws IllegalArgumentException {
+
+		return metric.computeDistance(a, b, normalized);
+	}
+
+	@Override
+	public double computeDistance(List<String> a, List<String> b) throws IllegalArgumentException {
+
+		return metric.computeDistance(a, b);
+	}
+
+	@Override
+	public double computeDistance(WordPool a, int i, WordPool b, int j) throws IllegalArgumentException {
+
+		return metric.computeDistance(a, i, b, j);
+	}
+
+	@Override
+	public double computeSimilarity(WordPool a, int i, WordPool b, int j) throws IllegalArgumentException {
+
+		return metric.computeSimilarity(a, i, b, j);
+	}
+
+	/**
+	 * Returns the number of lookups that found their pair in the cache.
+	 *
+	 * @return the number of hits
+	 */
+	public long getHits() {
+
+		return getStatistics().hitCount();
+	}
+
+	/**
+	 * Returns the number of lookups that computed their pair.
+	 *
+	 * @return the number of misses
+	 */
+	public long getMisses() {
+
+		return getStatistics().missCount();
+	}
+
+	/**
+	 * Returns the number of pairs evicted from the cache.
+	 *
+	 * @return the number of evictions
+	 */
+	public long getEvictions() {
+
+		return getStatistics().evictionCount();
+	}
+
+	/**
+	 * Returns the fraction of the lookups that found their pair in the cache.
+	 *
+	 * @return the hit rate, 1 if there was no lookup
+	 */
+	public double getHitRate() {
+
+		return getStatistics().hitRate();
+	}
+
+	/**
+	 * Returns the approximate number of cached pairs.
+	 *
+	 * @return the number of pairs
+	 */
+	public long size() {
+
+		return tables.get().pairs.size();
+	}
+
+	/**
+	 * Discards all the cached pairs and words, and resets the counters.
+	 */
+	public synchronized void clear() {
+
+		tables.set(new Tables(maxBytes));
+		retired = new CacheStats(0, 0, 0, 0, 0, 0);
+	}
+
+	/**
+	 * Logs the counters of the cache.
+	 */
+	public void logStatistics() {
+
+		logger.info(toString());
+	}
+
+	@Override
+	public String toString() {
+
+		return metric.getClass().getSimpleName() + " cache: size=" + size() + ", hits=" + getHits()
+				+ ", misses=" + getMisses() + ", evictions=" + getEvictions()
+				+ ", hitRate=" + MetricUtils.format(getHitRate(), 1, 2);
+	}
+
+	/**
+	 * Returns the cached value of a pair, computing and caching it on a miss.
+	 */
+	private double lookup(String a, String b, boolean similarity, DoubleSupplier compute) {
+
+		Tables tables = this.tables.get();
+		long key = tables.key(a, b);
+		while (key < 0) {
+			renew(tables);
+			tables = this.tables.get();
+			key = tables.key(a, b);
+		}
+		if (similarity) {
+			key |= SIMILARITY;
+		}
+
+		Double value = tables.pairs.getIfPresent(key);
+		if (value == null) {
+			value = compute.getAsDouble();
+			tables.pairs.put(key, value);
+		}
+
+		return value;
+	}
+
+	/**
+	 * Replaces the tables whose word identifiers ran out.
+	 */
+	private void renew(Tables exhausted) {
+
+		if (tables.compareAndSet(exhausted, new Tables(maxBytes))) {
+			synchronized (this) {
+				retired = retired.plus(exhausted.pairs.stats());
+			}
+			if (logger.isDebugEnabled())
+				logger.debug("Renewing the tables of the " + metric.getClass().getSimpleName() + " cache");
+		}
+	}
+
+	private CacheStats getStatistics() {
+
+		return retired.plus(tables.get().pairs.stats());
+	}
+
+	/**
+	 * The interned words and the cached pairs. The tables are replaced as a whole when the word
+	 * identifiers run out, so that an identifier is never reused within a table.
+	 */
+	private final class Tables {
+
+		private final Cache<String, Integer> words;
+		private final Cache<Long, Double> pairs;
+		private final AtomicInteger nextId = new AtomicInteger();
+
+		private Tables(long maxBytes) {
+
+			words = CacheBuilder.newBuilder()
+					.maximumWeight(Math.max(1, maxBytes / 4))
+					.weigher((String word, Integer id) -> WORD_BYTES + 2 * word.length())
+					.build();
+			pairs = CacheBuilder.newBuilder()
+					.maximumSize(Math.max(1, (maxBytes - maxBytes / 4) / PAIR_BYTES))
+					.recordStats()
+					.build();
+		}
+
+		/**
+		 * Returns the key of an ordered pair of words, interning the words, or -1 if the word
+		 * identifiers ran out.
+		 */
+		private long key(String a, String b) {
+
+			int id1 = idOf(a);
+			int id2 = idOf(b);
+			if (id1 < 0 || id2 < 0) {
+				return -1;
+			}
+
+			return (long) id1 << 32 | id2;
+		}
+
+		private int idOf(String word) {
+
+			try {
+				return words.get(word, nextId::getAndIncrement);
+			}
+			catch (ExecutionException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+	}
+}
@@ -0,0 +1,262 @@
+package ro.unibuc.nlp.cognates.metrics;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Computes the matrix of distances between all the words of two lexicons and writes it to a
+ * memory-mapped file, so that the matrix never has to fit on the heap.
+ *
+ * The matrix is split into square tiles that are computed in parallel on a fork-join pool; the
+ * words are prepared once, and a tile only touches the prepared words of its rows and columns.
+ * When both lexicons are the same list, only the tiles on and above the diagonal are computed
+ * and each distance is written to both of its cells, the metrics being symmetric.
+ *
+ * File format: the number of rows and the number of columns (32-bit integers), followed by the
+ * distances as 32-bit floats in row-major order, all little-endian.
+ */
+public final class DistanceMatrix {
+
+	private static final Logger logger = Logger.getLogger(DistanceMatrix.class);
+
+	/**
+	 * The default number of rows and columns of a tile.
+	 */
+	public static final int DEFAULT_TILE_SIZE = 128;
+
+	/**
+	 * The size of the file header, in bytes.
+	 */
+	public static final int HEADER_SIZE = 8;
+
+	private static final int CELL_SIZE = 4;
+
+	private final Metric metric;
+	private final ForkJoinPool pool;
+	private final int tileSize;
+
+	/**
+	 * Creates a matrix engine running on the common fork-join pool.
+	 *
+	 * @param metric the metric
+	 * @throws IllegalArgumentException
+	 */
+	public DistanceMatrix(Metric metric) throws IllegalArgumentException {
+
+		this(metric, ForkJoinPool.commonPool(), DEFAULT_TILE_SIZE);
+	}
+
+	/**
+	 * Creates a matrix engine running on the given fork-join pool.
+	 *
+	 * @param metric the metric
+	 * @param pool the fork-join pool
+	 * @param tileSize the number of rows and columns of a tile
+	 * @throws IllegalArgumentException
+	 */
+	public DistanceMatrix(Metric metric, ForkJoinPool pool, int tileSize) throws IllegalArgumentException {
+
+		MetricUtils.validate(metric, pool);
+
+		if (tileSize < 1) {
+			throw new IllegalArgumentException("The tile size must be positive.");
+		}
+
+		this.metric = metric;
+		this.pool = pool;
+		this.tileSize = tileSize;
+	}
+
+	/**
+	 * Computes the distances between the words of the first lexicon (rows) and the words of the
+	 * second lexicon (columns), and writes them to the given file.
+	 *
+	 * @param rows the first lexicon
+	 * @param columns the second lexicon
+	 * @param path the location of the output file
+	 * @throws IllegalArgumentException
+	 * @throws IOException
+	 */
+	public void write(List<String> rows, List<String> columns, String path)
+			throws IllegalArgumentException, IOException {
+
+		MetricUtils.validate(rows, columns);
+		MetricUtils.validate(path);
+
+		boolean symmetric = rows == columns || rows.equals(columns);
+		List<PreparedWord> preparedRows = PreparedWord.prepare(rows);
+		List<PreparedWord> preparedColumns = symmetric ? preparedRows : PreparedWord.prepare(columns);
+
+		logger.info("Computing the " + rows.size() + "x" + columns.size() + " " + metric + " distance matrix"
+				+ (symmetric ? " (symmetric)" : "") + " in " + path);
+
+		try (RandomAccessFile file = new RandomAccessFile(path, "rw")) {
+			Cells cells = new Cells(file.getChannel(), rows.size(), columns.size());
+
+			List<int[]> tiles = new ArrayList<int[]>();
+			for (int row = 0; row < rows.size(); row += tileSize) {
+				for (int column = symmetric ? row : 0; column < columns.size(); column += tileSize) {
+					tiles.add(new int[] {row, column});
+				}
+			}
+
+			pool.invoke(new Task(preparedRows, preparedColumns, symmetric, cells, tiles, 0, tiles.size()));
+			cells.force();
+		}
+	}
+
+	/**
+	 * Reads a row of a distance matrix file.
+	 *
+	 * @param path the location of the matrix file
+	 * @param row the index of the row
+	 * @return the distances of the row
+	 * @throws IllegalArgumentException
+	 * @throws IOException
+	 */
+	public static float[] readRow(String path, int row) throws IllegalArgumentException, IOException {
+
+		MetricUtils.validate(path);
+
+		try (RandomAccessFile file = new RandomAccessFile(path, "r")) {
+			FileChannel channel = file.getChannel();
+			MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+			header.order(ByteOrder.LITTLE_ENDIAN);
+			int rows = header.getInt(0);
+			int columns = header.getInt(4);
+
+			if (row < 0 || row >= rows) {
+				throw new IllegalArgumentException("Invalid row " + row + " for a matrix with " + rows + " rows.");
+			}
+
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY,
+					HEADER_SIZE + (long) row * columns * CELL_SIZE, (long) columns * CELL_SIZE);
+			buffer.order(ByteOrder.LITTLE_ENDIAN);
+			float[] distances = new float[columns];
+			buffer.asFloatBuffer().get(distances);
+
+			return distances;
+		}
+	}
+
+	/**
+	 * The cells of the matrix file, mapped in chunks of whole rows (a mapping cannot exceed 2 GB).
+	 */
+	private static final class Cells {
+
+		private final MappedByteBuffer[] chunks;
+		private final int rowsPerChunk;
+		private final int columns;
+
+		private Cells(FileChannel channel, int rows, int columns) throws IOException {
+
+			long rowSize = (long) columns * CELL_SIZE;
+			if (rowSize > Integer.MAX_VALUE) {
+				throw new IllegalArgumentException("Too many columns: " + columns);
+			}
+
+			this.columns = columns;
+			this.rowsPerChunk = rowSize == 0 ? Math.max(rows, 1) : (int) Math.min(Math.max(rows, 1), Integer.MAX_VALUE / rowSize);
+
+			channel.truncate(0);
+			MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+			header.order(ByteOrder.LITTLE_ENDIAN);
+			header.putInt(0, rows);
+			header.putInt(4, columns);
+			header.force();
+
+			chunks = new MappedByteBuffer[(rows + rowsPerChunk - 1) / rowsPerChunk];
+			for (int k = 0; k < chunks.length; k++) {
+				int chunkRows = Math.min(rowsPerChunk, rows - k * rowsPerChunk);
+				chunks[k] = channel.map(FileChannel.MapMode.READ_WRITE,
+						HEADER_SIZE + (long) k * rowsPerChunk * rowSize, chunkRows * rowSize);
+				chunks[k].order(ByteOrder.LITTLE_ENDIAN);
+			}
+		}
+
+		/**
+		 * Writes a cell. Absolute puts do not change the state of the buffers, so the tiles can
+		 * write their (disjoint) cells concurrently.
+		 */
+		private void put(int row, int column, float distance) {
+
+			chunks[row / rowsPerChunk].putFloat(((row % rowsPerChunk) * columns + column) * CELL_SIZE, distance);
+		}
+
+		private void force() {
+
+			for (MappedByteBuffer chunk : chunks) {
+				chunk.force();
+			}
+		}
+	}
+
+	/**
+	 * Computes the tiles in [from, to), splitting the range in halves while it has several tiles.
+	 */
+	private final class Task extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final List<PreparedWord> rows;
+		private final List<PreparedWord> columns;
+		private final boolean symmetric;
+		private final Cells cells;
+		private final List<int[]> tiles;
+		private final int from;
+		private final int to;
+
+		private Task(List<PreparedWord> rows, List<PreparedWord> columns, boolean symmetric, Cells cells,
+				List<int[]> tiles, int from, int to) {
+
+			this.rows = rows;
+			this.columns = columns;
+			this.symmetric = symmetric;
+			this.cells = cells;
+			this.tiles = tiles;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+
+			if (to - from > 1) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new Task(rows, columns, symmetric, cells, tiles, from, middle),
+						  new Task(rows, columns, symmetric, cells, tiles, middle, to));
+				return;
+			}
+
+			for (int t = from; t < to; t++) {
+				computeTile(tiles.get(t)[0], tiles.get(t)[1]);
+			}
+		}
+
+		private void computeTile(int row, int column) {
+
+			int rowEnd = Math.min(row + tileSize, rows.size());
+			int columnEnd = Math.min(column + tileSize, columns.size());
+
+			for (int i = row; i < rowEnd; i++) {
+				PreparedWord a = rows.get(i);
+				for (int j = symmetric ? Math.max(column, i) : column; j < columnEnd; j++) {
+					float distance = (float) metric.computeDistance(a, columns.get(j));
+					cells.put(i, j, distance);
+					if (symmetric && i != j) {
+						cells.put(j, i, distance);
+					}
+				}
+			}
+		}
+	}
+}
@@ -1,8 +1,6 @@
 package ro.unibuc.nlp.cognates.metrics;
 
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 import org.apache.log4j.Logger;
 
@@ -15,7 +13,78 @@ public class Edit implements Metric {
 
 	private static final Logger logger = Logger.getLogger(Edit.class);
 	
-	private Map<String, Double> distanceMap;
+	/**
+	 * The algorithms available for computing the edit distance between strings.
+	 */
+	public enum Engine {
+		
+		/**
+		 * Dynamic programming over two rows of the edit distance matrix.
+		 */
+		DYNAMIC_PROGRAMMING,
+		
+		/**
+		 * Myers' bit-vector algorithm when the shorter string has at most 64 characters,
+		 * dynamic programming otherwise.
+		 */
+		BIT_PARALLEL,
+		
+		/**
+		 * Myers' bit-vector algorithm, processing strings longer than 64 characters in blocks
+		 * of 64 characters.
+		 */
+		BLOCKED_BIT_PARALLEL
+	}
+	
+	/**
+	 * Value returned by {@link #computeDistanceBounded(String, String, int)} when the edit distance 
+	 * exceeds the given bound.
+	 */
+	public static final int DISTANCE_EXCEEDED = -1;
+	
+	private final Engine engine;
+	
+	/**
+	 * Creates an edit distance metric that uses the {@link Engine#BIT_PARALLEL} engine.
+	 */
+	public Edit() {
+		
+		this(Engine.BIT_PARALLEL);
+	}
+	
+	/**
+	 * Creates an edit distance metric that uses the given engine.
+	 * 
+	 * @param engine the algorithm used for computing the edit distance between strings
+	 * @throws IllegalArgumentException
+	 */
+	public Edit(Engine engine) throws IllegalArgumentException {
+		
+		if (engine == null) {
+			throw new IllegalArgumentException("The edit distance engine cannot be null.");
+		}
+		this.engine = engine;
+	}
+	
+	/**
+	 * Returns the algorithm used for computing the edit distance between strings.
+	 * 
+	 * @return the edit distance engine
+	 */
+	public Engine getEngine() {
+		
+		return engine;
+	}
+	
+	/**
+	 * Scratch rows of the dynamic programming engine, reused by all the computations of a thread.
+	 */
+	private static final ThreadLocal<int[][]> rows = ThreadLocal.withInitial(() -> new int[2][32]);
+
+	/**
+	 * Scratch copies of the character sequences compared by the dynamic programming engine.
+	 */
+	private static final ThreadLocal<int[][]> symbols = ThreadLocal.withInitial(() -> new int[2][32]);
 
 	/**
 	 * Computes the unnormalized edit distance between the input strings.
@@ -29,42 +98,245 @@ public class Edit implements Metric {
 		
 		MetricUtils.validate(a, b);
 		
-		int cost = 0;
-
-		 Double computedDistance = distanceMap.get(a + "__" + b);
-		 
-		 if (computedDistance != null && computedDistance != 0d) {
-			 return computedDistance;
-		 }
-		 
-		 if(a.length() == 0) {
-			 return b.length();
-		 }
-		 else if(b.length() == 0) {
-			 return a.length();
-		 }
-		 else {
-			 if(a.charAt(0) != b.charAt(0)) {
-				 cost = 1;
-			 }
-			 double distance =  Math.min(
-					            	Math.min(computeEdit(a.substring(1), b) + 1,
-					            			 computeEdit(a, b.substring(1)) + 1),
-					            			 computeEdit(a.substring(1), b.substring(1)) + cost);
-			 
-			 distanceMap.put(a + "__" + b, distance);
-			 
-			 return distance;
-		 }
+		return computeEdit((CharSequence) a, (CharSequence) b);
 	}
 	
+	/**
+	 * Computes the unnormalized edit distance between the input character sequences, using the 
+	 * engine of this metric.
+	 * 
+	 * @param a the first character sequence
+	 * @param b the second character sequence
+	 * @return the unnormalized edit distance between the input character sequences
+	 */
+	int computeEdit(CharSequence a, CharSequence b) {
+		
+		// the bit vectors encode the shorter sequence
+		if (a.length() > b.length()) {
+			CharSequence aux = a;
+			a = b;
+			b = aux;
+		}
+		
+		switch (engine) {
+		case BIT_PARALLEL:
+			if (a.length() <= BitParallelUtils.WORD_SIZE) {
+				return BitParallelUtils.computeEdit(a, b);
+			}
+			return computeDynamicEdit(a, b);
+		case BLOCKED_BIT_PARALLEL:
+			return BitParallelUtils.computeEdit(a, b);
+		default:
+			return computeDynamicEdit(a, b);
+		}
+	}
+	
+	/**
+	 * Computes the unnormalized edit distance between the input character sequences, keeping only 
+	 * two rows of the dynamic programming matrix. The rows are reused between calls, so the 
+	 * computation does not allocate memory once the buffers have grown to the size of the input.
+	 * 
+	 * @param a the first character sequence
+	 * @param b the second character sequence
+	 * @return the unnormalized edit distance between the input character sequences
+	 */
+	static int computeDynamicEdit(CharSequence a, CharSequence b) {
+		
+		int[][] buffers = symbols.get();
+		buffers[0] = copy(a, buffers[0]);
+		buffers[1] = copy(b, buffers[1]);
+		
+		return computeDynamicEdit(buffers[0], a.length(), buffers[1], b.length());
+	}
+	
+	/**
+	 * Computes the unnormalized edit distance between two sequences of symbols, keeping only two 
+	 * rows of the dynamic programming matrix.
+	 * 
+	 * @param a the symbols of the first sequence
+	 * @param length1 the length of the first sequence
+	 * @param b the symbols of the second sequence
+	 * @param length2 the length of the second sequence
+	 * @return the unnormalized edit distance between the sequences
+	 */
+	static int computeDynamicEdit(int[] a, int length1, int[] b, int length2) {
+		
+		// keep the shorter sequence on the columns
+		if (length1 < length2) {
+			int[] aux = a;
+			a = b;
+			b = aux;
+			int length = length1;
+			length1 = length2;
+			length2 = length;
+		}
+		
+		if (length2 == 0) {
+			return length1;
+		}
+		
+		int[][] buffers = rows.get();
+		if (buffers[0].length <= length2) {
+			buffers[0] = new int[length2 + 1];
+			buffers[1] = new int[length2 + 1];
+		}
+		int[] previous = buffers[0];
+		int[] current = buffers[1];
+		
+		for (int j = 0; j <= length2; j++) {
+			previous[j] = j;
+		}
+		
+		for (int i = 1; i <= length1; i++) {
+			int symbol = a[i - 1];
+			current[0] = i;
+			for (int j = 1; j <= length2; j++) {
+				int cost = symbol == b[j - 1] ? 0 : 1;
+				current[j] = Math.min(previous[j - 1] + cost, 
+									  Math.min(previous[j], current[j - 1]) + 1);
+			}
+			int[] aux = previous;
+			previous = current;
+			current = aux;
+		}
+		
+		return previous[length2];
+	}
+	
+	private static int[] copy(CharSequence sequence, int[] buffer) {
+		
+		if (buffer.length < sequence.length()) {
+			buffer = new int[Math.max(sequence.length(), 2 * buffer.length)];
+		}
+		for (int i = 0; i < sequence.length(); i++) {
+			buffer[i] = sequence.charAt(i);
+		}
+		
+		return buffer;
+	}
+	
+	/**
+	 * Computes the unnormalized edit distance between the input strings, if it does not exceed the 
+	 * given bound. Only a diagonal band of width 2 * maxDistance + 1 of the dynamic programming matrix 
+	 * is computed, and the computation stops as soon as all the cells of a row exceed the bound.
+	 * 
+	 * @param a the first string
+	 * @param b the second string
+	 * @param maxDistance the maximum edit distance of interest
+	 * @return the unnormalized edit distance between the input strings, or {@link #DISTANCE_EXCEEDED} 
+	 * 		   if the distance is greater than maxDistance
+	 * @throws IllegalArgumentException
+	 */
+	public int computeDistanceBounded(String a, String b, int maxDistance) throws IllegalArgumentException {
+		
+		MetricUtils.validate(a, b);
+		
+		if (maxDistance < 0) {
+			throw new IllegalArgumentException("The maximum edit distance cannot be negative.");
+		}
+		
+		if (logger.isDebugEnabled())
+			logger.debug("Computing the edit distance between strings " + a + " " + b + 
+						 " bounded by " + maxDistance);
+		
+		return computeBoundedEdit(a, b, maxDistance);
+	}
+	
+	/**
+	 * Computes the banded edit distance between the input character sequences.
+	 * 
+	 * @param a the first character sequence
+	 * @param b the second character sequence
+	 * @param maxDistance the maximum edit distance of interest
+	 * @return the unnormalized edit distance between the input character sequences, or 
+	 * 		   {@link #DISTANCE_EXCEEDED} if the distance is greater than maxDistance
+	 */
+	static int computeBoundedEdit(CharSequence a, CharSequence b, int maxDistance) {
+		
+		// keep the shorter sequence on the columns
+		if (a.length() < b.length()) {
+			CharSequence aux = a;
+			a = b;
+			b = aux;
+		}
+		
+		int length1 = a.length();
+		int length2 = b.length();
+		
+		// each surplus character costs at least one insertion
+		if (length1 - length2 > maxDistance) {
+			return DISTANCE_EXCEEDED;
+		}
+		if (length2 == 0) {
+			return length1;
+		}
+		
+		// beyond this value the band covers the whole matrix
+		int bound = Math.min(maxDistance, length1);
+		// stands for the cells outside the band
+		int outside = bound + 1;
+		
+		int[][] buffers = rows.get();
+		if (buffers[0].length <= length2 + 1) {
+			buffers[0] = new int[length2 + 2];
+			buffers[1] = new int[length2 + 2];
+		}
+		int[] previous = buffers[0];
+		int[] current = buffers[1];
+		
+		int last = Math.min(length2, bound);
+		for (int j = 0; j <= last; j++) {
+			previous[j] = j;
+		}
+		previous[last + 1] = outside;
+		
+		for (int i = 1; i <= length1; i++) {
+			char c = a.charAt(i - 1);
+			int from = Math.max(1, i - bound);
+			int to = Math.min(length2, i + bound);
+			
+			current[from - 1] = from == 1 ? i : outside;
+			int rowMinimum = current[from - 1];
+			
+			for (int j = from; j <= to; j++) {
+				int cost = c == b.charAt(j - 1) ? 0 : 1;
+				int value = Math.min(previous[j - 1] + cost, 
+									 Math.min(previous[j], current[j - 1]) + 1);
+				current[j] = value;
+				if (value < rowMinimum) {
+					rowMinimum = value;
+				}
+			}
+			current[to + 1] = outside;
+			
+			if (rowMinimum > bound) {
+				return DISTANCE_EXCEEDED;
+			}
+			
+			int[] aux = previous;
+			previous = current;
+			current = aux;
+		}
+		
+		int distance = previous[length2];
+		
+		return distance <= bound ? distance : DISTANCE_EXCEEDED;
+	}
+	
+	/**
+	 * Computes the unnormalized edit distance between the input strings.
+	 * 
+	 * @param a the first string
+	 * @param b the second string
+	 * @return the unnormalized edit distance between the input strings
+	 * @throws IllegalArgumentException
+	 */
 	public double computeUnnormalizedDistance(String a, String b) throws IllegalArgumentException {
-		distanceMap = new HashMap<String, Double>();
-		logger.info("Computing the edit distance between strings " + a + " " + b);
 		
-		double distance = computeEdit(a, b);
+		if (logger.isDebugEnabled())
+			logger.debug("Computing the edit distance between strings " + a + " " + b);
 		
-		return distance;
+		return computeEdit(a, b);
 	}
 	
 	/**
@@ -77,8 +349,8 @@ public class Edit implements Metric {
 	 */
 	public double computeDistance(String a, String b) throws IllegalArgumentException {
 
-		distanceMap = new HashMap<String, Double>();
-		logger.info("Computing the edit distance between strings " + a + " " + b);
+		if (logger.isDebugEnabled())
+			logger.debug("Computing the edit distance between strings " + a + " " + b);
 		
 		double distance = computeEdit(a, b);
 
@@ -101,8 +373,8 @@ public class Edit implements Metric {
 	 */
 	public double computeDistance(String a, String b, boolean normalized) throws IllegalArgumentException {
 
-		distanceMap = new HashMap<String, Double>();
-		logger.info("Computing the edit distance between strings " + a + " " + b);
+		if (logger.isDebugEnabled())
+			logger.debug("Computing the edit distance between strings " + a + " " + b);
 		
 		double distance = computeEdit(a, b);
 
@@ -129,7 +401,8 @@ public class Edit implements Metric {
 	 */
 	public double computeSimilarity(String a, String b) throws IllegalArgumentException {
 
-		logger.info("Computing the edit similarity between strings " + a + " " + b);
+		if (logger.isDebugEnabled())
+			logger.debug("Computing the edit similarity between strings " + a + " " + b);
 		
 		double distance = computeEdit(a, b);
 		int maxLength = Math.max(a.length(), b.length());
@@ -142,7 +415,90 @@ public class Edit implements Metric {
 	}
 	
 	/**
-	 * Computes the unnormalized edit distance between the input sequences.
+	 * Computes the unnormalized edit distance between the input words, reusing the bit vectors 
+	 * of the shorter word.
+	 * 
+	 * @param a the first prepared word
+	 * @param b the second prepared word
+	 * @return the unnormalized edit distance between the input words
+	 * @throws IllegalArgumentException
+	 */
+	public double computeUnnormalizedDistance(PreparedWord a, PreparedWord b) throws IllegalArgumentException {
+		
+		MetricUtils.validate(a, b);
+		
+		return computeEdit(a, b);
+	}
+	
+	@Override
+	public double computeDistance(PreparedWord a, PreparedWord b) throws IllegalArgumentException {
+		
+		MetricUtils.validate(a, b);
+		
+		int maxLength = Math.max(a.length(), b.length());
+		
+		if (maxLength == 0) {
+			return 0;
+		}
+		return (double) computeEdit(a, b)/maxLength;
+	}
+	
+	@Override
+	public double computeSimilarity(PreparedWord a, PreparedWord b) throws IllegalArgumentException {
+		
+		MetricUtils.validate(a, b);
+		
+		int maxLength = Math.max(a.length(), b.length());
+		
+		if (maxLength == 0) {
+			return 1;
+		}
+		return 1 - (double) computeEdit(a, b)/maxLength;
+	}
+	
+	@Override
+	public double computeDistance(WordPool a, int i, WordPool b, int j) throws IllegalArgumentException {
+		
+		MetricUtils.validate(a, b);
+		
+		int maxLength = Math.max(a.length(i), b.length(j));
+		
+		if (maxLength == 0) {
+			return 0;
+		}
+		return (double) computeEdit(a.view(i), b.view(j))/maxLength;
+	}
+	
+	@Override
+	public double computeSimilarity(WordPool a, int i, WordPool b, int j) throws IllegalArgumentException {
+		
+		return 1 - computeDistance(a, i, b, j);
+	}
+	
+	/**
+	 * Computes the unnormalized edit distance between the input words, using the engine of this metric.
+	 */
+	int computeEdit(PreparedWord a, PreparedWord b) {
+		
+		// the bit vectors encode the shorter word
+		if (a.length() > b.length()) {
+			PreparedWord aux = a;
+			a = b;
+			b = aux;
+		}
+		
+		if (engine == Engine.BLOCKED_BIT_PARALLEL || 
+			(engine == Engine.BIT_PARALLEL && a.length() <= BitParallelUtils.WORD_SIZE)) {
+			return BitParallelUtils.computeEdit(a.getMask(), b.getValue());
+		}
+		
+		return computeDynamicEdit(a.getValue(), b.getValue());
+	}
+	
+	/**
+	 * Computes the unnormalized edit distance between the input sequences. The tokens are interned 
+	 * and compared as integers, with the bit-parallel kernels (or two rows of the dynamic programming 
+	 * matrix, for the dynamic programming engine).
 	 * 
 	 * @param a the first sequence
 	 * @param b the second sequence
@@ -153,33 +509,7 @@ public class Edit implements Metric {
 		
 		MetricUtils.validate(a, b);
 		
-		int cost = 0;
-
-		 Double computedDistance = distanceMap.get(a + "__" + b);
-		 
-		 if (computedDistance != null && computedDistance != 0d) {
-			 return computedDistance;
-		 }
-		 
-		 if(a.size() == 0) {
-			 return b.size();
-		 }
-		 else if(b.size() == 0) {
-			 return a.size();
-		 }
-		 else {
-			 if(!a.get(0).equals(b.get(0))) {
-				 cost = 1;
-			 }
-			 double distance =  Math.min(
-					            	Math.min(computeEdit(a.subList(1, a.size()), b) + 1,
-					            			 computeEdit(a, b.subList(1, b.size())) + 1),
-					            			 computeEdit(a.subList(1, a.size()), b.subList(1, b.size())) + cost);
-			 
-			 distanceMap.put(a.toString() + "__" + b.toString(), distance);
-			 
-			 return distance;
-		 }
+		return TokenSequences.intern(a, b).computeEdit(engine != Engine.DYNAMIC_PROGRAMMING);
 	}
 	
 	/**
@@ -192,7 +522,8 @@ public class Edit implements Metric {
 	 */
 	public double computeDistance(List<String> a, List<String> b) throws IllegalArgumentException {
 
-		logger.info("Computing the edit distance between sequences " + a + " " + b);
+		if (logger.isDebugEnabled())
+			logger.debug("Computing the edit distance between sequences " + a + " " + b);
 		
 		double distance = computeEdit(a, b);
 		int maxLength = Math.max(a.size(), b.size());
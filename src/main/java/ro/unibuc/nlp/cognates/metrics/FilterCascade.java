@@ -0,0 +1,334 @@
+package ro.unibuc.nlp.cognates.metrics;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Rejects the pairs of words whose {@link Edit} or {@link Lcsr} distance exceeds a threshold,
+ * using cheap bounds before computing the metric.
+ *
+ * Each stage of the cascade bounds the unnormalized edit distance from below (or the length of
+ * the longest common subsequence from above), and rejects the pair as soon as the bound proves
+ * that the threshold cannot be met. Only the pairs that pass all the stages reach the metric.
+ * The cascade counts the pairs rejected by each stage; the counters can be read while the
+ * cascade is used from several threads.
+ */
+public final class FilterCascade {
+
+	private static final Logger logger = Logger.getLogger(FilterCascade.class);
+
+	/**
+	 * Tolerance of the bounds, so that rounding errors never reject a valid pair.
+	 */
+	private static final double EPSILON = 1e-9;
+
+	/**
+	 * The distance returned for the rejected pairs.
+	 */
+	public static final double REJECTED = -1;
+
+	/**
+	 * The stages of the cascade, from the cheapest to the most expensive.
+	 */
+	public enum Stage {
+
+		/**
+		 * The edit distance is at least the difference between the lengths of the words.
+		 */
+		LENGTH,
+
+		/**
+		 * Each edit operation changes the count of at most one character in each direction, so the
+		 * edit distance is at least the number of surplus characters of either word.
+		 */
+		HISTOGRAM,
+
+		/**
+		 * Each character class (character mod 64) found in only one of the words requires at
+		 * least one edit operation.
+		 */
+		BITMASK,
+
+		/**
+		 * Each edit operation destroys at most q of the q-grams of a word, so the edit distance is
+		 * at least the number of q-grams found in only one of the words, divided by q. The q-grams
+		 * are the n-grams cached by the prepared words.
+		 */
+		QGRAM
+	}
+
+	private final Metric metric;
+	private final boolean lcs;
+	private final double maxDistance;
+	private final Stage[] stages;
+
+	private final Map<Stage, LongAdder> rejected = new EnumMap<Stage, LongAdder>(Stage.class);
+	private final LongAdder pairs = new LongAdder();
+	private final LongAdder rejectedByMetric = new LongAdder();
+
+	/**
+	 * Creates a cascade of all the stages, in the order of their cost.
+	 *
+	 * @param metric the metric, an {@link Edit} or {@link Lcsr} instance
+	 * @param maxDistance the maximum normalized distance of the accepted pairs
+	 * @throws IllegalArgumentException
+	 */
+	public FilterCascade(Metric metric, double maxDistance) throws IllegalArgumentException {
+
+		this(metric, maxDistance, Stage.values());
+	}
+
+	/**
+	 * Creates a cascade of the given stages.
+	 *
+	 * @param metric the metric, an {@link Edit} or {@link Lcsr} instance
+	 * @param maxDistance the maximum normalized distance of the accepted pairs
+	 * @param stages the stages, in the order they are applied
+	 * @throws IllegalArgumentException
+	 */
+	public FilterCascade(Metric metric, double maxDistance, Stage... stages) throws IllegalArgumentException {
+
+		MetricUtils.validate(metric, stages);
+
+		if (!(metric instanceof Edit) && !(metric instanceof Lcsr)) {
+			throw new IllegalArgumentException("The filters only bound the Edit and Lcsr distances.");
+		}
+		if (maxDistance < 0) {
+			throw new IllegalArgumentException("The maximum distance cannot be negative.");
+		}
+
+		this.metric = metric;
+		this.lcs = metric instanceof Lcsr;
+		this.maxDistance = maxDistance;
+		this.stages = stages.clone();
+
+		for (Stage stage : Stage.values()) {
+			rejected.put(stage, new LongAdder());
+		}
+	}
+
+	/**
+	 * Computes the distance between the input words if it does not exceed the maximum distance.
+	 *
+	 * @param a the first prepared word
+	 * @param b the second prepared word
+	 * @return the normalized distance between the input words, or {@link #REJECTED}
+	 * @throws IllegalArgumentException
+	 */
+	public double computeDistance(PreparedWord a, PreparedWord b) throws IllegalArgumentException {
+
+		MetricUtils.validate(a, b);
+
+		pairs.increment();
+
+		int maxLength = Math.max(a.length(), b.length());
+
+		// the maximum edit distance, or the minimum common subsequence length
+		int bound = lcs
+				? (int) Math.ceil((1 - maxDistance) * maxLength - EPSILON)
+				: (int) Math.floor(maxDistance * maxLength + EPSILON);
+
+		for (Stage stage : stages) {
+			boolean reject = lcs
+					? computeLcsUpperBound(stage, a, b) < bound
+					: computeEditLowerBound(stage, a, b) > bound;
+			if (reject) {
+				rejected.get(stage).increment();
+				return REJECTED;
+			}
+		}
+
+		double distance;
+		if (lcs) {
+			distance = metric.computeDistance(a, b);
+		}
+		else {
+			int edit = Edit.computeBoundedEdit(a.getValue(), b.getValue(), bound);
+			distance = edit == Edit.DISTANCE_EXCEEDED ? REJECTED : maxLength == 0 ? 0 : (double) edit / maxLength;
+		}
+
+		if (distance == REJECTED || distance > maxDistance) {
+			rejectedByMetric.increment();
+			return REJECTED;
+		}
+
+		return distance;
+	}
+
+	/**
+	 * Computes the distance between the input strings if it does not exceed the maximum distance.
+	 *
+	 * @param a the first string
+	 * @param b the second string
+	 * @return the normalized distance between the input strings, or {@link #REJECTED}
+	 * @throws IllegalArgumentException
+	 */
+	public double computeDistance(String a, String b) throws IllegalArgumentException {
+
+		MetricUtils.validate(a, b);
+
+		return computeDistance(new PreparedWord(a), new PreparedWord(b));
+	}
+
+	/**
+	 * Returns the number of pairs given to the cascade.
+	 *
+	 * @return the number of pairs
+	 */
+	public long getPairs() {
+
+		return pairs.sum();
+	}
+
+	/**
+	 * Returns the number of pairs rejected by a stage.
+	 *
+	 * @param stage the stage
+	 * @return the number of pairs rejected by the stage
+	 */
+	public long getRejected(Stage stage) {
+
+		return rejected.get(stage).sum();
+	}
+
+	/**
+	 * Returns the number of pairs that passed all the stages, but were rejected by the metric.
+	 *
+	 * @return the number of pairs rejected by the metric
+	 */
+	public long getRejectedByMetric() {
+
+		return rejectedByMetric.sum();
+	}
+
+	/**
+	 * Returns the number of accepted pairs.
+	 *
+	 * @return the number of accepted pairs
+	 */
+	public long getAccepted() {
+
+		long accepted = pairs.sum() - rejectedByMetric.sum();
+		for (LongAdder counter : rejected.values()) {
+			accepted -= counter.sum();
+		}
+
+		return accepted;
+	}
+
+	/**
+	 * Resets all the counters.
+	 */
+	public void resetCounters() {
+
+		pairs.reset();
+		rejectedByMetric.reset();
+		for (LongAdder counter : rejected.values()) {
+			counter.reset();
+		}
+	}
+
+	/**
+	 * Logs the counters of the cascade.
+	 */
+	public void logCounters() {
+
+		logger.info(toString());
+	}
+
+	@Override
+	public String toString() {
+
+		StringBuilder builder = new StringBuilder();
+		builder.append(metric.getClass().getSimpleName()).append(" <= ").append(maxDistance);
+		builder.append(": pairs=").append(getPairs());
+		for (Stage stage : stages) {
+			builder.append(", ").append(stage).append("=").append(getRejected(stage));
+		}
+		builder.append(", METRIC=").append(getRejectedByMetric());
+		builder.append(", accepted=").append(getAccepted());
+
+		return builder.toString();
+	}
+
+	/**
+	 * Computes a lower bound of the unnormalized edit distance between the input words.
+	 */
+	static int computeEditLowerBound(Stage stage, PreparedWord a, PreparedWord b) {
+
+		switch (stage) {
+			case LENGTH:
+				return Math.abs(a.length() - b.length());
+			case HISTOGRAM: {
+				int common = countCommonCharacters(a, b);
+				return Math.max(a.length() - common, b.length() - common);
+			}
+			case BITMASK:
+				return Math.max(Long.bitCount(a.getCharacterMask() & ~b.getCharacterMask()),
+								Long.bitCount(b.getCharacterMask() & ~a.getCharacterMask()));
+			case QGRAM: {
+				int q = a.getNgramSize();
+				PackedNgrams aNgrams = a.getNgrams(q);
+				PackedNgrams bNgrams = b.getNgrams(q);
+				if (q < 1 || aNgrams == null || bNgrams == null) {
+					return 0;
+				}
+				int common = aNgrams.countCommon(bNgrams);
+				int only = Math.max(aNgrams.size() - common, bNgrams.size() - common);
+				return (only + q - 1) / q;
+			}
+			default:
+				return 0;
+		}
+	}
+
+	/**
+	 * Computes an upper bound of the length of the longest common subsequence of the input words.
+	 */
+	static int computeLcsUpperBound(Stage stage, PreparedWord a, PreparedWord b) {
+
+		switch (stage) {
+			case LENGTH:
+				return Math.min(a.length(), b.length());
+			case HISTOGRAM:
+				return countCommonCharacters(a, b);
+			case BITMASK:
+				return Math.min(a.length() - Long.bitCount(a.getCharacterMask() & ~b.getCharacterMask()),
+								b.length() - Long.bitCount(b.getCharacterMask() & ~a.getCharacterMask()));
+			default:
+				// the indel distance a.length + b.length - 2 lcs is at least the edit distance
+				return (a.length() + b.length() - computeEditLowerBound(stage, a, b)) / 2;
+		}
+	}
+
+	/**
+	 * Counts the characters shared by the input words, as multisets.
+	 */
+	private static int countCommonCharacters(PreparedWord a, PreparedWord b) {
+
+		char[] aCharacters = a.getHistogramCharacters();
+		char[] bCharacters = b.getHistogramCharacters();
+		int[] aCounts = a.getHistogramCounts();
+		int[] bCounts = b.getHistogramCounts();
+
+		int common = 0;
+		int i = 0;
+		int j = 0;
+		while (i < aCharacters.length && j < bCharacters.length) {
+			if (aCharacters[i] < bCharacters[j]) {
+				i++;
+			}
+			else if (aCharacters[i] > bCharacters[j]) {
+				j++;
+			}
+			else {
+				common += Math.min(aCounts[i++], bCounts[j++]);
+			}
+		}
+
+		return common;
+	}
+}
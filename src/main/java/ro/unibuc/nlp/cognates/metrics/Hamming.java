@@ -1,6 +1,8 @@
 package ro.unibuc.nlp.cognates.metrics;
 
+import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
 
 import org.apache.log4j.Logger;
 
@@ -29,14 +31,35 @@ public class Hamming implements Metric {
 			throw new IllegalArgumentException("Input strings cannot have different sizes.");
 		}
 		
-		int diff = 0;
-		for (int i = 0; i < a.length(); i++) {
-			if (a.charAt(i) != b.charAt(i)) {
-				diff++;
-			}
+		return VectorKernels.countMismatches(a, b);
+	}
+	
+	/**
+	 * Computes the normalized Hamming distance between two words of word pools, reading them in place.
+	 * 
+	 * @param a the pool of the first word
+	 * @param i the index of the first word
+	 * @param b the pool of the second word
+	 * @param j the index of the second word
+	 * @return the normalized Hamming distance between the words
+	 * @throws IllegalArgumentException
+	 */
+	@Override
+	public double computeDistance(WordPool a, int i, WordPool b, int j) throws IllegalArgumentException {
+		
+		MetricUtils.validate(a, b);
+		
+		CharSequence aWord = a.view(i);
+		CharSequence bWord = b.view(j);
+		
+		if (aWord.length() != bWord.length()) {
+			throw new IllegalArgumentException("Input strings cannot have different sizes.");
+		}
+		if (aWord.length() == 0) {
+			return 0;
 		}
 		
-		return diff;
+		return (double) VectorKernels.countMismatches(aWord, bWord)/aWord.length();
 	}
 	
 	/**
@@ -49,7 +72,8 @@ public class Hamming implements Metric {
 	 */
 	public double computeDistance(String a, String b) throws IllegalArgumentException {
 
-		logger.info("Computing the Hamming distance between strings " + a + " " + b);
+		if (logger.isDebugEnabled())
+			logger.debug("Computing the Hamming distance between strings " + a + " " + b);
 		
 		double distance = computeHamming(a, b);
 		int maxLength = Math.max(a.length(), b.length());
@@ -71,7 +95,8 @@ public class Hamming implements Metric {
 	 */
 	public double computeSimilarity(String a, String b) throws IllegalArgumentException {
 
-		logger.info("Computing the Hamming similarity between strings " + a + " " + b);
+		if (logger.isDebugEnabled())
+			logger.debug("Computing the Hamming similarity between strings " + a + " " + b);
 		
 		double distance = computeHamming(a, b);
 		int maxLength = Math.max(a.length(), b.length());
@@ -83,10 +108,56 @@ public class Hamming implements Metric {
 		return 1 - distance/maxLength;
 	}
 
+	/**
+	 * Computes the unnormalized Hamming distance between the input sequences. The sequences are 
+	 * traversed with iterators, so linked lists are compared in linear time.
+	 * 
+	 * @param a the first sequence
+	 * @param b the second sequence
+	 * @return the unnormalized Hamming distance between the input sequences
+	 * @throws IllegalArgumentException
+	 */
+	public double computeHamming(List<String> a, List<String> b) throws IllegalArgumentException {
+		
+		MetricUtils.validate(a, b);
+		
+		if (a.size() != b.size()) {
+			throw new IllegalArgumentException("Input sequences cannot have different sizes.");
+		}
+		
+		int diff = 0;
+		Iterator<String> i = a.iterator();
+		Iterator<String> j = b.iterator();
+		while (i.hasNext()) {
+			if (!Objects.equals(i.next(), j.next())) {
+				diff++;
+			}
+		}
+		
+		return diff;
+	}
+
+	/**
+	 * Computes the normalized Hamming distance between the input sequences.
+	 * 
+	 * @param a the first sequence
+	 * @param b the second sequence
+	 * @return the normalized Hamming distance between the input sequences
+	 * @throws IllegalArgumentException
+	 */
 	@Override
-	public double computeDistance(List<String> a, List<String> b)
-			throws IllegalArgumentException {
-		// TODO Auto-generated method stub
-		return 0;
+	public double computeDistance(List<String> a, List<String> b) throws IllegalArgumentException {
+		
+		if (logger.isDebugEnabled())
+			logger.debug("Computing the Hamming distance between sequences " + a + " " + b);
+		
+		double distance = computeHamming(a, b);
+		int maxLength = Math.max(a.size(), b.size());
+		
+		if (maxLength == 0) {
+			return 0;
+		}
+		
+		return distance/maxLength;
 	}
 }
\ No newline at end of file
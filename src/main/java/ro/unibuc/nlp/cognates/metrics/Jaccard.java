@@ -25,9 +25,61 @@ public class Jaccard implements Metric {
 	 * @throws IllegalArgumentException
 	 */
 	private double computeJaccard(String a, String b, int n) throws IllegalArgumentException {
-	
+		
 		MetricUtils.validate(a, b);
 		
+		if (!PackedNgrams.supports(n)) {
+			return computeJaccardOnSets(a, b, n);
+		}
+		
+		PackedNgrams[] ngrams = PackedNgrams.scratch();
+		
+		return computeJaccard(ngrams[0].build(a, n), ngrams[1].build(b, n));
+	}
+	
+	/**
+	 * Computes the Jaccard similarity between two sets of packed n-grams of the same size.
+	 * 
+	 * @param a the n-grams of the first string
+	 * @param b the n-grams of the second string
+	 * @return the Jaccard similarity between the sets of n-grams
+	 */
+	static double computeJaccard(PackedNgrams a, PackedNgrams b) {
+		
+		return computeJaccard(a.countCommon(b), a.size(), b.size());
+	}
+	
+	/**
+	 * Computes the Jaccard similarity between two sets of n-grams, given their sizes and the 
+	 * number of n-grams they share.
+	 * 
+	 * @param common the number of common n-grams
+	 * @param size1 the number of n-grams of the first string
+	 * @param size2 the number of n-grams of the second string
+	 * @return the Jaccard similarity between the sets of n-grams
+	 */
+	static double computeJaccard(int common, int size1, int size2) {
+		
+		int union = size1 + size2 - common;
+		if (union == 0) {
+			return 1;
+		}
+		
+		return (double) common / union;
+	}
+	
+	/**
+	 * Computes the Jaccard similarity between the input strings, using n-grams of the given size.
+	 * Used for n-grams too large to be packed in a {@code long}.
+	 * 
+	 * @param a the first string
+	 * @param b the second string
+	 * @param n the n-gram size
+	 * @return the Jaccard similarity between the input strings
+	 * @throws IllegalArgumentException
+	 */
+	private double computeJaccardOnSets(String a, String b, int n) throws IllegalArgumentException {
+		
 		Set<String> aNgrams = MetricUtils.getUniqueNgrams(a, n);
 		Set<String> bNgrams = MetricUtils.getUniqueNgrams(b, n);
 		Set<String> allNgrams = new HashSet<String>();
@@ -61,14 +113,16 @@ public class Jaccard implements Metric {
 	 */
 	public double computeSimilarity(String a, String b, int n) throws IllegalArgumentException {
 
-		logger.info("Computing the Jaccard similarity between strings " + a + " " + b + " using " + n + "-grams");
+		if (logger.isDebugEnabled())
+			logger.debug("Computing the Jaccard similarity between strings " + a + " " + b + " using " + n + "-grams");
 		
 		return computeJaccard(a, b, n);
 	}
 
 	public double computeSimilarity(String a, String b) throws IllegalArgumentException {
 
-		logger.info("Computing the Jaccard similarity between strings " + a + " " + b + " using 2-grams");
+		if (logger.isDebugEnabled())
+			logger.debug("Computing the Jaccard similarity between strings " + a + " " + b + " using 2-grams");
 		
 		return computeJaccard(a, b, 2);
 	}
@@ -84,7 +138,8 @@ public class Jaccard implements Metric {
 	 */
 	public double computeDistance(String a, String b, int n) throws IllegalArgumentException {
 
-		logger.info("Computing the Jaccard distance between strings " + a + " " + b + " using " + n + "-grams");
+		if (logger.isDebugEnabled())
+			logger.debug("Computing the Jaccard distance between strings " + a + " " + b + " using " + n + "-grams");
 		
 		double similarity = computeJaccard(a, b, n);
 		return 1 - similarity;
@@ -100,16 +155,162 @@ public class Jaccard implements Metric {
 	 */
 	public double computeDistance(String a, String b) throws IllegalArgumentException {
 
-		logger.info("Computing the Jaccard distance between strings " + a + " " + b + " using 2-grams");
+		if (logger.isDebugEnabled())
+			logger.debug("Computing the Jaccard distance between strings " + a + " " + b + " using 2-grams");
 		
 		double similarity = computeJaccard(a, b, 2);
 		return 1 - similarity;
 	}
 
+	/**
+	 * Computes the Jaccard similarity between the input sequences, using n-grams of tokens of the 
+	 * given size. The tokens are interned, and the n-grams are compared as integer identifiers.
+	 * 
+	 * @param a the first sequence
+	 * @param b the second sequence
+	 * @param n the n-gram size
+	 * @return the Jaccard similarity between the input sequences
+	 * @throws IllegalArgumentException
+	 */
+	private double computeJaccard(List<String> a, List<String> b, int n) throws IllegalArgumentException {
+		
+		MetricUtils.validate(a, b);
+		
+		TokenSequences sequences = TokenSequences.intern(a, b);
+		sequences.toNgrams(n);
+		
+		PackedNgrams[] ngrams = PackedNgrams.scratch();
+		
+		return computeJaccard(ngrams[0].build(sequences.first(), sequences.length1()), 
+				   ngrams[1].build(sequences.second(), sequences.length2()));
+	}
+	
+	/**
+	 * Computes the Jaccard similarity between the input sequences, using n-grams of the given size.
+	 * 
+	 * @param a the first sequence
+	 * @param b the second sequence
+	 * @param n the n-gram size
+	 * @return the Jaccard similarity between the input sequences
+	 * @throws IllegalArgumentException
+	 */
+	public double computeSimilarity(List<String> a, List<String> b, int n) throws IllegalArgumentException {
+		
+		if (logger.isDebugEnabled())
+			logger.debug("Computing the Jaccard similarity between sequences " + a + " " + b + " using " + n + "-grams");
+		
+		return computeJaccard(a, b, n);
+	}
+	
+	/**
+	 * Computes the Jaccard distance between the input sequences, using n-grams of the given size.
+	 * 
+	 * @param a the first sequence
+	 * @param b the second sequence
+	 * @param n the n-gram size
+	 * @return the Jaccard distance between the input sequences
+	 * @throws IllegalArgumentException
+	 */
+	public double computeDistance(List<String> a, List<String> b, int n) throws IllegalArgumentException {
+		
+		if (logger.isDebugEnabled())
+			logger.debug("Computing the Jaccard distance between sequences " + a + " " + b + " using " + n + "-grams");
+		
+		return 1 - computeJaccard(a, b, n);
+	}
+	
+	/**
+	 * Computes the Jaccard similarity between the input sequences using bi-grams.
+	 * 
+	 * @param a the first sequence
+	 * @param b the second sequence
+	 * @return the Jaccard similarity between the input sequences
+	 * @throws IllegalArgumentException
+	 */
+	public double computeSimilarity(List<String> a, List<String> b) throws IllegalArgumentException {
+		
+		return computeSimilarity(a, b, 2);
+	}
+
+	/**
+	 * Computes the Jaccard distance between the input sequences using bi-grams.
+	 * 
+	 * @param a the first sequence
+	 * @param b the second sequence
+	 * @return the Jaccard distance between the input sequences
+	 * @throws IllegalArgumentException
+	 */
 	@Override
-	public double computeDistance(List<String> a, List<String> b)
-			throws IllegalArgumentException {
-		// TODO Auto-generated method stub
-		return 0;
+	public double computeDistance(List<String> a, List<String> b) throws IllegalArgumentException {
+		
+		return computeDistance(a, b, 2);
+	}
+	
+	/**
+	 * Computes the Jaccard similarity between the input words, using n-grams of the given size. 
+	 * The n-grams cached by the prepared words are reused when they have the given size.
+	 * 
+	 * @param a the first prepared word
+	 * @param b the second prepared word
+	 * @param n the n-gram size
+	 * @return the Jaccard similarity between the input words
+	 * @throws IllegalArgumentException
+	 */
+	public double computeSimilarity(PreparedWord a, PreparedWord b, int n) throws IllegalArgumentException {
+		
+		MetricUtils.validate(a, b);
+		
+		if (!PackedNgrams.supports(n)) {
+			return computeJaccardOnSets(a.getValue(), b.getValue(), n);
+		}
+		
+		PackedNgrams[] scratch = PackedNgrams.scratch();
+		PackedNgrams aNgrams = a.getNgrams(n);
+		PackedNgrams bNgrams = b.getNgrams(n);
+		
+		return computeJaccard(aNgrams != null ? aNgrams : scratch[0].build(a.getValue(), n), 
+						   bNgrams != null ? bNgrams : scratch[1].build(b.getValue(), n));
+	}
+	
+	/**
+	 * Computes the Jaccard distance between the input words, using n-grams of the given size.
+	 * 
+	 * @param a the first prepared word
+	 * @param b the second prepared word
+	 * @param n the n-gram size
+	 * @return the Jaccard distance between the input words
+	 * @throws IllegalArgumentException
+	 */
+	public double computeDistance(PreparedWord a, PreparedWord b, int n) throws IllegalArgumentException {
+		
+		return 1 - computeSimilarity(a, b, n);
+	}
+	
+	@Override
+	public double computeSimilarity(PreparedWord a, PreparedWord b) throws IllegalArgumentException {
+		
+		return computeSimilarity(a, b, 2);
+	}
+	
+	@Override
+	public double computeDistance(PreparedWord a, PreparedWord b) throws IllegalArgumentException {
+		
+		return 1 - computeSimilarity(a, b, 2);
+	}
+	
+	@Override
+	public double computeSimilarity(WordPool a, int i, WordPool b, int j) throws IllegalArgumentException {
+		
+		MetricUtils.validate(a, b);
+		
+		PackedNgrams[] ngrams = PackedNgrams.scratch();
+		
+		return computeJaccard(ngrams[0].build(a.view(i), 2), ngrams[1].build(b.view(j), 2));
+	}
+	
+	@Override
+	public double computeDistance(WordPool a, int i, WordPool b, int j) throws IllegalArgumentException {
+		
+		return 1 - computeSimilarity(a, i, b, j);
 	}
-}
\ No newline at end of file
+}
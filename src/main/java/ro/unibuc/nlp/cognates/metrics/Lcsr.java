@@ -25,28 +25,78 @@ public class Lcsr implements Metric {
 
 		MetricUtils.validate(a, b);
 		
-		int[][]lcsr = new int[a.length() + 1][b.length() + 1];
+		// the bit vectors encode the shorter string
+		if (a.length() > b.length()) {
+			return BitParallelUtils.computeLcs(b, a);
+		}
+		
+		return BitParallelUtils.computeLcs(a, b);
+	}
+	
+	/**
+	 * Computes the longest common subsequence between the input words, reusing the bit vectors 
+	 * of the shorter word.
+	 * 
+	 * @param a first prepared word
+	 * @param b second prepared word
+	 * @return the longest common subsequence between the input words
+	 * @throws IllegalArgumentException
+	 */
+	public double computeLcs(PreparedWord a, PreparedWord b) throws IllegalArgumentException {
+		
+		MetricUtils.validate(a, b);
+		
+		if (a.length() > b.length()) {
+			return BitParallelUtils.computeLcs(b.getMask(), a.getValue());
+		}
+		
+		return BitParallelUtils.computeLcs(a.getMask(), b.getValue());
+	}
+	
+	@Override
+	public double computeDistance(PreparedWord a, PreparedWord b) throws IllegalArgumentException {
+		
+		return 1 - computeSimilarity(a, b);
+	}
+	
+	@Override
+	public double computeSimilarity(PreparedWord a, PreparedWord b) throws IllegalArgumentException {
+		
+		double similarity = computeLcs(a, b);
+		int maxLength = Math.max(a.length(), b.length());
 		
-		for (int i = 0; i < a.length(); i++) {
-			lcsr[i][0] = 0;
+		if (maxLength == 0) {
+			return 1;
 		}
 		
-		for (int j = 0; j < b.length(); j++) {
-			lcsr[0][j] = 0;
+		return similarity/maxLength;
+	}
+	
+	@Override
+	public double computeDistance(WordPool a, int i, WordPool b, int j) throws IllegalArgumentException {
+		
+		return 1 - computeSimilarity(a, i, b, j);
+	}
+	
+	@Override
+	public double computeSimilarity(WordPool a, int i, WordPool b, int j) throws IllegalArgumentException {
+		
+		MetricUtils.validate(a, b);
+		
+		CharSequence aWord = a.view(i);
+		CharSequence bWord = b.view(j);
+		int maxLength = Math.max(aWord.length(), bWord.length());
+		
+		if (maxLength == 0) {
+			return 1;
 		}
 		
-		for (int i = 1; i <= a.length(); i++) {
-			for (int j = 1; j <= b.length(); j++) {
-				if (a.charAt(i-1) == b.charAt(j-1)) {
-					lcsr[i][j] = lcsr[i-1][j-1] + 1;
-				} 
-				else {
-					lcsr[i][j] = Math.max(lcsr[i][j-1], lcsr[i-1][j]);
-				}
-			}
+		// the bit vectors encode the shorter word
+		if (aWord.length() > bWord.length()) {
+			return (double) BitParallelUtils.computeLcs(bWord, aWord)/maxLength;
 		}
-				
-		return (double)lcsr[a.length()][b.length()];
+		
+		return (double) BitParallelUtils.computeLcs(aWord, bWord)/maxLength;
 	}
 	
 	/**
@@ -59,7 +109,8 @@ public class Lcsr implements Metric {
 	 */
 	public double computeDistance(String a, String b) throws IllegalArgumentException {
 
-		logger.info("Computing the LCSR distance between strings " + a + " " + b);
+		if (logger.isDebugEnabled())
+			logger.debug("Computing the LCSR distance between strings " + a + " " + b);
 		
 		double similarity = computeLcs(a, b);
 		int maxLength = Math.max(a.length(), b.length());
@@ -82,7 +133,8 @@ public class Lcsr implements Metric {
 	 */
 	public double computeSimilarity(String a, String b) throws IllegalArgumentException {
 
-		logger.info("Computing the LCSR similarity between strings " + a + " " + b);
+		if (logger.isDebugEnabled())
+			logger.debug("Computing the LCSR similarity between strings " + a + " " + b);
 		
 		double similarity = computeLcs(a, b);
 		int maxLength = Math.max(a.length(), b.length());
@@ -95,7 +147,8 @@ public class Lcsr implements Metric {
 	}
 	
 	/**
-	 * Computes the longest common subsequence between the input sequences.
+	 * Computes the longest common subsequence between the input sequences. The tokens are interned 
+	 * and compared as integers, with the bit-parallel kernels (one bit vector per block of 64 tokens).
 	 * 
 	 * @param a first input sequence
 	 * @param b second input sequence
@@ -106,28 +159,7 @@ public class Lcsr implements Metric {
 
 		MetricUtils.validate(a, b);
 		
-		int[][]lcsr = new int[a.size() + 1][b.size() + 1];
-		
-		for (int i = 0; i < a.size(); i++) {
-			lcsr[i][0] = 0;
-		}
-		
-		for (int j = 0; j < b.size(); j++) {
-			lcsr[0][j] = 0;
-		}
-		
-		for (int i = 1; i <= a.size(); i++) {
-			for (int j = 1; j <= b.size(); j++) {
-				if (a.get(i-1).equals(b.get(j-1))) {
-					lcsr[i][j] = lcsr[i-1][j-1] + 1;
-				} 
-				else {
-					lcsr[i][j] = Math.max(lcsr[i][j-1], lcsr[i-1][j]);
-				}
-			}
-		}
-				
-		return (double)lcsr[a.size()][b.size()];
+		return TokenSequences.intern(a, b).computeLcs();
 	}
 	
 	/**
@@ -140,7 +172,8 @@ public class Lcsr implements Metric {
 	 */
 	public double computeDistance(List<String> a, List<String> b) throws IllegalArgumentException {
 
-		logger.info("Computing the LCSR distance between strings " + a + " " + b);
+		if (logger.isDebugEnabled())
+			logger.debug("Computing the LCSR distance between strings " + a + " " + b);
 		
 		double similarity = computeLcs(a, b);
 		int maxLength = Math.max(a.size(), b.size());
@@ -163,7 +196,8 @@ public class Lcsr implements Metric {
 	 */
 	public double computeSimilarity(List<String> a, List<String> b) throws IllegalArgumentException {
 
-		logger.info("Computing the LCSR similarity between sequences " + a + " " + b);
+		if (logger.isDebugEnabled())
+			logger.debug("Computing the LCSR similarity between sequences " + a + " " + b);
 		
 		double similarity = computeLcs(a, b);
 		int maxLength = Math.max(a.size(), b.size());
@@ -5,6 +5,9 @@ import java.util.List;
 /**
  * Computes the distance or similarity between two input strings.
  * 
+ * The implementations keep no mutable state: their scratch buffers are confined to the calling
+ * thread, so a single instance can be shared by all the threads of a pool.
+ * 
  * @author alina
  */
 public interface Metric {
@@ -52,4 +55,99 @@ public interface Metric {
      * @throws IllegalArgumentException
      */
     public abstract double computeSimilarity(String a, String b) throws IllegalArgumentException;
-}
\ No newline at end of file
+    
+    /**
+     * Computes the normalized distance between the input words, reusing their precomputed 
+     * representations.
+     * 
+     * @param a first prepared word
+     * @param b second prepared word
+     * @return the normalized distance between the input words
+     * @throws IllegalArgumentException
+     */
+    public default double computeDistance(PreparedWord a, PreparedWord b) throws IllegalArgumentException {
+    	
+    	MetricUtils.validate(a, b);
+    	
+    	return computeDistance(a.getValue(), b.getValue());
+    }
+    
+    /**
+     * Computes the normalized similarity between the input words, reusing their precomputed 
+     * representations.
+     * 
+     * @param a first prepared word
+     * @param b second prepared word
+     * @return the similarity between the input words (1 - normalized_distance)
+     * @throws IllegalArgumentException
+     */
+    public default double computeSimilarity(PreparedWord a, PreparedWord b) throws IllegalArgumentException {
+    	
+    	MetricUtils.validate(a, b);
+    	
+    	return computeSimilarity(a.getValue(), b.getValue());
+    }
+    
+    /**
+     * Computes the normalized distance between two words of word pools. The default implementation
+     * copies the words to strings; the metrics of this package read them in place.
+     * 
+     * @param a the pool of the first word
+     * @param i the index of the first word
+     * @param b the pool of the second word
+     * @param j the index of the second word
+     * @return the normalized distance between the words
+     * @throws IllegalArgumentException
+     */
+    public default double computeDistance(WordPool a, int i, WordPool b, int j) throws IllegalArgumentException {
+    	
+    	MetricUtils.validate(a, b);
+    	
+    	return computeDistance(a.get(i), b.get(j));
+    }
+    
+    /**
+     * Computes the normalized similarity between two words of word pools. The default implementation
+     * copies the words to strings; the metrics of this package read them in place.
+     * 
+     * @param a the pool of the first word
+     * @param i the index of the first word
+     * @param b the pool of the second word
+     * @param j the index of the second word
+     * @return the similarity between the words (1 - normalized_distance)
+     * @throws IllegalArgumentException
+     */
+    public default double computeSimilarity(WordPool a, int i, WordPool b, int j) throws IllegalArgumentException {
+    	
+    	MetricUtils.validate(a, b);
+    	
+    	return computeSimilarity(a.get(i), b.get(j));
+    }
+    
+    /**
+     * Computes the normalized distances between the strings of each pair, in parallel on the 
+     * common fork-join pool. Use {@link MetricBatch} to run on a different pool.
+     * 
+     * @param pairs the pairs of strings; each pair is an array whose first two elements are compared
+     * @return the distances, in the order of the pairs
+     * @throws IllegalArgumentException
+     */
+    public default double[] computeDistances(List<String[]> pairs) throws IllegalArgumentException {
+    	
+    	return new MetricBatch(this).computeDistances(pairs);
+    }
+    
+    /**
+     * Computes the normalized distances between a[i] and b[i], storing them in out[i], in parallel 
+     * on the common fork-join pool. Use {@link MetricBatch} to run on a different pool.
+     * 
+     * @param a the first strings
+     * @param b the second strings
+     * @param out the array where the distances are stored
+     * @throws IllegalArgumentException
+     */
+    public default void computeDistances(CharSequence[] a, CharSequence[] b, double[] out) throws IllegalArgumentException {
+    	
+    	new MetricBatch(this).computeDistances(a, b, out);
+    }
+}
@@ -0,0 +1,212 @@
+package ro.unibuc.nlp.cognates.metrics;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Computes a metric for many pairs of input strings in parallel, on a fork-join pool.
+ *
+ * The pairs are split recursively into chunks of at most <code>granularity</code> pairs, and
+ * each chunk is computed sequentially by a worker thread. The metrics keep their scratch
+ * buffers in thread-local storage, so the workers do not share any mutable state.
+ */
+public final class MetricBatch {
+
+	private static final Logger logger = Logger.getLogger(MetricBatch.class);
+
+	/**
+	 * The default number of pairs computed sequentially by a task.
+	 */
+	public static final int DEFAULT_GRANULARITY = 256;
+
+	private final Metric metric;
+	private final ForkJoinPool pool;
+	private final int granularity;
+
+	/**
+	 * Creates a batch computation running on the common fork-join pool.
+	 *
+	 * @param metric the metric
+	 * @throws IllegalArgumentException
+	 */
+	public MetricBatch(Metric metric) throws IllegalArgumentException {
+
+		this(metric, ForkJoinPool.commonPool(), DEFAULT_GRANULARITY);
+	}
+
+	/**
+	 * Creates a batch computation running on the given fork-join pool.
+	 *
+	 * @param metric the metric
+	 * @param pool the fork-join pool
+	 * @throws IllegalArgumentException
+	 */
+	public MetricBatch(Metric metric, ForkJoinPool pool) throws IllegalArgumentException {
+
+		this(metric, pool, DEFAULT_GRANULARITY);
+	}
+
+	/**
+	 * Creates a batch computation running on the given fork-join pool.
+	 *
+	 * @param metric the metric
+	 * @param pool the fork-join pool
+	 * @param granularity the maximum number of pairs computed sequentially by a task
+	 * @throws IllegalArgumentException
+	 */
+	public MetricBatch(Metric metric, ForkJoinPool pool, int granularity) throws IllegalArgumentException {
+
+		MetricUtils.validate(metric, pool);
+
+		if (granularity < 1) {
+			throw new IllegalArgumentException("The granularity must be positive.");
+		}
+
+		this.metric = metric;
+		this.pool = pool;
+		this.granularity = granularity;
+	}
+
+	/**
+	 * Computes the normalized distances between the strings of each pair.
+	 *
+	 * @param pairs the pairs of strings; each pair is an array whose first two elements are compared
+	 * @return the distances, in the order of the pairs
+	 * @throws IllegalArgumentException
+	 */
+	public double[] computeDistances(List<String[]> pairs) throws IllegalArgumentException {
+
+		return compute(pairs, false);
+	}
+
+	/**
+	 * Computes the normalized similarities between the strings of each pair.
+	 *
+	 * @param pairs the pairs of strings; each pair is an array whose first two elements are compared
+	 * @return the similarities, in the order of the pairs
+	 * @throws IllegalArgumentException
+	 */
+	public double[] computeSimilarities(List<String[]> pairs) throws IllegalArgumentException {
+
+		return compute(pairs, true);
+	}
+
+	/**
+	 * Computes the normalized distances between a[i] and b[i], storing them in out[i].
+	 *
+	 * @param a the first strings
+	 * @param b the second strings
+	 * @param out the array where the distances are stored
+	 * @throws IllegalArgumentException
+	 */
+	public void computeDistances(CharSequence[] a, CharSequence[] b, double[] out) throws IllegalArgumentException {
+
+		compute(a, b, out, false);
+	}
+
+	/**
+	 * Computes the normalized similarities between a[i] and b[i], storing them in out[i].
+	 *
+	 * @param a the first strings
+	 * @param b the second strings
+	 * @param out the array where the similarities are stored
+	 * @throws IllegalArgumentException
+	 */
+	public void computeSimilarities(CharSequence[] a, CharSequence[] b, double[] out) throws IllegalArgumentException {
+
+		compute(a, b, out, true);
+	}
+
+	private double[] compute(List<String[]> pairs, boolean similarity) throws IllegalArgumentException {
+
+		if (pairs == null) {
+			throw new IllegalArgumentException("The pairs cannot be null.");
+		}
+
+		int size = pairs.size();
+		CharSequence[] a = new CharSequence[size];
+		CharSequence[] b = new CharSequence[size];
+		int i = 0;
+		for (String[] pair : pairs) {
+			if (pair == null || pair.length < 2) {
+				throw new IllegalArgumentException("Invalid pair at position " + i + ".");
+			}
+			a[i] = pair[0];
+			b[i] = pair[1];
+			i++;
+		}
+
+		double[] out = new double[size];
+		compute(a, b, out, similarity);
+
+		return out;
+	}
+
+	private void compute(CharSequence[] a, CharSequence[] b, double[] out, boolean similarity)
+			throws IllegalArgumentException {
+
+		MetricUtils.validate(a, b);
+		MetricUtils.validate(out);
+
+		if (a.length != b.length || out.length < a.length) {
+			throw new IllegalArgumentException("The input and output arrays must have the same length.");
+		}
+
+		if (logger.isDebugEnabled())
+			logger.debug("Computing the " + metric + " " + (similarity ? "similarity" : "distance")
+					+ " for " + a.length + " pairs");
+
+		if (a.length <= granularity) {
+			new Task(a, b, out, similarity, 0, a.length).compute();
+		}
+		else {
+			pool.invoke(new Task(a, b, out, similarity, 0, a.length));
+		}
+	}
+
+	/**
+	 * Computes the pairs in [from, to), splitting the range in halves while it is too large.
+	 */
+	private final class Task extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final CharSequence[] a;
+		private final CharSequence[] b;
+		private final double[] out;
+		private final boolean similarity;
+		private final int from;
+		private final int to;
+
+		private Task(CharSequence[] a, CharSequence[] b, double[] out, boolean similarity, int from, int to) {
+
+			this.a = a;
+			this.b = b;
+			this.out = out;
+			this.similarity = similarity;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+
+			if (to - from > granularity) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new Task(a, b, out, similarity, from, middle),
+						  new Task(a, b, out, similarity, middle, to));
+				return;
+			}
+
+			for (int i = from; i < to; i++) {
+				MetricUtils.validate(a[i], b[i]);
+				String first = a[i].toString();
+				String second = b[i].toString();
+				out[i] = similarity ? metric.computeSimilarity(first, second) : metric.computeDistance(first, second);
+			}
+		}
+	}
+}
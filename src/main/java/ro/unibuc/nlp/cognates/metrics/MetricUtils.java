@@ -17,6 +17,22 @@ public class MetricUtils {
 
 	private static final Logger logger = Logger.getLogger(MetricUtils.class);
 	
+    /**
+     * Validates that the input object is not null.
+     * 
+     * @param a the input object
+     * @throws IllegalArgumentException
+     */
+    public static void validate(Object a)  throws IllegalArgumentException {    	
+
+    	if (logger.isDebugEnabled())
+    		logger.debug("Validating input object: " + a);
+    	
+    	if (a == null) {
+    		throw new IllegalArgumentException("Input objects cannot be null.");
+    	}
+    }
+    
     /**
      * Validates that the input objects are not null.
      * 
@@ -26,7 +42,8 @@ public class MetricUtils {
      */
     public static void validate(Object a, Object b)  throws IllegalArgumentException {    	
 
-    	logger.info("Validating input objects: [" + a + ", " + b + "]");
+    	if (logger.isDebugEnabled())
+    		logger.debug("Validating input objects: [" + a + ", " + b + "]");
     	
     	if (a == null || b == null) {
     		throw new IllegalArgumentException("Input objects cannot be null.");
@@ -42,7 +59,10 @@ public class MetricUtils {
      */
     public static Set<String> getUniqueNgrams(String string, int size) {
     	
-    	return new HashSet<String>(getNgrams(string, size));
+    	Set<String> ngrams = new HashSet<String>();
+    	forEachNgram(string, size, false, (ngram, start) -> ngrams.add(ngram.toString()));
+    	
+    	return ngrams;
     }
     
 	/**
@@ -69,21 +89,7 @@ public class MetricUtils {
 	public static List<String> getSentenceNgrams(String string, int size, boolean range) {
     	
 		List<String> ngrams = new LinkedList<String>();
-		
-		string = string.replaceAll("\\s+", "_");
-		
-		int start = size;
-		if (range)
-			start = 1;
-		
-		for (int j = start; j <= size; j++) {
-			logger.info("Extracting " + j + "-grams from string" + string);
-			for (int i = 0; i <= string.length() - j; i++) {
-				String ngram = getNgram(string, i, j); 
-				if (!"".equals(ngram))
-					ngrams.add(ngram);
-			}
-		}
+		forEachSentenceNgram(string, size, range, (ngram, start) -> ngrams.add(ngram.toString()));
 		
 		return ngrams;
 	}
@@ -91,41 +97,18 @@ public class MetricUtils {
 	public static List<String> getNgrams(String string, int size, boolean range) {
     	
 		List<String> ngrams = new LinkedList<String>();
-		
-		int start = size;
-		if (range)
-			start = 1;
-		
-		for (int j = start; j <= size; j++) {
-			logger.info("Extracting " + j + "-grams from string" + string);
-			for (int i = 0; i <= string.length() - j; i++) {
-				String ngram = getNgram(string, i, j); 
-				if (!"".equals(ngram))
-					ngrams.add(ngram);
-			}
-		}
+		forEachNgram(string, size, range, (ngram, start) -> ngrams.add(ngram.toString()));
 		
 		return ngrams;
 	}
 	
 	public static List<String> getNgrams(List<String> list, int size, boolean range) {
     	
-		List<String> ngrams = new LinkedList<String>();
-		
 		int start = size;
 		if (range)
 			start = 1;
 		
-		for (int j = start; j <= size; j++) {
-			logger.info("Extracting " + j + "-grams from string" + list);
-			for (int i = 0; i <= list.size() - j; i++) {
-				String ngram = getNgram(list, i, j); 
-				if (!"".equals(ngram))
-					ngrams.add(ngram);
-			}
-		}
-		
-		return ngrams;
+		return getNgrams(list, start, size, range);
 	}
 	
 	public static List<String> getNgrams(List<String> list, int minSize, int maxSize, boolean range) {
@@ -133,7 +116,8 @@ public class MetricUtils {
 		List<String> ngrams = new LinkedList<String>();
 		
 		for (int j = minSize; j <= maxSize; j++) {
-			logger.info("Extracting " + j + "-grams from string" + list);
+			if (logger.isDebugEnabled())
+				logger.debug("Extracting " + j + "-grams from string" + list);
 			for (int i = 0; i <= list.size() - j; i++) {
 				String ngram = getNgram(list, i, j); 
 				if (!"".equals(ngram))
@@ -144,6 +128,108 @@ public class MetricUtils {
 		return ngrams;
 	}
 	
+	/**
+	 * Visits the n-grams of the input string, without copying them: the visitor receives views
+	 * over the characters of the string, in the order of {@link #getNgrams(String, int, boolean)}.
+	 * 
+	 * @param string the input string
+	 * @param size the maximum size of the n-grams
+	 * @param range <code>true</code> if all n-gram length up to 'size' ar used,
+	 * <code>false</code> otherwise
+	 * @param visitor the visitor of the n-grams
+	 * @throws IllegalArgumentException
+	 */
+	public static void forEachNgram(CharSequence string, int size, boolean range, NgramVisitor visitor)
+			throws IllegalArgumentException {
+		
+		validate(string, visitor);
+		
+		forEachNgram(string, range ? 1 : size, size, 1, visitor);
+	}
+	
+	/**
+	 * Visits the n-grams of the input sentence, its runs of whitespace being replaced by '_'.
+	 * The sentence is copied once; its n-grams are not copied.
+	 * 
+	 * @param string the input sentence
+	 * @param size the maximum size of the n-grams
+	 * @param range <code>true</code> if all n-gram length up to 'size' ar used,
+	 * <code>false</code> otherwise
+	 * @param visitor the visitor of the n-grams
+	 * @throws IllegalArgumentException
+	 */
+	public static void forEachSentenceNgram(String string, int size, boolean range, NgramVisitor visitor)
+			throws IllegalArgumentException {
+		
+		validate(string, visitor);
+		
+		forEachNgram(string.replaceAll("\\s+", "_"), range ? 1 : size, size, 1, visitor);
+	}
+	
+	/**
+	 * Visits the adjacent (non-overlapping) n-grams of the input string, in the order of
+	 * {@link #getAdjacentNgrams(String, int, boolean)}: the n-grams of every length start at
+	 * the multiples of 'size'.
+	 * 
+	 * @param string the input string
+	 * @param size the maximum size of the n-grams
+	 * @param range <code>true</code> if all n-gram length up to 'size' ar used,
+	 * <code>false</code> otherwise
+	 * @param visitor the visitor of the n-grams
+	 * @throws IllegalArgumentException
+	 */
+	public static void forEachAdjacentNgram(CharSequence string, int size, boolean range, NgramVisitor visitor)
+			throws IllegalArgumentException {
+		
+		validate(string, visitor);
+		
+		forEachNgram(string, range ? 1 : size, size, size, visitor);
+	}
+	
+	/**
+	 * Visits the n-grams of the input string packed in a {@code long}, 16 bits per character,
+	 * in the order of {@link #getNgrams(String, int)}. Equal n-grams have equal codes.
+	 * 
+	 * @param string the input string
+	 * @param size the size of the n-grams, between 1 and 4
+	 * @param visitor the visitor of the packed n-grams
+	 * @throws IllegalArgumentException
+	 */
+	public static void forEachPackedNgram(CharSequence string, int size, NgramVisitor.Packed visitor)
+			throws IllegalArgumentException {
+		
+		validate(string, visitor);
+		
+		if (size < 1 || !PackedNgrams.supports(size)) {
+			throw new IllegalArgumentException("Only the n-grams of 1 to " + PackedNgrams.MAX_SIZE + " characters can be packed.");
+		}
+		
+		long mask = size == PackedNgrams.MAX_SIZE ? -1L : (1L << (16 * size)) - 1;
+		long code = 0L;
+		for (int i = 0; i < string.length(); i++) {
+			code = (code << 16) | string.charAt(i);
+			if (i >= size - 1) {
+				visitor.visit(code & mask, i - size + 1);
+			}
+		}
+	}
+	
+	private static void forEachNgram(CharSequence string, int minSize, int maxSize, int step, NgramVisitor visitor) {
+		
+		NgramView view = new NgramView(string);
+		
+		// empty n-grams are skipped, as by the list methods
+		for (int j = Math.max(minSize, 1); j <= maxSize; j++) {
+			if (logger.isDebugEnabled())
+				logger.debug("Extracting " + j + "-grams from string " + string);
+			for (int i = 0; i <= string.length() - j; i += step) {
+				view.start = i;
+				view.end = i + j;
+				visitor.visit(view, i);
+			}
+		}
+	}
+	
 	/**
 	 * Extracts an n-gram from the input string.
 	 * 
@@ -154,32 +240,74 @@ public class MetricUtils {
 	 */
     public static String getNgram(String string, int start, int size) {
 		
-		String ngram = "";
+		if (string == null || size <= 0 || start + size > string.length())
+			return "";
 		
-		if (string == null || start + size > string.length())
-			return ngram;
-			
-		for (int i = 0; i < size; i++) {
-			ngram += string.charAt(start + i);
-		}
-		
-		return ngram;
+		return string.substring(start, start + size);
 	}
     
     public static String getNgram(List<String> list, int start, int size) {
 		
-		String ngram = "";
-		
 		if (list == null || start + size > list.size())
-			return ngram;
-			
+			return "";
+		
+		StringBuilder ngram = new StringBuilder();
 		for (int i = 0; i < size; i++) {
-			ngram += ("".equals(ngram) ? "" : "_") + list.get(start + i);
+			if (ngram.length() > 0)
+				ngram.append('_');
+			ngram.append(list.get(start + i));
 		}
 		
-		return ngram;
+		return ngram.toString();
 	}
     
+    /**
+     * A window over the characters of a string, moved from one n-gram to the next.
+     */
+    private static final class NgramView implements CharSequence {
+    	
+    	private final CharSequence string;
+    	private int start;
+    	private int end;
+    	
+    	private NgramView(CharSequence string) {
+    		
+    		this.string = string;
+    	}
+    	
+    	@Override
+    	public int length() {
+    		
+    		return end - start;
+    	}
+    	
+    	@Override
+    	public char charAt(int index) {
+    		
+    		if (index < 0 || index >= end - start) {
+    			throw new IndexOutOfBoundsException("index: " + index + ", length: " + (end - start));
+    		}
+    		
+    		return string.charAt(start + index);
+    	}
+    	
+    	@Override
+    	public CharSequence subSequence(int from, int to) {
+    		
+    		if (from < 0 || to > end - start || from > to) {
+    			throw new IndexOutOfBoundsException("from: " + from + ", to: " + to + ", length: " + (end - start));
+    		}
+    		
+    		return string.subSequence(start + from, start + to);
+    	}
+    	
+    	@Override
+    	public String toString() {
+    		
+    		return string.subSequence(start, end).toString();
+    	}
+    }
+    
     /**
      * Formats the input value with the provided format.
      * 
@@ -222,19 +350,7 @@ public class MetricUtils {
 	public static List<String> getAdjacentNgrams(String string, int size, boolean range) {
     	
 		List<String> ngrams = new LinkedList<String>();
-		
-		int start = size;
-		if (range)
-			start = 1;
-		
-		for (int j = start; j <= size; j++) {
-			logger.info("Extracting adjacent " + j + "-grams from string" + string);
-			for (int i = 0; i <= string.length() - j; i += size) {
-				String ngram = getNgram(string, i, j); 
-				if (!"".equals(ngram))
-					ngrams.add(ngram);
-			}
-		}
+		forEachAdjacentNgram(string, size, range, (ngram, start) -> ngrams.add(ngram.toString()));
 		
 		return ngrams;
 	}
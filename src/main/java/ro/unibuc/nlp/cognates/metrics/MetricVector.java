@@ -0,0 +1,316 @@
+package ro.unibuc.nlp.cognates.metrics;
+
+import java.util.List;
+
+import org.apache.log4j.Logger;
+
+import ro.unibuc.nlp.cognates.utils.DiacriticUtils;
+
+/**
+ * Computes several metrics of a pair of strings together, sharing the work they have in common,
+ * instead of calling each metric on the same pair.
+ *
+ * The edit distance, the longest common subsequence and the alignment score are computed in a
+ * single bit-parallel pass over the pair; the Dice and Jaccard similarities share the same sets
+ * of bigrams. The values of the requested features are returned in the order of the features,
+ * and are equal to those of the individual metrics.
+ */
+public final class MetricVector {
+
+	private static final Logger logger = Logger.getLogger(MetricVector.class);
+
+	/**
+	 * The n-gram size of the Dice and Jaccard features, the default size of the metrics.
+	 */
+	private static final int NGRAM_SIZE = 2;
+
+	/**
+	 * The features of the vector.
+	 */
+	public enum Feature {
+
+		/**
+		 * The normalized {@link Edit} distance.
+		 */
+		EDIT,
+
+		/**
+		 * The {@link Lcsr} distance.
+		 */
+		LCSR,
+
+		/**
+		 * The normalized {@link Hamming} distance, or {@link Double#NaN} (a missing value) for
+		 * strings of different lengths.
+		 */
+		HAMMING,
+
+		/**
+		 * The {@link Dice} distance, using bigrams.
+		 */
+		DICE,
+
+		/**
+		 * The {@link Jaccard} distance, using bigrams.
+		 */
+		JACCARD,
+
+		/**
+		 * The Needleman-Wunsch alignment score, as computed by
+		 * {@link ro.unibuc.nlp.cognates.detection.aligners.NeedlemanWunsch#getScore(String, String)}:
+		 * the edit distance, the characters that differ only by their diacritics being equal.
+		 */
+		ALIGNMENT
+	}
+
+	private static final ThreadLocal<int[]> results = ThreadLocal.withInitial(() -> new int[2]);
+
+	private final Feature[] features;
+	private final boolean sequence;
+	private final boolean ngrams;
+
+	/**
+	 * Creates a vector of the given features.
+	 *
+	 * @param features the features, in the order of the computed values
+	 * @throws IllegalArgumentException
+	 */
+	public MetricVector(Feature... features) throws IllegalArgumentException {
+
+		MetricUtils.validate(features);
+
+		if (features.length == 0) {
+			throw new IllegalArgumentException("The vector must have at least one feature.");
+		}
+
+		boolean sequence = false;
+		boolean ngrams = false;
+		for (Feature feature : features) {
+			MetricUtils.validate(feature);
+			sequence |= feature == Feature.EDIT || feature == Feature.LCSR || feature == Feature.ALIGNMENT;
+			ngrams |= feature == Feature.DICE || feature == Feature.JACCARD;
+		}
+
+		this.features = features.clone();
+		this.sequence = sequence;
+		this.ngrams = ngrams;
+	}
+
+	/**
+	 * Returns the features of the vector.
+	 *
+	 * @return the features, in the order of the computed values
+	 */
+	public Feature[] getFeatures() {
+
+		return features.clone();
+	}
+
+	/**
+	 * Computes the features of the input strings.
+	 *
+	 * @param a the first string
+	 * @param b the second string
+	 * @return the values of the features
+	 * @throws IllegalArgumentException
+	 */
+	public double[] computeDistances(String a, String b) throws IllegalArgumentException {
+
+		double[] values = new double[features.length];
+		computeDistances(a, b, values);
+
+		return values;
+	}
+
+	/**
+	 * Computes the features of the input strings into the given array, so that the caller can
+	 * reuse it from one pair to the next.
+	 *
+	 * @param a the first string
+	 * @param b the second string
+	 * @param values receives the values of the features; it must hold at least one value per feature
+	 * @throws IllegalArgumentException
+	 */
+	public void computeDistances(String a, String b, double[] values) throws IllegalArgumentException {
+
+		computeDistances(a, b, values, 0);
+	}
+
+	/**
+	 * Computes the features of the input strings into the given array, starting at the given
+	 * position, so that the values can be written directly into a larger row.
+	 *
+	 * @param a the first string
+	 * @param b the second string
+	 * @param values receives the values of the features
+	 * @param offset the position of the first feature in the array
+	 * @throws IllegalArgumentException
+	 */
+	public void computeDistances(String a, String b, double[] values, int offset) throws IllegalArgumentException {
+
+		MetricUtils.validate(a, b);
+		MetricUtils.validate(values);
+
+		if (offset < 0 || values.length - offset < features.length) {
+			throw new IllegalArgumentException("The output array must hold a value for each feature after the offset.");
+		}
+
+		if (logger.isDebugEnabled())
+			logger.debug("Computing " + this + " between strings " + a + " " + b);
+
+		int maxLength = Math.max(a.length(), b.length());
+
+		int edit = 0;
+		int lcs = 0;
+		if (sequence) {
+			int[] results = MetricVector.results.get();
+			if (a.length() <= b.length()) {
+				BitParallelUtils.computeEditAndLcs(a, b, results);
+			}
+			else {
+				BitParallelUtils.computeEditAndLcs(b, a, results);
+			}
+			edit = results[0];
+			lcs = results[1];
+		}
+
+		int common = 0;
+		int size1 = 0;
+		int size2 = 0;
+		if (ngrams) {
+			PackedNgrams[] scratch = PackedNgrams.scratch();
+			PackedNgrams aNgrams = scratch[0].build(a, NGRAM_SIZE);
+			PackedNgrams bNgrams = scratch[1].build(b, NGRAM_SIZE);
+			common = aNgrams.countCommon(bNgrams);
+			size1 = aNgrams.size();
+			size2 = bNgrams.size();
+		}
+
+		for (int i = 0; i < features.length; i++) {
+			switch (features[i]) {
+				case EDIT:
+					values[offset + i] = maxLength == 0 ? 0 : (double) edit / maxLength;
+					break;
+				case LCSR:
+					values[offset + i] = maxLength == 0 ? 0 : 1 - (double) lcs / maxLength;
+					break;
+				case HAMMING:
+					values[offset + i] = computeHamming(a, b);
+					break;
+				case DICE:
+					values[offset + i] = 1 - Dice.computeDice(common, size1, size2);
+					break;
+				case JACCARD:
+					values[offset + i] = 1 - Jaccard.computeJaccard(common, size1, size2);
+					break;
+				case ALIGNMENT:
+					values[offset + i] = computeAlignmentScore(a, b, edit);
+					break;
+				default:
+					throw new IllegalStateException("Unknown feature " + features[i]);
+			}
+		}
+	}
+
+	/**
+	 * Computes the features of all the input pairs.
+	 *
+	 * @param pairs the pairs of strings; only the first two elements of each array are used
+	 * @return the values of the features of each pair, in the order of the pairs
+	 * @throws IllegalArgumentException
+	 */
+	public double[][] computeDistances(List<String[]> pairs) throws IllegalArgumentException {
+
+		MetricUtils.validate(pairs);
+
+		double[][] values = new double[pairs.size()][];
+		int i = 0;
+		for (String[] pair : pairs) {
+			MetricUtils.validate(pair);
+			if (pair.length < 2) {
+				throw new IllegalArgumentException("Each pair must contain two strings.");
+			}
+			values[i++] = computeDistances(pair[0], pair[1]);
+		}
+
+		return values;
+	}
+
+	@Override
+	public String toString() {
+
+		StringBuilder builder = new StringBuilder();
+		for (Feature feature : features) {
+			if (builder.length() > 0)
+				builder.append('+');
+			builder.append(feature);
+		}
+
+		return builder.toString();
+	}
+
+	/**
+	 * Computes the normalized Hamming distance, or NaN for strings of different lengths.
+	 */
+	private static double computeHamming(String a, String b) {
+
+		if (a.length() != b.length()) {
+			return Double.NaN;
+		}
+		if (a.length() == 0) {
+			return 0;
+		}
+
+		return (double) VectorKernels.countMismatches(a, b) / a.length();
+	}
+
+	/**
+	 * Computes the Needleman-Wunsch alignment score. Its weights are those of the edit distance,
+	 * except that the characters equal once their diacritics are removed cost nothing, and
+	 * the null character (the gap of the aligner) is inserted or deleted for free. The score
+	 * is therefore the edit distance of the strings folded to characters without diacritics
+	 * and without null characters, which is the plain edit distance for most words.
+	 */
+	private static int computeAlignmentScore(String a, String b, int edit) {
+
+		String foldedA = fold(a);
+		String foldedB = fold(b);
+		if (foldedA == a && foldedB == b) {
+			return edit;
+		}
+
+		int[] results = MetricVector.results.get();
+		if (foldedA.length() <= foldedB.length()) {
+			BitParallelUtils.computeEditAndLcs(foldedA, foldedB, results);
+		}
+		else {
+			BitParallelUtils.computeEditAndLcs(foldedB, foldedA, results);
+		}
+
+		return results[0];
+	}
+
+	/**
+	 * Removes the diacritics and the null characters of the input string.
+	 *
+	 * @return the folded string, or the input string itself if no character was changed
+	 */
+	private static String fold(String string) {
+
+		char[] folded = null;
+		int length = 0;
+		for (int i = 0; i < string.length(); i++) {
+			char c = string.charAt(i);
+			char f = DiacriticUtils.removeDiacritics(c);
+			if (folded == null && (f != c || c == '\0')) {
+				folded = string.toCharArray();
+				length = i;
+			}
+			if (folded != null && c != '\0') {
+				folded[length++] = f;
+			}
+		}
+
+		return folded == null ? string : new String(folded, 0, length);
+	}
+}
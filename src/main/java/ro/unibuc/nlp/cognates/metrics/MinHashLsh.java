@@ -0,0 +1,345 @@
+package ro.unibuc.nlp.cognates.metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Generates the candidate pairs of an approximate Jaccard similarity join with MinHash signatures
+ * and locality-sensitive hashing.
+ *
+ * The signature of a word holds, for each hash function, the minimum hash value of its unique
+ * n-grams; two signatures agree on a position with a probability equal to the Jaccard similarity
+ * of the words. The signatures are cut into bands of rows, and the words whose signatures agree
+ * on a whole band fall in the same bucket and become candidates. More bands (of fewer rows)
+ * increase the recall, at the cost of more candidates. The words without n-grams have identical
+ * signatures, so they are kept out of the bands and all paired with each other, with a similarity
+ * of 1, as in the exact join of {@link SimilarityJoin}.
+ */
+public final class MinHashLsh {
+
+	private static final Logger logger = Logger.getLogger(MinHashLsh.class);
+
+	/**
+	 * The default seed of the hash functions.
+	 */
+	public static final long DEFAULT_SEED = 42;
+
+	private final int n;
+	private final int bands;
+	private final int rows;
+	private final long[] seeds;
+
+	/**
+	 * Creates a MinHash / LSH candidate generator.
+	 *
+	 * @param n the n-gram size
+	 * @param hashes the number of hash functions (the size of the signatures)
+	 * @param bands the number of bands; it must divide the number of hash functions
+	 * @throws IllegalArgumentException
+	 */
+	public MinHashLsh(int n, int hashes, int bands) throws IllegalArgumentException {
+
+		this(n, hashes, bands, DEFAULT_SEED);
+	}
+
+	/**
+	 * Creates a MinHash / LSH candidate generator.
+	 *
+	 * @param n the n-gram size
+	 * @param hashes the number of hash functions (the size of the signatures)
+	 * @param bands the number of bands; it must divide the number of hash functions
+	 * @param seed the seed of the hash functions
+	 * @throws IllegalArgumentException
+	 */
+	public MinHashLsh(int n, int hashes, int bands, long seed) throws IllegalArgumentException {
+
+		if (n < 1) {
+			throw new IllegalArgumentException("The n-gram size must be positive.");
+		}
+		if (hashes < 1 || bands < 1 || hashes % bands != 0) {
+			throw new IllegalArgumentException("The number of bands must divide the number of hash functions.");
+		}
+
+		this.n = n;
+		this.bands = bands;
+		this.rows = hashes / bands;
+
+		Random random = new Random(seed);
+		seeds = new long[hashes];
+		for (int i = 0; i < hashes; i++) {
+			seeds[i] = random.nextLong();
+		}
+	}
+
+	/**
+	 * Computes the MinHash signature of a word. A word without n-grams has all the positions
+	 * of its signature set to {@link Integer#MAX_VALUE}.
+	 *
+	 * @param word the word
+	 * @return the signature
+	 * @throws IllegalArgumentException
+	 */
+	public int[] computeSignature(String word) throws IllegalArgumentException {
+
+		MetricUtils.validate(word);
+
+		int[] signature = new int[seeds.length];
+		Arrays.fill(signature, Integer.MAX_VALUE);
+
+		if (PackedNgrams.supports(n)) {
+			PackedNgrams ngrams = PackedNgrams.scratch()[0].build(word, n);
+			for (int k = 0; k < ngrams.size(); k++) {
+				update(signature, ngrams.code(k));
+			}
+		}
+		else {
+			for (String ngram : MetricUtils.getUniqueNgrams(word, n)) {
+				update(signature, ngram.hashCode());
+			}
+		}
+
+		return signature;
+	}
+
+	/**
+	 * Estimates the Jaccard similarity of two words as the fraction of the positions where their
+	 * signatures agree.
+	 *
+	 * @param a the signature of the first word
+	 * @param b the signature of the second word
+	 * @return the estimated Jaccard similarity
+	 * @throws IllegalArgumentException
+	 */
+	public static double estimateJaccard(int[] a, int[] b) throws IllegalArgumentException {
+
+		MetricUtils.validate(a, b);
+
+		if (a.length != b.length || a.length == 0) {
+			throw new IllegalArgumentException("The signatures must have the same, positive size.");
+		}
+
+		int equal = 0;
+		for (int i = 0; i < a.length; i++) {
+			if (a[i] == b[i]) {
+				equal++;
+			}
+		}
+
+		return (double) equal / a.length;
+	}
+
+	/**
+	 * Finds the pairs of distinct positions (i, j), i &lt; j, whose words share a bucket and
+	 * whose similarity reaches the threshold.
+	 *
+	 * @param words the list of words
+	 * @param threshold the minimum similarity
+	 * @param verify <code>true</code> if the candidates are re-checked and reported with their
+	 * exact Jaccard similarity, <code>false</code> if they are reported with their estimated similarity
+	 * @return the pairs, sorted by left and right position
+	 * @throws IllegalArgumentException
+	 */
+	public List<SimilarityJoin.Pair> selfJoin(List<String> words, double threshold, boolean verify)
+			throws IllegalArgumentException {
+
+		MetricUtils.validate(words);
+
+		return join(words, words, words.size(), threshold, verify, true);
+	}
+
+	/**
+	 * Finds the pairs (left word, right word) that share a bucket and whose similarity reaches
+	 * the threshold.
+	 *
+	 * @param left the first list of words
+	 * @param right the second list of words
+	 * @param threshold the minimum similarity
+	 * @param verify <code>true</code> if the candidates are re-checked and reported with their
+	 * exact Jaccard similarity, <code>false</code> if they are reported with their estimated similarity
+	 * @return the pairs, sorted by left and right position
+	 * @throws IllegalArgumentException
+	 */
+	public List<SimilarityJoin.Pair> join(List<String> left, List<String> right, double threshold, boolean verify)
+			throws IllegalArgumentException {
+
+		MetricUtils.validate(left, right);
+
+		return join(left, right, left.size(), threshold, verify, false);
+	}
+
+	private List<SimilarityJoin.Pair> join(List<String> left, List<String> right, int split, double threshold,
+			boolean verify, boolean self) {
+
+		if (logger.isDebugEnabled())
+			logger.debug("Generating the candidates of " + left.size() + (self ? "" : " and " + right.size())
+					+ " words using " + bands + " bands of " + rows + " rows");
+
+		int size = self ? left.size() : left.size() + right.size();
+		int[][] signatures = new int[size][];
+		int r = 0;
+		for (String word : left) {
+			signatures[r++] = computeSignature(word);
+		}
+		if (!self) {
+			for (String word : right) {
+				signatures[r++] = computeSignature(word);
+			}
+		}
+
+		// candidate pairs, packed as (first << 32 | second) in signature order
+		Candidates candidates = new Candidates();
+
+		// the words without n-grams have identical signatures and a Jaccard similarity of 1, so they
+		// form a single bucket, which is paired once rather than in every band
+		int[] indexed = new int[size];
+		int[] unindexed = new int[size];
+		int count = 0;
+		int unindexedCount = 0;
+		for (int i = 0; i < size; i++) {
+			String word = i < split ? left.get(i) : right.get(i - split);
+			if (word.length() >= n) {
+				indexed[count++] = i;
+			}
+			else {
+				unindexed[unindexedCount++] = i;
+			}
+		}
+
+		int unindexedMiddle = 0;
+		if (!self) {
+			while (unindexedMiddle < unindexedCount && unindexed[unindexedMiddle] < split) {
+				unindexedMiddle++;
+			}
+		}
+		for (int i = 0; i < (self ? unindexedCount : unindexedMiddle); i++) {
+			for (int j = self ? i + 1 : unindexedMiddle; j < unindexedCount; j++) {
+				candidates.add(unindexed[i], unindexed[j]);
+			}
+		}
+
+		long[] keys = new long[count];
+		for (int band = 0; band < bands; band++) {
+			for (int k = 0; k < count; k++) {
+				int i = indexed[k];
+				keys[k] = (long) hashBand(signatures[i], band) << 32 | i;
+			}
+			Arrays.sort(keys);
+
+			for (int start = 0, end; start < count; start = end) {
+				end = start + 1;
+				while (end < count && keys[end] >>> 32 == keys[start] >>> 32) {
+					end++;
+				}
+
+				// the left words of a bucket come before its right words
+				int middle = start;
+				if (!self) {
+					while (middle < end && (int) keys[middle] < split) {
+						middle++;
+					}
+				}
+				for (int i = start; i < (self ? end : middle); i++) {
+					for (int j = self ? i + 1 : middle; j < end; j++) {
+						candidates.add((int) keys[i], (int) keys[j]);
+					}
+				}
+			}
+		}
+		long[] distinct = candidates.sortDistinct();
+
+		Jaccard jaccard = new Jaccard();
+		List<SimilarityJoin.Pair> pairs = new ArrayList<SimilarityJoin.Pair>();
+		for (long candidate : distinct) {
+			int first = (int) (candidate >>> 32);
+			int second = (int) candidate;
+			double similarity = verify
+					? jaccard.computeSimilarity(left.get(first), self ? left.get(second) : right.get(second - split), n)
+					: estimateJaccard(signatures[first], signatures[second]);
+			if (similarity >= threshold) {
+				pairs.add(new SimilarityJoin.Pair(first, self ? second : second - split, similarity));
+			}
+		}
+
+		if (logger.isDebugEnabled())
+			logger.debug("Found " + pairs.size() + " pairs among " + distinct.length + " candidates");
+
+		return pairs;
+	}
+
+	/**
+	 * A growable array of packed candidate pairs, deduplicated once all the bands are read.
+	 */
+	private static final class Candidates {
+
+		private long[] pairs = new long[64];
+		private int size;
+
+		private void add(int first, int second) {
+
+			if (size == pairs.length) {
+				pairs = Arrays.copyOf(pairs, 2 * size);
+			}
+			pairs[size++] = (long) first << 32 | second;
+		}
+
+		/**
+		 * Returns the distinct pairs, sorted by their first and then by their second index.
+		 */
+		private long[] sortDistinct() {
+
+			Arrays.sort(pairs, 0, size);
+			int distinct = 0;
+			for (int i = 0; i < size; i++) {
+				if (distinct == 0 || pairs[i] != pairs[distinct - 1]) {
+					pairs[distinct++] = pairs[i];
+				}
+			}
+
+			return Arrays.copyOf(pairs, distinct);
+		}
+	}
+
+	/**
+	 * Lowers the signature with the hash values of an n-gram.
+	 */
+	private void update(int[] signature, long ngram) {
+
+		for (int i = 0; i < seeds.length; i++) {
+			int hash = (int) (mix(ngram ^ seeds[i]) >>> 33);
+			if (hash < signature[i]) {
+				signature[i] = hash;
+			}
+		}
+	}
+
+	/**
+	 * Hashes the rows of a band of a signature into a 32-bit bucket key.
+	 */
+	private int hashBand(int[] signature, int band) {
+
+		long hash = band;
+		for (int i = band * rows; i < (band + 1) * rows; i++) {
+			hash = mix(hash * 31 + signature[i]);
+		}
+
+		return (int) (hash >>> 32);
+	}
+
+	/**
+	 * 64-bit finalizer of MurmurHash3.
+	 */
+	private static long mix(long hash) {
+
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= hash >>> 33;
+
+		return hash;
+	}
+}
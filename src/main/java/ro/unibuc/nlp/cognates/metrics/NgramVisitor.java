@@ -0,0 +1,37 @@
+package ro.unibuc.nlp.cognates.metrics;
+
+/**
+ * Receives the n-grams of a string, one at a time, as views over the original characters.
+ *
+ * @see MetricUtils#forEachNgram(CharSequence, int, boolean, NgramVisitor)
+ */
+@FunctionalInterface
+public interface NgramVisitor {
+
+	/**
+	 * Visits an n-gram. The view is reused for the following n-grams, so it is only valid
+	 * during the call: use {@link CharSequence#toString()} to keep the n-gram.
+	 *
+	 * @param ngram a view of the n-gram
+	 * @param start the index where the n-gram begins
+	 */
+	void visit(CharSequence ngram, int start);
+
+	/**
+	 * Receives the n-grams of a string packed in a {@code long}, 16 bits per character, the
+	 * first character in the most significant position.
+	 *
+	 * @see MetricUtils#forEachPackedNgram(CharSequence, int, NgramVisitor.Packed)
+	 */
+	@FunctionalInterface
+	interface Packed {
+
+		/**
+		 * Visits an n-gram.
+		 *
+		 * @param code the packed n-gram
+		 * @param start the index where the n-gram begins
+		 */
+		void visit(long code, int start);
+	}
+}
@@ -0,0 +1,138 @@
+package ro.unibuc.nlp.cognates.metrics;
+
+import java.util.Arrays;
+
+/**
+ * Set of the character n-grams of a string, each n-gram being packed in a {@code long}
+ * (16 bits per character). The codes are kept sorted and unique, so that the n-grams
+ * shared by two strings are counted with a linear merge (see {@link VectorKernels#countCommon(long[], int, long[], int)}).
+ *
+ * The set is meant to be reused: building the n-grams of a new string only grows the
+ * internal array when the string has more n-grams than all the previous ones.
+ */
+final class PackedNgrams {
+
+	/**
+	 * The maximum size of the n-grams that can be packed in a {@code long}.
+	 */
+	static final int MAX_SIZE = 4;
+
+	private static final ThreadLocal<PackedNgrams[]> pairs =
+			ThreadLocal.withInitial(() -> new PackedNgrams[] {new PackedNgrams(), new PackedNgrams()});
+
+	private long[] codes = new long[16];
+	private int size;
+
+	/**
+	 * Returns a pair of n-gram sets owned by the current thread, to be used as scratch space.
+	 */
+	static PackedNgrams[] scratch() {
+
+		return pairs.get();
+	}
+
+	/**
+	 * Verifies if the n-grams of the given size can be packed in a {@code long}.
+	 *
+	 * @param n the size of the n-grams
+	 * @return <code>true</code> if the n-grams can be packed, <code>false</code> otherwise
+	 */
+	static boolean supports(int n) {
+
+		return n <= MAX_SIZE;
+	}
+
+	/**
+	 * Builds the set of n-grams of the given string, discarding the previous n-grams.
+	 *
+	 * @param string the input string
+	 * @param n the size of the n-grams, at most {@link #MAX_SIZE}
+	 * @return this set
+	 */
+	PackedNgrams build(CharSequence string, int n) {
+
+		size = 0;
+		if (n <= 0 || string.length() < n) {
+			return this;
+		}
+
+		int count = string.length() - n + 1;
+		if (codes.length < count) {
+			codes = new long[count];
+		}
+
+		long code = 0L;
+		for (int i = 0; i < string.length(); i++) {
+			code = (code << 16) | string.charAt(i);
+			if (i >= n - 1) {
+				// drop the characters that precede the current n-gram
+				codes[size++] = n == MAX_SIZE ? code : code & ((1L << (16 * n)) - 1);
+			}
+		}
+
+		return sortUnique();
+	}
+
+	/**
+	 * Builds the set of the given symbol identifiers, discarding the previous n-grams. Used for
+	 * token sequences, whose n-grams are interned as identifiers (see {@link TokenSequences#toNgrams(int)}).
+	 *
+	 * @param symbols the identifiers
+	 * @param length the number of identifiers
+	 * @return this set
+	 */
+	PackedNgrams build(int[] symbols, int length) {
+
+		if (codes.length < length) {
+			codes = new long[length];
+		}
+		for (int i = 0; i < length; i++) {
+			codes[i] = symbols[i];
+		}
+		size = length;
+
+		return sortUnique();
+	}
+
+	private PackedNgrams sortUnique() {
+
+		Arrays.sort(codes, 0, size);
+
+		int unique = 0;
+		for (int i = 0; i < size; i++) {
+			if (i == 0 || codes[i] != codes[unique - 1]) {
+				codes[unique++] = codes[i];
+			}
+		}
+		size = unique;
+
+		return this;
+	}
+
+	/**
+	 * Returns the number of unique n-grams.
+	 */
+	int size() {
+
+		return size;
+	}
+
+	/**
+	 * Returns the packed n-gram at the given position, in ascending order of the codes.
+	 */
+	long code(int index) {
+
+		return codes[index];
+	}
+
+	/**
+	 * Counts the n-grams shared with another set of n-grams of the same size.
+	 *
+	 * @param other the other set
+	 * @return the number of common n-grams
+	 */
+	int countCommon(PackedNgrams other) {
+
+		return VectorKernels.countCommon(codes, size, other.codes, other.size);
+	}
+}
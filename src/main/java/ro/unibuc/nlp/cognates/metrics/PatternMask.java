@@ -0,0 +1,163 @@
+package ro.unibuc.nlp.cognates.metrics;
+
+import java.util.Arrays;
+
+/**
+ * Maps the characters of a pattern to the bit vectors marking their positions in the pattern,
+ * as required by the bit-parallel kernels. The pattern is split in blocks of 64 positions,
+ * one {@code long} per block.
+ *
+ * The table is meant to be reused: building a new pattern only grows the internal arrays
+ * when the pattern is longer than all the previous ones.
+ *
+ * The bit vectors are stored by slot. The slot of a character is found by hashing; a pattern of
+ * dense symbol identifiers in [0, symbols) uses the identifiers themselves as slots.
+ */
+final class PatternMask {
+
+	private static final int MIN_CAPACITY = 16;
+
+	private int length;
+	private int blocks;
+	private int capacity;
+
+	private char[] keys = new char[MIN_CAPACITY];
+	private int[] stamps = new int[MIN_CAPACITY];
+	private long[] masks = new long[MIN_CAPACITY];
+	private int stamp;
+
+	/**
+	 * Builds the bit vectors of the given pattern, discarding the previous pattern.
+	 *
+	 * @param pattern the pattern
+	 * @return this table
+	 */
+	PatternMask build(CharSequence pattern) {
+
+		length = pattern.length();
+		blocks = (length + 63) >>> 6;
+
+		int required = Math.max(MIN_CAPACITY, Integer.highestOneBit(Math.max(length, 1)) << 2);
+		if (required > keys.length) {
+			keys = new char[required];
+			stamps = new int[required];
+			stamp = 0;
+		}
+		capacity = keys.length;
+		if (masks.length < capacity * blocks) {
+			masks = new long[capacity * blocks];
+		}
+
+		if (++stamp == 0) {
+			Arrays.fill(stamps, 0);
+			stamp = 1;
+		}
+
+		for (int i = 0; i < length; i++) {
+			int slot = insert(pattern.charAt(i));
+			masks[slot * blocks + (i >>> 6)] |= 1L << (i & 63);
+		}
+
+		return this;
+	}
+
+	/**
+	 * Builds the bit vectors of a pattern of symbol identifiers, discarding the previous pattern.
+	 * Each identifier is its own slot, including the identifiers absent from the pattern.
+	 *
+	 * @param pattern the identifiers of the pattern, in [0, symbols)
+	 * @param length the length of the pattern
+	 * @param symbols the number of distinct symbols
+	 * @return this table
+	 */
+	PatternMask build(int[] pattern, int length, int symbols) {
+
+		this.length = length;
+		blocks = (length + 63) >>> 6;
+
+		// the hashed slots of the characters are overwritten
+		if (++stamp == 0) {
+			Arrays.fill(stamps, 0);
+			stamp = 1;
+		}
+		if (masks.length < symbols * blocks) {
+			masks = new long[Math.max(symbols * blocks, 2 * masks.length)];
+		}
+		Arrays.fill(masks, 0, symbols * blocks, 0L);
+
+		for (int i = 0; i < length; i++) {
+			masks[pattern[i] * blocks + (i >>> 6)] |= 1L << (i & 63);
+		}
+
+		return this;
+	}
+
+	/**
+	 * Returns the length of the pattern.
+	 */
+	int length() {
+
+		return length;
+	}
+
+	/**
+	 * Returns the number of 64-bit blocks of the pattern.
+	 */
+	int blocks() {
+
+		return blocks;
+	}
+
+	/**
+	 * Finds the slot of the given character.
+	 *
+	 * @param c the character
+	 * @return the slot of the character, or -1 if the character does not occur in the pattern
+	 */
+	int find(char c) {
+
+		int slot = hash(c);
+		while (stamps[slot] == stamp) {
+			if (keys[slot] == c) {
+				return slot;
+			}
+			slot = (slot + 1) & (capacity - 1);
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Returns the bit vector of a block for the symbol found in the given slot.
+	 *
+	 * @param slot the slot of the symbol, as returned by {@link #find(char)} or given by its identifier
+	 * @param block the index of the block
+	 * @return the positions of the symbol in the given block of the pattern
+	 */
+	long mask(int slot, int block) {
+
+		return slot < 0 ? 0L : masks[slot * blocks + block];
+	}
+
+	private int insert(char c) {
+
+		int slot = hash(c);
+		while (stamps[slot] == stamp) {
+			if (keys[slot] == c) {
+				return slot;
+			}
+			slot = (slot + 1) & (capacity - 1);
+		}
+
+		stamps[slot] = stamp;
+		keys[slot] = c;
+		Arrays.fill(masks, slot * blocks, (slot + 1) * blocks, 0L);
+
+		return slot;
+	}
+
+	private int hash(char c) {
+
+		return (c * 0x9E3779B1 >>> 16) & (capacity - 1);
+	}
+}
@@ -0,0 +1,203 @@
+package ro.unibuc.nlp.cognates.metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Precomputed representation of a word, shared by all the metrics. When a word is compared with
+ * many other words (one-vs-many or all-pairs comparisons), preparing it once saves the metrics
+ * from recomputing its characters, n-grams, bit vectors and rankings for every pair.
+ *
+ * Prepared words are immutable and can be shared between threads.
+ */
+public final class PreparedWord {
+
+	/**
+	 * The default size of the cached n-grams, used by {@link Dice} and {@link Jaccard}.
+	 */
+	public static final int DEFAULT_NGRAM_SIZE = 2;
+
+	private final String value;
+	private final char[] characters;
+	private final int ngramSize;
+	private final PackedNgrams ngrams;
+	private final PatternMask mask;
+	private final long[] rankKeys;
+	private final int[] ranks;
+	private final char[] histogramCharacters;
+	private final int[] histogramCounts;
+	private final long characterMask;
+
+	/**
+	 * Prepares a word, caching its n-grams of the default size.
+	 *
+	 * @param value the word
+	 * @throws IllegalArgumentException
+	 */
+	public PreparedWord(String value) throws IllegalArgumentException {
+
+		this(value, DEFAULT_NGRAM_SIZE);
+	}
+
+	/**
+	 * Prepares a word, caching its n-grams of the given size.
+	 *
+	 * @param value the word
+	 * @param ngramSize the size of the cached n-grams
+	 * @throws IllegalArgumentException
+	 */
+	public PreparedWord(String value, int ngramSize) throws IllegalArgumentException {
+
+		if (value == null) {
+			throw new IllegalArgumentException("The prepared word cannot be null.");
+		}
+
+		this.value = value;
+		this.characters = value.toCharArray();
+		this.ngramSize = ngramSize;
+		this.ngrams = PackedNgrams.supports(ngramSize) ? new PackedNgrams().build(value, ngramSize) : null;
+		this.mask = new PatternMask().build(value);
+		this.rankKeys = new long[characters.length];
+		this.ranks = new int[characters.length];
+		Rank.buildRanking(characters, rankKeys, ranks);
+
+		// character histogram, sorted by character
+		char[] sorted = characters.clone();
+		Arrays.sort(sorted);
+		int distinct = 0;
+		for (int i = 0; i < sorted.length; i++) {
+			if (i == 0 || sorted[i] != sorted[i - 1]) {
+				distinct++;
+			}
+		}
+		histogramCharacters = new char[distinct];
+		histogramCounts = new int[distinct];
+		int k = -1;
+		for (int i = 0; i < sorted.length; i++) {
+			if (i == 0 || sorted[i] != sorted[i - 1]) {
+				histogramCharacters[++k] = sorted[i];
+			}
+			histogramCounts[k]++;
+		}
+
+		long characterMask = 0L;
+		for (char c : characters) {
+			characterMask |= 1L << (c & 63);
+		}
+		this.characterMask = characterMask;
+	}
+
+	/**
+	 * Prepares all the given words, caching their n-grams of the default size.
+	 *
+	 * @param words the words
+	 * @return the prepared words, in the iteration order of the input
+	 * @throws IllegalArgumentException
+	 */
+	public static List<PreparedWord> prepare(Collection<String> words) throws IllegalArgumentException {
+
+		List<PreparedWord> prepared = new ArrayList<PreparedWord>(words.size());
+		for (String word : words) {
+			prepared.add(new PreparedWord(word));
+		}
+
+		return prepared;
+	}
+
+	/**
+	 * Returns the word.
+	 *
+	 * @return the word
+	 */
+	public String getValue() {
+
+		return value;
+	}
+
+	/**
+	 * Returns the number of characters of the word.
+	 *
+	 * @return the length of the word
+	 */
+	public int length() {
+
+		return characters.length;
+	}
+
+	/**
+	 * Returns the size of the cached n-grams.
+	 *
+	 * @return the size of the cached n-grams
+	 */
+	public int getNgramSize() {
+
+		return ngramSize;
+	}
+
+	/**
+	 * Returns the number of occurrences of a character in the word.
+	 *
+	 * @param c the character
+	 * @return the number of occurrences of the character
+	 */
+	public int count(char c) {
+
+		int index = Arrays.binarySearch(histogramCharacters, c);
+
+		return index < 0 ? 0 : histogramCounts[index];
+	}
+
+	@Override
+	public String toString() {
+
+		return value;
+	}
+
+	char[] getCharacters() {
+
+		return characters;
+	}
+
+	/**
+	 * Returns the cached n-grams if they have the given size, <code>null</code> otherwise.
+	 */
+	PackedNgrams getNgrams(int n) {
+
+		return n == ngramSize ? ngrams : null;
+	}
+
+	PatternMask getMask() {
+
+		return mask;
+	}
+
+	long[] getRankKeys() {
+
+		return rankKeys;
+	}
+
+	int[] getRanks() {
+
+		return ranks;
+	}
+
+	char[] getHistogramCharacters() {
+
+		return histogramCharacters;
+	}
+
+	int[] getHistogramCounts() {
+
+		return histogramCounts;
+	}
+
+	/**
+	 * Returns the characters of the word as a 64-bit set, character c being mapped to bit (c mod 64).
+	 */
+	long getCharacterMask() {
+
+		return characterMask;
+	}
+}
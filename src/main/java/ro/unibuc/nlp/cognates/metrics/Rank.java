@@ -1,21 +1,32 @@
 package ro.unibuc.nlp.cognates.metrics;
 
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 
 import org.apache.log4j.Logger;
 
+/**
+ * Computes the rank distance or similarity between two input strings.
+ * 
+ * Each symbol is indexed by its number of previous occurrences, and the indexed symbols are ranked 
+ * by their distance to the end of the input. The distance sums the rank differences of the indexed 
+ * symbols found in both inputs, and the ranks of the indexed symbols found in only one of them.
+ */
 public class Rank implements Metric {
 
-	private static final Logger logger = Logger.getLogger(Edit.class);
+	private static final Logger logger = Logger.getLogger(Rank.class);
+	
+	/**
+	 * Scratch arrays of the rank distance computation, reused by all the computations of a thread.
+	 */
+	private static final ThreadLocal<Buffers> buffers = ThreadLocal.withInitial(Buffers::new);
 
 	@Override
 	public double computeDistance(String a, String b)
 			throws IllegalArgumentException {
 		
-		logger.info("Computing the rank distance between strings " + a + " " + b);
+		if (logger.isDebugEnabled())
+			logger.debug("Computing the rank distance between strings " + a + " " + b);
 		
 		double rankDistance = computeRankDistance(a, b);
 		double maxDistance = a.length() * (a.length() + 1) / 2 + b.length() * (b.length() + 1) / 2;
@@ -31,7 +42,8 @@ public class Rank implements Metric {
 	public double computeDistance(List<String> a, List<String> b)
 			throws IllegalArgumentException {
 		
-		logger.info("Computing the rank distance between sequences " + a + " " + b);
+		if (logger.isDebugEnabled())
+			logger.debug("Computing the rank distance between sequences " + a + " " + b);
 		
 		double rankDistance = computeRankDistance(a, b);
 		double maxDistance = a.size() * (a.size() + 1) / 2 + b.size() * (b.size() + 1) / 2;
@@ -47,7 +59,8 @@ public class Rank implements Metric {
 	public double computeSimilarity(String a, String b)
 			throws IllegalArgumentException {
 		
-		logger.info("Computing the rank similarity between strings " + a + " " + b);
+		if (logger.isDebugEnabled())
+			logger.debug("Computing the rank similarity between strings " + a + " " + b);
 		
 		double distance = computeRankDistance(a, b);
 		double maxDistance = a.length() * (a.length() + 1) / 2 + b.length() * (b.length() + 1) / 2;
@@ -59,145 +72,208 @@ public class Rank implements Metric {
 		return 1 - distance/maxDistance;
 	}
 	
-	private static double computeRankDistance(String s1, String s2)
-	{
-		MetricUtils.validate(s1, s2);
+	@Override
+	public double computeDistance(PreparedWord a, PreparedWord b) 
+			throws IllegalArgumentException {
 		
-		double distance = 0d;
+		MetricUtils.validate(a, b);
 		
-		char[] splittedS1 = s1.toCharArray();
-		char[] splittedS2 = s2.toCharArray();
+		double rankDistance = computeRankDistance(a.getRankKeys(), a.getRanks(), b.getRankKeys(), b.getRanks());
+		double maxDistance = a.length() * (a.length() + 1) / 2 + b.length() * (b.length() + 1) / 2;
 		
-		String[] indexedS1 = indexString(splittedS1);
-		String[] indexedS2 = indexString(splittedS2);
+		if (maxDistance == 0) {
+			return 0;
+		}
 		
-		Map<String, Integer> rankedS1 = buildRanking(indexedS1);
-		Map<String, Integer> rankedS2 = buildRanking(indexedS2);
+		return rankDistance/maxDistance;
+	}
+	
+	@Override
+	public double computeSimilarity(PreparedWord a, PreparedWord b) 
+			throws IllegalArgumentException {
 		
-		List<String> common = new ArrayList<String>();//k
-		List<String> first = new ArrayList<String>();//i
-		List<String> second = new ArrayList<String>();//j
+		MetricUtils.validate(a, b);
 		
-		for (String key : rankedS1.keySet()) {
-			if (rankedS2.containsKey(key))
-				common.add(key);
-			else
-				first.add(key);
+		double rankDistance = computeRankDistance(a.getRankKeys(), a.getRanks(), b.getRankKeys(), b.getRanks());
+		double maxDistance = a.length() * (a.length() + 1) / 2 + b.length() * (b.length() + 1) / 2;
+		
+		if (maxDistance == 0) {
+			return 1;
 		}
 		
-		for (String key : rankedS2.keySet())
-			if (!common.contains(key))
-				second.add(key);
+		return 1 - rankDistance/maxDistance;
+	}
+	
+	@Override
+	public double computeDistance(WordPool a, int i, WordPool b, int j) throws IllegalArgumentException {
 		
-		for (String key : common)
-			distance += Math.abs(rankedS1.get(key) - rankedS2.get(key));
+		MetricUtils.validate(a, b);
 		
-		for (String key : first)
-			distance += rankedS1.get(key);
-
-		for (String key : second)
-			distance += rankedS2.get(key);
-
-		return distance;
-	}
-
-	private static String[] indexString(char[] splittedString)
-	{
-		String[] indexedString = new String[splittedString.length];
-		Map<Character, Integer> charMap = new HashMap<Character, Integer>();
+		double rankDistance = computeRankDistance(a.view(i), b.view(j));
+		double maxDistance = a.length(i) * (a.length(i) + 1) / 2 + b.length(j) * (b.length(j) + 1) / 2;
 		
-		for (int i = 0; i < splittedString.length; i++)
-		{
-			char c = splittedString[i];
-			
-			if (charMap.containsKey(c))
-			{
-				int oldIndex = charMap.get(c);
-				charMap.put(c, oldIndex + 1);
-			}
-			else
-			{
-				charMap.put(c, 0);
-			}
-			
-			indexedString[i] = c + "" + charMap.get(c);
+		if (maxDistance == 0) {
+			return 0;
 		}
 		
-		return indexedString;
+		return rankDistance/maxDistance;
 	}
 	
-	private static Map<String, Integer> buildRanking(String[] indexedString) 
-	{
-		Map<String, Integer> ranking = new HashMap<String, Integer>();
+	@Override
+	public double computeSimilarity(WordPool a, int i, WordPool b, int j) throws IllegalArgumentException {
 		
-		int length = indexedString.length;
+		MetricUtils.validate(a, b);
 		
-		for (int i = 0; i < length; i++)
-		{
-			ranking.put(indexedString[i], length - i);
+		double rankDistance = computeRankDistance(a.view(i), b.view(j));
+		double maxDistance = a.length(i) * (a.length(i) + 1) / 2 + b.length(j) * (b.length(j) + 1) / 2;
+		
+		if (maxDistance == 0) {
+			return 1;
 		}
 		
-		return ranking;
+		return 1 - rankDistance/maxDistance;
 	}
 	
-	private static double computeRankDistance(List<String> s1, List<String> s2)
+	private static double computeRankDistance(CharSequence s1, CharSequence s2)
 	{
 		MetricUtils.validate(s1, s2);
 		
-		double distance = 0d;
-		
-		String[] indexedS1 = indexString(s1);
-		String[] indexedS2 = indexString(s2);
-		
-		Map<String, Integer> rankedS1 = buildRanking(indexedS1);
-		Map<String, Integer> rankedS2 = buildRanking(indexedS2);
-		
-		List<String> common = new ArrayList<String>();//k
-		List<String> first = new ArrayList<String>();//i
-		List<String> second = new ArrayList<String>();//j
+		return buffers.get().computeRankDistance(TokenSequences.intern(s1, s2));
+	}
+	
+	private static double computeRankDistance(List<String> s1, List<String> s2)
+	{
+		MetricUtils.validate(s1, s2);
 		
-		for (String key : rankedS1.keySet()) {
-			if (rankedS2.containsKey(key))
-				common.add(key);
+		return buffers.get().computeRankDistance(TokenSequences.intern(s1, s2));
+	}
+	
+	/**
+	 * Computes the rank distance between two rankings, given as indexed symbols sorted in 
+	 * ascending order and their ranks.
+	 * 
+	 * @param keys1 the indexed symbols of the first input
+	 * @param ranks1 the ranks of the indexed symbols of the first input
+	 * @param keys2 the indexed symbols of the second input
+	 * @param ranks2 the ranks of the indexed symbols of the second input
+	 * @return the unnormalized rank distance
+	 */
+	static double computeRankDistance(long[] keys1, int[] ranks1, long[] keys2, int[] ranks2)
+	{
+		long distance = 0;
+		
+		int i = 0;
+		int j = 0;
+		while (i < keys1.length && j < keys2.length) {
+			if (keys1[i] == keys2[j])
+				distance += Math.abs(ranks1[i++] - ranks2[j++]);
+			else if (keys1[i] < keys2[j])
+				distance += ranks1[i++];
 			else
-				first.add(key);
+				distance += ranks2[j++];
 		}
 		
-		for (String key : rankedS2.keySet())
-			if (!common.contains(key))
-				second.add(key);
+		while (i < keys1.length)
+			distance += ranks1[i++];
+		while (j < keys2.length)
+			distance += ranks2[j++];
 		
-		for (String key : common)
-			distance += Math.abs(rankedS1.get(key) - rankedS2.get(key));
-		
-		for (String key : first)
-			distance += rankedS1.get(key);
-
-		for (String key : second)
-			distance += rankedS2.get(key);
-
 		return distance;
 	}
-
-	private static String[] indexString(List<String> sequence) {
-		String[] indexedString = new String[sequence.size()];
-		Map<String, Integer> map = new HashMap<String, Integer>();
+	
+	/**
+	 * Builds the ranking of the characters of a string. Each character is indexed by its number of 
+	 * previous occurrences and encoded as (character << 32 | index); the indexed characters are 
+	 * sorted in ascending order.
+	 * 
+	 * @param characters the characters of the input string
+	 * @param keys the array where the indexed characters are stored
+	 * @param ranks the array where the ranks of the indexed characters are stored
+	 */
+	static void buildRanking(char[] characters, long[] keys, int[] ranks)
+	{
+		int length = characters.length;
 		
-		for (int i = 0; i < sequence.size(); i++) {
-			String s = sequence.get(i);
+		// sorting by (character, position) groups the occurrences of a character in order
+		for (int i = 0; i < length; i++)
+			keys[i] = (long) characters[i] << 32 | i;
+		Arrays.sort(keys, 0, length);
+		
+		for (int k = 0; k < length; k++) {
+			int position = (int) keys[k];
+			int index = k > 0 && (keys[k - 1] >>> 32) == (keys[k] >>> 32) 
+					  ? (int) keys[k - 1] + 1 
+					  : 0;
+			ranks[k] = length - position;
+			keys[k] = (keys[k] >>> 32) << 32 | index;
+		}
+	}
+	
+	/**
+	 * Scratch arrays indexed by the identifiers of the symbols of a pair of inputs.
+	 */
+	private static final class Buffers {
+		
+		private int[] counts1 = new int[64];
+		private int[] counts2 = new int[64];
+		private int[] starts = new int[64];
+		private int[] positions = new int[32];
+		
+		/**
+		 * Computes the rank distance between two interned sequences.
+		 */
+		private double computeRankDistance(TokenSequences sequences) {
+			
+			int[] first = sequences.first();
+			int[] second = sequences.second();
+			int length1 = sequences.length1();
+			int length2 = sequences.length2();
+			int size = sequences.symbols();
 			
-			if (map.containsKey(s)) {
-				int oldIndex = map.get(s);
-				map.put(s, oldIndex + 1);
+			if (counts1.length < size) {
+				counts1 = new int[size];
+				counts2 = new int[size];
+				starts = new int[size];
 			}
-			else {
-				map.put(s, 0);
+			if (positions.length < length2)
+				positions = new int[length2];
+			
+			Arrays.fill(counts1, 0, size, 0);
+			Arrays.fill(counts2, 0, size, 0);
+			
+			// positions of the occurrences of each symbol in the second input, grouped by symbol
+			for (int j = 0; j < length2; j++)
+				counts2[second[j]]++;
+			for (int id = 0, start = 0; id < size; id++) {
+				starts[id] = start;
+				start += counts2[id];
+			}
+			for (int j = 0; j < length2; j++)
+				positions[starts[second[j]] + counts1[second[j]]++] = j;
+			Arrays.fill(counts1, 0, size, 0);
+			
+			long distance = 0;
+			
+			// indexed symbols of the first input, either common or found only in the first input
+			for (int i = 0; i < length1; i++) {
+				int id = first[i];
+				int index = counts1[id]++;
+				int rank = length1 - i;
+				if (index < counts2[id])
+					distance += Math.abs(rank - (length2 - positions[starts[id] + index]));
+				else
+					distance += rank;
 			}
 			
-			indexedString[i] = s + map.get(s);
+			// indexed symbols found only in the second input
+			Arrays.fill(starts, 0, size, 0);
+			for (int j = 0; j < length2; j++) {
+				int id = second[j];
+				if (starts[id]++ >= counts1[id])
+					distance += length2 - j;
+			}
+			
+			return distance;
 		}
-		
-		return indexedString;
 	}
-
 }
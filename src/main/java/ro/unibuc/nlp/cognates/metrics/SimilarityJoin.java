@@ -0,0 +1,419 @@
+package ro.unibuc.nlp.cognates.metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Finds all the pairs of words whose Dice or Jaccard similarity reaches a threshold, without
+ * comparing all the pairs (AllPairs / PPJoin similarity join).
+ *
+ * Each word is represented by its set of unique n-grams, the n-grams being ordered from the
+ * rarest to the most frequent. Two words reaching the threshold must share a minimum number
+ * of n-grams, hence they share at least one n-gram among the first ones of each word (prefix
+ * filtering). Only the prefixes are indexed, the candidates are restricted to words of
+ * compatible sizes (length filtering) and are dropped as soon as the n-grams left after the
+ * current positions cannot make up the minimum overlap (positional filtering). The remaining
+ * candidates are verified exactly, with the formulas of {@link Dice} and {@link Jaccard}.
+ */
+public final class SimilarityJoin {
+
+	private static final Logger logger = Logger.getLogger(SimilarityJoin.class);
+
+	/**
+	 * Tolerance of the filters, so that rounding errors never discard a valid pair.
+	 */
+	private static final double EPSILON = 1e-9;
+
+	/**
+	 * The similarity measure of the join.
+	 */
+	public enum Measure {
+		DICE,
+		JACCARD
+	}
+
+	/**
+	 * A pair of words reaching the similarity threshold, identified by their positions in the
+	 * input lists.
+	 */
+	public static final class Pair {
+
+		private final int left;
+		private final int right;
+		private final double similarity;
+
+		Pair(int left, int right, double similarity) {
+
+			this.left = left;
+			this.right = right;
+			this.similarity = similarity;
+		}
+
+		public int getLeft() {
+
+			return left;
+		}
+
+		public int getRight() {
+
+			return right;
+		}
+
+		public double getSimilarity() {
+
+			return similarity;
+		}
+
+		@Override
+		public String toString() {
+
+			return "(" + left + ", " + right + ", " + similarity + ")";
+		}
+	}
+
+	private final Measure measure;
+	private final int n;
+	private final double threshold;
+
+	/**
+	 * The equivalent Jaccard threshold, used by the filters (a Dice similarity d corresponds to
+	 * a Jaccard similarity d / (2 - d)).
+	 */
+	private final double jaccardThreshold;
+
+	/**
+	 * Creates a similarity join.
+	 *
+	 * @param measure the similarity measure
+	 * @param n the n-gram size
+	 * @param threshold the minimum similarity, in (0, 1]
+	 * @throws IllegalArgumentException
+	 */
+	public SimilarityJoin(Measure measure, int n, double threshold) throws IllegalArgumentException {
+
+		MetricUtils.validate(measure);
+
+		if (n < 1) {
+			throw new IllegalArgumentException("The n-gram size must be positive.");
+		}
+		if (!(threshold > 0 && threshold <= 1)) {
+			throw new IllegalArgumentException("The threshold must be in (0, 1].");
+		}
+
+		this.measure = measure;
+		this.n = n;
+		this.threshold = threshold;
+		this.jaccardThreshold = measure == Measure.DICE ? threshold / (2 - threshold) : threshold;
+	}
+
+	/**
+	 * Finds the pairs (left word, right word) reaching the similarity threshold.
+	 *
+	 * @param left the first list of words
+	 * @param right the second list of words
+	 * @return the pairs, sorted by left and right position
+	 * @throws IllegalArgumentException
+	 */
+	public List<Pair> join(List<String> left, List<String> right) throws IllegalArgumentException {
+
+		MetricUtils.validate(left, right);
+
+		if (logger.isDebugEnabled())
+			logger.debug("Joining " + left.size() + " and " + right.size() + " words with " + measure
+					+ " >= " + threshold + " using " + n + "-grams");
+
+		int[][] records = tokenize(left, right);
+		int[][] leftRecords = Arrays.copyOfRange(records, 0, left.size());
+		int[][] rightRecords = Arrays.copyOfRange(records, left.size(), records.length);
+
+		Index index = new Index(rightRecords.length);
+		for (int y = 0; y < rightRecords.length; y++) {
+			index.add(y, rightRecords[y]);
+		}
+
+		List<Pair> pairs = new ArrayList<Pair>();
+		for (int x = 0; x < leftRecords.length; x++) {
+			index.probe(x, leftRecords[x], rightRecords, false, pairs);
+		}
+
+		return pairs;
+	}
+
+	/**
+	 * Finds the pairs of distinct positions (i, j), i &lt; j, whose words reach the similarity
+	 * threshold.
+	 *
+	 * @param words the list of words
+	 * @return the pairs, sorted by left and right position
+	 * @throws IllegalArgumentException
+	 */
+	public List<Pair> selfJoin(List<String> words) throws IllegalArgumentException {
+
+		MetricUtils.validate(words);
+
+		if (logger.isDebugEnabled())
+			logger.debug("Joining " + words.size() + " words with " + measure + " >= " + threshold
+					+ " using " + n + "-grams");
+
+		int[][] records = tokenize(words, new ArrayList<String>());
+
+		// each word is probed against the words before it, then indexed
+		Index index = new Index(records.length);
+		List<Pair> pairs = new ArrayList<Pair>();
+		for (int x = 0; x < records.length; x++) {
+			index.probe(x, records[x], records, true, pairs);
+			index.add(x, records[x]);
+		}
+
+		// the pairs were found as (later, earlier)
+		List<Pair> sorted = new ArrayList<Pair>(pairs.size());
+		for (Pair pair : pairs) {
+			sorted.add(new Pair(pair.right, pair.left, pair.similarity));
+		}
+		sorted.sort((a, b) -> a.left != b.left ? Integer.compare(a.left, b.left) : Integer.compare(a.right, b.right));
+
+		return sorted;
+	}
+
+	/**
+	 * Computes the similarity of two words from the size of their n-gram sets and the number of
+	 * n-grams they share, exactly as {@link Dice} and {@link Jaccard} do.
+	 */
+	private double computeSimilarity(int common, int size1, int size2) {
+
+		return measure == Measure.DICE
+				? Dice.computeDice(common, size1, size2)
+				: Jaccard.computeJaccard(common, size1, size2);
+	}
+
+	/**
+	 * Returns the minimum number of n-grams a word of the given size shares with any word it is
+	 * similar to.
+	 */
+	private int minOverlap(int size) {
+
+		return Math.max(1, (int) Math.ceil(jaccardThreshold * size - EPSILON));
+	}
+
+	/**
+	 * Returns the minimum number of n-grams shared by two similar words of the given sizes.
+	 */
+	private int minOverlap(int size1, int size2) {
+
+		return Math.max(1, (int) Math.ceil(jaccardThreshold / (1 + jaccardThreshold) * (size1 + size2) - EPSILON));
+	}
+
+	/**
+	 * Returns the number of n-grams of a word that are indexed or probed.
+	 */
+	private int prefixLength(int size) {
+
+		return size == 0 ? 0 : size - minOverlap(size) + 1;
+	}
+
+	/**
+	 * Converts the words to sorted arrays of n-gram identifiers, the identifiers being assigned
+	 * in ascending order of the n-gram frequencies.
+	 */
+	private int[][] tokenize(List<String> left, List<String> right) {
+
+		int[][] records = new int[left.size() + right.size()][];
+		Map<Object, Integer> ids = new HashMap<Object, Integer>();
+		int[] frequencies = new int[16];
+
+		int r = 0;
+		for (List<String> words : Arrays.asList(left, right)) {
+			for (String word : words) {
+				MetricUtils.validate(word);
+
+				List<Object> ngrams = new ArrayList<Object>();
+				if (PackedNgrams.supports(n)) {
+					PackedNgrams packed = PackedNgrams.scratch()[0].build(word, n);
+					for (int i = 0; i < packed.size(); i++) {
+						ngrams.add(packed.code(i));
+					}
+				}
+				else {
+					ngrams.addAll(MetricUtils.getUniqueNgrams(word, n));
+				}
+
+				int[] record = new int[ngrams.size()];
+				for (int i = 0; i < record.length; i++) {
+					Integer id = ids.get(ngrams.get(i));
+					if (id == null) {
+						id = ids.size();
+						ids.put(ngrams.get(i), id);
+						if (id == frequencies.length) {
+							frequencies = Arrays.copyOf(frequencies, 2 * id);
+						}
+					}
+					frequencies[id]++;
+					record[i] = id;
+				}
+				records[r++] = record;
+			}
+		}
+
+		// rank the n-grams from the rarest to the most frequent
+		Integer[] order = new Integer[ids.size()];
+		for (int id = 0; id < order.length; id++) {
+			order[id] = id;
+		}
+		final int[] counts = frequencies;
+		Arrays.sort(order, (a, b) -> counts[a] != counts[b] ? Integer.compare(counts[a], counts[b]) : Integer.compare(a, b));
+		int[] ranks = new int[order.length];
+		for (int rank = 0; rank < order.length; rank++) {
+			ranks[order[rank]] = rank;
+		}
+
+		for (int[] record : records) {
+			for (int i = 0; i < record.length; i++) {
+				record[i] = ranks[record[i]];
+			}
+			Arrays.sort(record);
+		}
+
+		return records;
+	}
+
+	/**
+	 * Inverted index from the n-grams of the prefixes to the (record, position) postings.
+	 */
+	private final class Index {
+
+		private int[][] postings = new int[16][];
+		private int[] sizes = new int[16];
+
+		/**
+		 * The records without n-grams; they are only similar to each other.
+		 */
+		private final List<Integer> empty = new ArrayList<Integer>();
+
+		/**
+		 * Overlap counters of the candidates of the current probe (-1 for pruned candidates).
+		 */
+		private final int[] overlaps;
+		private final int[] candidates;
+
+		private Index(int records) {
+
+			overlaps = new int[records];
+			candidates = new int[records];
+		}
+
+		private void add(int record, int[] tokens) {
+
+			if (tokens.length == 0) {
+				empty.add(record);
+				return;
+			}
+
+			int prefix = prefixLength(tokens.length);
+			for (int i = 0; i < prefix; i++) {
+				int token = tokens[i];
+				if (token >= postings.length) {
+					int capacity = Math.max(2 * postings.length, token + 1);
+					postings = Arrays.copyOf(postings, capacity);
+					sizes = Arrays.copyOf(sizes, capacity);
+				}
+				if (postings[token] == null) {
+					postings[token] = new int[4];
+				}
+				if (sizes[token] + 2 > postings[token].length) {
+					postings[token] = Arrays.copyOf(postings[token], 2 * postings[token].length);
+				}
+				postings[token][sizes[token]++] = record;
+				postings[token][sizes[token]++] = i;
+			}
+		}
+
+		private void probe(int record, int[] tokens, int[][] indexed, boolean self, List<Pair> pairs) {
+
+			if (tokens.length == 0) {
+				for (int other : empty) {
+					pairs.add(new Pair(record, other, computeSimilarity(0, 0, 0)));
+				}
+				return;
+			}
+
+			int size = tokens.length;
+			int minSize = (int) Math.ceil(jaccardThreshold * size - EPSILON);
+			int maxSize = (int) Math.floor(size / jaccardThreshold + EPSILON);
+			int count = 0;
+
+			int prefix = prefixLength(size);
+			for (int i = 0; i < prefix; i++) {
+				int token = tokens[i];
+				if (token >= postings.length || postings[token] == null) {
+					continue;
+				}
+
+				int[] posting = postings[token];
+				for (int k = 0; k < sizes[token]; k += 2) {
+					int other = posting[k];
+					int j = posting[k + 1];
+					int otherSize = indexed[other].length;
+					if (otherSize < minSize || otherSize > maxSize || overlaps[other] < 0) {
+						continue;
+					}
+
+					if (overlaps[other] == 0) {
+						candidates[count++] = other;
+					}
+
+					// positional filtering: the n-grams after positions i and j bound the overlap
+					int bound = overlaps[other] + 1 + Math.min(size - i - 1, otherSize - j - 1);
+					if (bound < minOverlap(size, otherSize)) {
+						overlaps[other] = -1;
+					}
+					else {
+						overlaps[other]++;
+					}
+				}
+			}
+
+			if (!self) {
+				Arrays.sort(candidates, 0, count);
+			}
+
+			for (int c = 0; c < count; c++) {
+				int other = candidates[c];
+				if (overlaps[other] > 0) {
+					int common = countCommon(tokens, indexed[other]);
+					double similarity = computeSimilarity(common, size, indexed[other].length);
+					if (similarity >= threshold) {
+						pairs.add(new Pair(record, other, similarity));
+					}
+				}
+				overlaps[other] = 0;
+			}
+		}
+
+		private int countCommon(int[] a, int[] b) {
+
+			int common = 0;
+			int i = 0;
+			int j = 0;
+			while (i < a.length && j < b.length) {
+				if (a[i] < b[j]) {
+					i++;
+				}
+				else if (a[i] > b[j]) {
+					j++;
+				}
+				else {
+					common++;
+					i++;
+					j++;
+				}
+			}
+
+			return common;
+		}
+	}
+}
@@ -0,0 +1,130 @@
+package ro.unibuc.nlp.cognates.metrics;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Assigns dense identifiers (0, 1, 2, ...) to the symbols of a pair of inputs: characters, code
+ * points, tokens or packed pairs of identifiers. The kernels use the identifiers to index primitive arrays instead of
+ * looking symbols up in maps.
+ *
+ * The table is meant to be reused: resetting it forgets the previous symbols without clearing
+ * the internal arrays. A table holds either integer symbols or object symbols between two resets.
+ */
+final class SymbolTable {
+
+	private static final int MIN_CAPACITY = 16;
+
+	private long[] longKeys = new long[MIN_CAPACITY];
+	private Object[] objectKeys;
+	private int[] ids = new int[MIN_CAPACITY];
+	private int[] stamps = new int[MIN_CAPACITY];
+	private int stamp;
+	private int size;
+
+	/**
+	 * Forgets all the symbols, making room for the given number of symbols.
+	 *
+	 * @param expected the maximum number of distinct symbols until the next reset
+	 * @return this table
+	 */
+	SymbolTable reset(int expected) {
+
+		int required = Math.max(MIN_CAPACITY, Integer.highestOneBit(Math.max(expected, 1)) << 2);
+		if (required > stamps.length) {
+			longKeys = new long[required];
+			objectKeys = null;
+			ids = new int[required];
+			stamps = new int[required];
+			stamp = 0;
+		}
+
+		if (++stamp == 0) {
+			Arrays.fill(stamps, 0);
+			stamp = 1;
+		}
+		size = 0;
+
+		return this;
+	}
+
+	/**
+	 * Returns the number of distinct symbols since the last reset.
+	 */
+	int size() {
+
+		return size;
+	}
+
+	/**
+	 * Returns the identifier of an integer symbol, assigning a new identifier to unknown symbols.
+	 *
+	 * @param symbol the symbol
+	 * @return the identifier of the symbol
+	 */
+	int idOf(int symbol) {
+
+		return idOf((long) symbol);
+	}
+
+	/**
+	 * Returns the identifier of a long integer symbol, such as a pair of identifiers packed in
+	 * a {@code long}, assigning a new identifier to unknown symbols.
+	 *
+	 * @param symbol the symbol
+	 * @return the identifier of the symbol
+	 */
+	int idOf(long symbol) {
+
+		int mask = stamps.length - 1;
+		int slot = mix((int) (symbol ^ (symbol >>> 32))) & mask;
+		while (stamps[slot] == stamp) {
+			if (longKeys[slot] == symbol) {
+				return ids[slot];
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		stamps[slot] = stamp;
+		longKeys[slot] = symbol;
+		ids[slot] = size;
+
+		return size++;
+	}
+
+	/**
+	 * Returns the identifier of an object symbol, assigning a new identifier to unknown symbols.
+	 * Symbols are compared with {@link Object#equals(Object)}; <code>null</code> is a valid symbol.
+	 *
+	 * @param symbol the symbol
+	 * @return the identifier of the symbol
+	 */
+	int idOf(Object symbol) {
+
+		if (objectKeys == null || objectKeys.length != stamps.length) {
+			objectKeys = new Object[stamps.length];
+		}
+
+		int mask = stamps.length - 1;
+		int slot = mix(Objects.hashCode(symbol)) & mask;
+		while (stamps[slot] == stamp) {
+			if (Objects.equals(symbol, objectKeys[slot])) {
+				return ids[slot];
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		stamps[slot] = stamp;
+		objectKeys[slot] = symbol;
+		ids[slot] = size;
+
+		return size++;
+	}
+
+	private static int mix(int hash) {
+
+		hash *= 0x9E3779B1;
+
+		return hash ^ (hash >>> 16);
+	}
+}
@@ -0,0 +1,200 @@
+package ro.unibuc.nlp.cognates.metrics;
+
+import java.util.List;
+
+/**
+ * A pair of input sequences (token lists or strings) converted to arrays of dense symbol
+ * identifiers, and the kernels of the sequence metrics over these arrays. Interning the tokens
+ * once makes every comparison of the kernels an integer comparison, and gives constant-time
+ * access to the elements of linked lists.
+ *
+ * Each thread owns one instance, reused by all its computations: interning a new pair
+ * discards the previous one.
+ */
+final class TokenSequences {
+
+	private static final ThreadLocal<TokenSequences> sequences = ThreadLocal.withInitial(TokenSequences::new);
+
+	private final SymbolTable symbols = new SymbolTable();
+
+	private int[] first = new int[32];
+	private int[] second = new int[32];
+	private int length1;
+	private int length2;
+	private int size;
+
+	private int[] unigrams1 = new int[32];
+	private int[] unigrams2 = new int[32];
+	private final PatternMask mask = new PatternMask();
+
+	/**
+	 * Interns the tokens of the input lists, using the scratch instance of the current thread.
+	 *
+	 * @param a the first list
+	 * @param b the second list
+	 * @return the interned sequences
+	 */
+	static TokenSequences intern(List<?> a, List<?> b) {
+
+		TokenSequences sequences = TokenSequences.sequences.get().reset(a.size(), b.size());
+
+		int i = 0;
+		for (Object token : a) {
+			sequences.first[i++] = sequences.symbols.idOf(token);
+		}
+		int j = 0;
+		for (Object token : b) {
+			sequences.second[j++] = sequences.symbols.idOf(token);
+		}
+		sequences.size = sequences.symbols.size();
+
+		return sequences;
+	}
+
+	/**
+	 * Interns the characters of the input strings, using the scratch instance of the current thread.
+	 *
+	 * @param a the first string
+	 * @param b the second string
+	 * @return the interned sequences
+	 */
+	static TokenSequences intern(CharSequence a, CharSequence b) {
+
+		TokenSequences sequences = TokenSequences.sequences.get().reset(a.length(), b.length());
+
+		for (int i = 0; i < a.length(); i++) {
+			sequences.first[i] = sequences.symbols.idOf(a.charAt(i));
+		}
+		for (int j = 0; j < b.length(); j++) {
+			sequences.second[j] = sequences.symbols.idOf(b.charAt(j));
+		}
+		sequences.size = sequences.symbols.size();
+
+		return sequences;
+	}
+
+	private TokenSequences reset(int length1, int length2) {
+
+		symbols.reset(length1 + length2);
+		if (first.length < length1) {
+			first = new int[length1];
+		}
+		if (second.length < length2) {
+			second = new int[length2];
+		}
+		this.length1 = length1;
+		this.length2 = length2;
+
+		return this;
+	}
+
+	/**
+	 * Returns the identifiers of the first sequence; only the first {@link #length1()} are valid.
+	 */
+	int[] first() {
+
+		return first;
+	}
+
+	/**
+	 * Returns the identifiers of the second sequence; only the first {@link #length2()} are valid.
+	 */
+	int[] second() {
+
+		return second;
+	}
+
+	int length1() {
+
+		return length1;
+	}
+
+	int length2() {
+
+		return length2;
+	}
+
+	/**
+	 * Returns the number of distinct symbols; the identifiers are in [0, symbols).
+	 */
+	int symbols() {
+
+		return size;
+	}
+
+	/**
+	 * Replaces the symbols of both sequences by their n-grams: after the call, the identifier at
+	 * position i stands for the n symbols starting at position i, and equal n-grams have equal
+	 * identifiers. The n-grams are built one symbol at a time, by interning the pairs
+	 * (identifier of the (k-1)-gram, identifier of the next symbol).
+	 *
+	 * @param n the size of the n-grams
+	 */
+	void toNgrams(int n) {
+
+		if (n <= 0) {
+			length1 = 0;
+			length2 = 0;
+			size = 0;
+			return;
+		}
+
+		if (unigrams1.length < length1) {
+			unigrams1 = new int[length1];
+		}
+		if (unigrams2.length < length2) {
+			unigrams2 = new int[length2];
+		}
+		System.arraycopy(first, 0, unigrams1, 0, length1);
+		System.arraycopy(second, 0, unigrams2, 0, length2);
+
+		for (int k = 2; k <= n; k++) {
+			length1 = Math.max(0, length1 - 1);
+			length2 = Math.max(0, length2 - 1);
+			symbols.reset(length1 + length2);
+			for (int i = 0; i < length1; i++) {
+				first[i] = symbols.idOf((long) first[i] << 32 | unigrams1[i + k - 1]);
+			}
+			for (int j = 0; j < length2; j++) {
+				second[j] = symbols.idOf((long) second[j] << 32 | unigrams2[j + k - 1]);
+			}
+			size = symbols.size();
+		}
+	}
+
+	/**
+	 * Computes the edit distance between the sequences, with the bit-parallel kernels of
+	 * {@link BitParallelUtils} unless dynamic programming is required.
+	 *
+	 * @param bitParallel <code>true</code> if the bit-parallel algorithm may be used
+	 * @return the edit distance between the sequences
+	 */
+	int computeEdit(boolean bitParallel) {
+
+		if (!bitParallel) {
+			return Edit.computeDynamicEdit(first, length1, second, length2);
+		}
+
+		// the bit vectors encode the shorter sequence, the symbols of the other one are their own slots
+		if (length1 <= length2) {
+			return BitParallelUtils.computeEdit(mask.build(first, length1, size), second, length2);
+		}
+
+		return BitParallelUtils.computeEdit(mask.build(second, length2, size), first, length1);
+	}
+
+	/**
+	 * Computes the length of the longest common subsequence of the sequences, with the bit-parallel
+	 * kernels of {@link BitParallelUtils}.
+	 *
+	 * @return the length of the longest common subsequence
+	 */
+	int computeLcs() {
+
+		if (length1 <= length2) {
+			return BitParallelUtils.computeLcs(mask.build(first, length1, size), second, length2);
+		}
+
+		return BitParallelUtils.computeLcs(mask.build(second, length2, size), first, length1);
+	}
+}
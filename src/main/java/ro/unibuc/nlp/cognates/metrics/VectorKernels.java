@@ -0,0 +1,81 @@
+package ro.unibuc.nlp.cognates.metrics;
+
+/**
+ * Data-parallel kernels for the Hamming distance and the intersection of n-gram sets.
+ *
+ * This is the scalar implementation, used on Java 8. The multi-release jar built with the
+ * {@code multi-release} profile replaces this class on Java 17 and later with a version that uses
+ * the incubating Vector API when the {@code jdk.incubator.vector} module is enabled
+ * ({@code --add-modules jdk.incubator.vector}), and falls back to these loops otherwise.
+ */
+final class VectorKernels {
+
+	private VectorKernels() {
+	}
+
+	/**
+	 * Verifies if the kernels use the Vector API.
+	 *
+	 * @return <code>true</code> if the kernels are vectorized, <code>false</code> otherwise
+	 */
+	static boolean isVectorized() {
+
+		return false;
+	}
+
+	/**
+	 * Counts the positions at which two character sequences of the same length differ.
+	 *
+	 * @param a the first sequence
+	 * @param b the second sequence, at least as long as the first one
+	 * @return the number of mismatched positions
+	 */
+	static int countMismatches(CharSequence a, CharSequence b) {
+
+		int diff = 0;
+		for (int i = 0; i < a.length(); i++) {
+			if (a.charAt(i) != b.charAt(i)) {
+				diff++;
+			}
+		}
+
+		return diff;
+	}
+
+	/**
+	 * Counts the values shared by two sorted arrays of unique values.
+	 *
+	 * @param a the first array
+	 * @param aSize the number of values of the first array
+	 * @param b the second array
+	 * @param bSize the number of values of the second array
+	 * @return the number of common values
+	 */
+	static int countCommon(long[] a, int aSize, long[] b, int bSize) {
+
+		return countCommon(a, 0, aSize, b, 0, bSize);
+	}
+
+	/**
+	 * Merges two sorted arrays of unique values from the given positions, counting the common values.
+	 */
+	static int countCommon(long[] a, int i, int aSize, long[] b, int j, int bSize) {
+
+		int common = 0;
+		while (i < aSize && j < bSize) {
+			if (a[i] < b[j]) {
+				i++;
+			}
+			else if (a[i] > b[j]) {
+				j++;
+			}
+			else {
+				common++;
+				i++;
+				j++;
+			}
+		}
+
+		return common;
+	}
+}
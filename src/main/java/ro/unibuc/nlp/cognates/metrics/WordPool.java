@@ -0,0 +1,338 @@
+package ro.unibuc.nlp.cognates.metrics;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+
+import org.apache.log4j.Logger;
+
+import ro.unibuc.nlp.cognates.utils.FileUtils;
+
+/**
+ * An immutable list of words stored off the heap, for lexicons too large to be kept as
+ * {@link String} objects.
+ *
+ * The characters of all the words are stored contiguously as UTF-16 code units in a direct or
+ * memory-mapped buffer, and the words are delimited by a table of offsets stored in the same way.
+ * The metrics compare the words of a pool through {@link Metric#computeDistance(WordPool, int, WordPool, int)},
+ * reading the characters in place. A pool can be shared by several threads.
+ *
+ * File format: the number of words (a 32-bit integer), the offsets of the words followed by the
+ * total number of characters (32-bit integers), then the characters (16-bit code units), all
+ * little-endian.
+ */
+public final class WordPool {
+
+	private static final Logger logger = Logger.getLogger(WordPool.class);
+
+	/**
+	 * The size of the file header, in bytes.
+	 */
+	public static final int HEADER_SIZE = 4;
+
+	private final int size;
+	private final IntBuffer offsets;
+	private final CharBuffer characters;
+
+	private WordPool(int size, IntBuffer offsets, CharBuffer characters) {
+
+		this.size = size;
+		this.offsets = offsets;
+		this.characters = characters;
+	}
+
+	/**
+	 * Copies the given words into a new pool, allocated off the heap.
+	 *
+	 * @param words the words; they are traversed twice
+	 * @return the pool
+	 * @throws IllegalArgumentException
+	 */
+	public static WordPool of(Iterable<? extends CharSequence> words) throws IllegalArgumentException {
+
+		MetricUtils.validate(words);
+
+		int size = 0;
+		long length = 0;
+		for (CharSequence word : words) {
+			MetricUtils.validate(word);
+			size++;
+			length += word.length();
+		}
+
+		WordPool pool = allocate(size, length);
+		int index = 0;
+		int offset = 0;
+		for (CharSequence word : words) {
+			pool.offsets.put(index++, offset);
+			for (int i = 0; i < word.length(); i++) {
+				pool.characters.put(offset++, word.charAt(i));
+			}
+		}
+		pool.offsets.put(size, offset);
+
+		return pool;
+	}
+
+	/**
+	 * Loads the words of a text file (one word per line) into a new pool, allocated off the heap.
+	 * The file is read twice, so that no line is kept on the heap.
+	 *
+	 * @param path the path of the text file
+	 * @return the pool
+	 * @throws IllegalArgumentException
+	 * @throws IOException
+	 */
+	public static WordPool load(String path) throws IllegalArgumentException, IOException {
+
+		MetricUtils.validate(path);
+
+		int size = 0;
+		long length = 0;
+		try (BufferedReader reader = FileUtils.getReader(path)) {
+			for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+				size++;
+				length += line.length();
+			}
+		}
+
+		WordPool pool = allocate(size, length);
+		int index = 0;
+		int offset = 0;
+		try (BufferedReader reader = FileUtils.getReader(path)) {
+			for (String line = reader.readLine(); line != null && index < size; line = reader.readLine()) {
+				if (offset + line.length() > length) {
+					break;
+				}
+				pool.offsets.put(index++, offset);
+				for (int i = 0; i < line.length(); i++) {
+					pool.characters.put(offset++, line.charAt(i));
+				}
+			}
+		}
+		if (index < size) {
+			throw new IOException("The file " + path + " changed while it was loaded.");
+		}
+		pool.offsets.put(size, offset);
+
+		if (logger.isDebugEnabled())
+			logger.debug("Loaded " + size + " words (" + length + " characters) from " + path);
+
+		return pool;
+	}
+
+	/**
+	 * Maps a pool file written by {@link #write(String)}, without copying it.
+	 *
+	 * @param path the path of the pool file
+	 * @return the pool
+	 * @throws IllegalArgumentException
+	 * @throws IOException
+	 */
+	public static WordPool map(String path) throws IllegalArgumentException, IOException {
+
+		MetricUtils.validate(path);
+
+		try (RandomAccessFile file = new RandomAccessFile(path, "r")) {
+			FileChannel channel = file.getChannel();
+			long fileSize = channel.size();
+			if (fileSize < HEADER_SIZE) {
+				throw new IOException("Invalid word pool file " + path);
+			}
+
+			// the sections are mapped separately, each one fitting in a buffer
+			int size = map(channel, FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE).getInt(0);
+			long offsetsSize = 4L * (size + 1);
+			if (size < 0 || size >= Integer.MAX_VALUE / 4 || HEADER_SIZE + offsetsSize > fileSize) {
+				throw new IOException("Invalid word pool file " + path);
+			}
+			IntBuffer offsets = map(channel, FileChannel.MapMode.READ_ONLY, HEADER_SIZE, offsetsSize).asIntBuffer();
+
+			// the words must lie in the file, one after the other
+			int start = 0;
+			for (int i = 0; i <= size; i++) {
+				int end = offsets.get(i);
+				if (end < start) {
+					throw new IOException("Invalid word pool file " + path);
+				}
+				start = end;
+			}
+			int length = offsets.get(size);
+			if (length > Integer.MAX_VALUE / 2 || HEADER_SIZE + offsetsSize + 2L * length > fileSize) {
+				throw new IOException("Invalid word pool file " + path);
+			}
+			CharBuffer characters = map(channel, FileChannel.MapMode.READ_ONLY, HEADER_SIZE + offsetsSize, 2L * length)
+					.asCharBuffer();
+
+			return new WordPool(size, offsets, characters);
+		}
+	}
+
+	/**
+	 * Writes the pool to a file, in the format read by {@link #map(String)}.
+	 *
+	 * @param path the path of the pool file
+	 * @throws IllegalArgumentException
+	 * @throws IOException
+	 */
+	public void write(String path) throws IllegalArgumentException, IOException {
+
+		MetricUtils.validate(path);
+
+		int length = offsets.get(size);
+		long fileSize = HEADER_SIZE + 4L * (size + 1) + 2L * length;
+
+		try (RandomAccessFile file = new RandomAccessFile(path, "rw")) {
+			file.setLength(fileSize);
+			FileChannel channel = file.getChannel();
+
+			map(channel, FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE).putInt(0, size);
+			IntBuffer fileOffsets = map(channel, FileChannel.MapMode.READ_WRITE, HEADER_SIZE, 4L * (size + 1))
+					.asIntBuffer();
+			for (int i = 0; i <= size; i++) {
+				fileOffsets.put(i, offsets.get(i));
+			}
+			CharBuffer fileCharacters = map(channel, FileChannel.MapMode.READ_WRITE, HEADER_SIZE + 4L * (size + 1),
+					2L * length).asCharBuffer();
+			for (int i = 0; i < length; i++) {
+				fileCharacters.put(i, characters.get(i));
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of words of the pool.
+	 *
+	 * @return the number of words
+	 */
+	public int size() {
+
+		return size;
+	}
+
+	/**
+	 * Returns the length of a word.
+	 *
+	 * @param index the index of the word
+	 * @return the number of characters of the word
+	 * @throws IndexOutOfBoundsException
+	 */
+	public int length(int index) throws IndexOutOfBoundsException {
+
+		checkIndex(index);
+
+		return offsets.get(index + 1) - offsets.get(index);
+	}
+
+	/**
+	 * Returns a view of a word, reading its characters in the pool.
+	 *
+	 * @param index the index of the word
+	 * @return the characters of the word
+	 * @throws IndexOutOfBoundsException
+	 */
+	public CharSequence view(int index) throws IndexOutOfBoundsException {
+
+		checkIndex(index);
+
+		return new Word(offsets.get(index), offsets.get(index + 1));
+	}
+
+	/**
+	 * Copies a word to a new string.
+	 *
+	 * @param index the index of the word
+	 * @return the word
+	 * @throws IndexOutOfBoundsException
+	 */
+	public String get(int index) throws IndexOutOfBoundsException {
+
+		return view(index).toString();
+	}
+
+	private void checkIndex(int index) {
+
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Invalid word " + index + " for a pool of " + size + " words.");
+		}
+	}
+
+	/**
+	 * Maps a section of a pool file. The pools are allocated so that each of their sections fits
+	 * in a single mapping, even when the whole file does not.
+	 */
+	private static ByteBuffer map(FileChannel channel, FileChannel.MapMode mode, long position, long size)
+			throws IOException {
+
+		return channel.map(mode, position, size).order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	private static WordPool allocate(int size, long length) {
+
+		if (size >= Integer.MAX_VALUE / 4 || length > Integer.MAX_VALUE / 2) {
+			throw new IllegalArgumentException("Too many words or characters for a word pool: " + size + ", " + length);
+		}
+
+		IntBuffer offsets = ByteBuffer.allocateDirect(4 * (size + 1)).order(ByteOrder.nativeOrder()).asIntBuffer();
+		CharBuffer characters = ByteBuffer.allocateDirect(2 * (int) length).order(ByteOrder.nativeOrder()).asCharBuffer();
+
+		return new WordPool(size, offsets, characters);
+	}
+
+	/**
+	 * The characters of a word, read in place.
+	 */
+	private final class Word implements CharSequence {
+
+		private final int start;
+		private final int end;
+
+		private Word(int start, int end) {
+
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		public int length() {
+
+			return end - start;
+		}
+
+		@Override
+		public char charAt(int index) {
+
+			if (index < 0 || index >= end - start) {
+				throw new IndexOutOfBoundsException("index: " + index + ", length: " + (end - start));
+			}
+
+			return characters.get(start + index);
+		}
+
+		@Override
+		public CharSequence subSequence(int from, int to) {
+
+			if (from < 0 || to > end - start || from > to) {
+				throw new IndexOutOfBoundsException("from: " + from + ", to: " + to + ", length: " + (end - start));
+			}
+
+			return new Word(start + from, start + to);
+		}
+
+		@Override
+		public String toString() {
+
+			char[] word = new char[end - start];
+			for (int i = 0; i < word.length; i++) {
+				word[i] = characters.get(start + i);
+			}
+
+			return new String(word);
+		}
+	}
+}
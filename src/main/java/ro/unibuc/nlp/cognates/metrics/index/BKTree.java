@@ -0,0 +1,369 @@
+package ro.unibuc.nlp.cognates.metrics.index;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.apache.log4j.Logger;
+
+import ro.unibuc.nlp.cognates.etymology.model.Lemma;
+import ro.unibuc.nlp.cognates.etymology.model.Lemmas;
+import ro.unibuc.nlp.cognates.metrics.Edit;
+import ro.unibuc.nlp.cognates.metrics.MetricUtils;
+
+/**
+ * BK-tree over a lexicon, indexing the words by their unnormalized edit distance. Each child of a
+ * node is labeled with its distance to the node, and the triangle inequality restricts a query
+ * within radius k to the children labeled d - k ... d + k, where d is the distance between the
+ * query and the node. Distances are computed with a bound, so that the nodes too far from the
+ * query are abandoned early.
+ *
+ * The nodes are stored in flat arrays (first child / next sibling), so the tree serializes
+ * compactly and can be saved and loaded instead of being rebuilt on every run.
+ */
+public class BKTree implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final Logger logger = Logger.getLogger(BKTree.class);
+
+	private static final Edit edit = new Edit();
+
+	private static final int NONE = -1;
+
+	private String[] words = new String[16];
+	private int[] labels = new int[16];
+	private int[] firstChild = new int[16];
+	private int[] nextSibling = new int[16];
+	private int[] maxLabel = new int[16];
+	private int size;
+
+	/**
+	 * A word of the index and its distance to a query.
+	 */
+	public static final class Match implements Comparable<Match> {
+
+		private final String word;
+		private final int distance;
+
+		Match(String word, int distance) {
+
+			this.word = word;
+			this.distance = distance;
+		}
+
+		public String getWord() {
+
+			return word;
+		}
+
+		public int getDistance() {
+
+			return distance;
+		}
+
+		@Override
+		public int compareTo(Match other) {
+
+			return distance != other.distance ? Integer.compare(distance, other.distance) : word.compareTo(other.word);
+		}
+
+		@Override
+		public String toString() {
+
+			return word + "(" + distance + ")";
+		}
+	}
+
+	/**
+	 * Creates an empty index.
+	 */
+	public BKTree() {
+	}
+
+	/**
+	 * Creates an index of the given words.
+	 *
+	 * @param words the words
+	 * @throws IllegalArgumentException
+	 */
+	public BKTree(Collection<String> words) throws IllegalArgumentException {
+
+		MetricUtils.validate(words);
+
+		for (String word : words) {
+			add(word);
+		}
+	}
+
+	/**
+	 * Creates an index of the lowercase values of the given lemmas, the keys used by the
+	 * {@link ro.unibuc.nlp.cognates.etymology.CognateMatcher}.
+	 *
+	 * @param lemmas the dataset of lemmas
+	 * @return the index
+	 * @throws IllegalArgumentException
+	 */
+	public static BKTree build(Lemmas lemmas) throws IllegalArgumentException {
+
+		MetricUtils.validate(lemmas);
+
+		BKTree tree = new BKTree();
+		for (Lemma lemma : lemmas.getLemma()) {
+			if (lemma.getValue() != null) {
+				tree.add(lemma.getValue().toLowerCase());
+			}
+		}
+
+		logger.info("Indexed " + tree.size() + " lemmas");
+
+		return tree;
+	}
+
+	/**
+	 * Adds a word to the index.
+	 *
+	 * @param word the word
+	 * @return <code>true</code> if the word was added, <code>false</code> if it was already indexed
+	 * @throws IllegalArgumentException
+	 */
+	public boolean add(String word) throws IllegalArgumentException {
+
+		MetricUtils.validate(word);
+
+		if (size == 0) {
+			append(word, 0);
+			return true;
+		}
+
+		int node = 0;
+		while (true) {
+			int distance = (int) edit.computeUnnormalizedDistance(word, words[node]);
+			if (distance == 0) {
+				return false;
+			}
+
+			int child = firstChild[node];
+			while (child != NONE && labels[child] != distance) {
+				child = nextSibling[child];
+			}
+
+			if (child == NONE) {
+				child = append(word, distance);
+				nextSibling[child] = firstChild[node];
+				firstChild[node] = child;
+				maxLabel[node] = Math.max(maxLabel[node], distance);
+				return true;
+			}
+
+			node = child;
+		}
+	}
+
+	/**
+	 * Returns the number of indexed words.
+	 *
+	 * @return the number of indexed words
+	 */
+	public int size() {
+
+		return size;
+	}
+
+	/**
+	 * Returns the indexed words within the given edit distance of a word.
+	 *
+	 * @param word the query word
+	 * @param k the maximum edit distance
+	 * @return the matches, sorted by distance and then alphabetically
+	 * @throws IllegalArgumentException
+	 */
+	public List<Match> radiusSearch(String word, int k) throws IllegalArgumentException {
+
+		MetricUtils.validate(word);
+
+		if (k < 0) {
+			throw new IllegalArgumentException("The radius cannot be negative.");
+		}
+
+		List<Match> matches = new ArrayList<Match>();
+		if (size == 0) {
+			return matches;
+		}
+
+		int[] stack = new int[16];
+		int top = 0;
+		stack[top++] = 0;
+
+		while (top > 0) {
+			int node = stack[--top];
+
+			// beyond k + maxLabel, neither the node nor its children can match
+			int bound = k > Integer.MAX_VALUE - maxLabel[node] ? Integer.MAX_VALUE : k + maxLabel[node];
+			int distance = edit.computeDistanceBounded(word, words[node], bound);
+			if (distance == Edit.DISTANCE_EXCEEDED) {
+				continue;
+			}
+
+			if (distance <= k) {
+				matches.add(new Match(words[node], distance));
+			}
+
+			for (int child = firstChild[node]; child != NONE; child = nextSibling[child]) {
+				if (Math.abs(labels[child] - distance) <= k) {
+					if (top == stack.length) {
+						stack = Arrays.copyOf(stack, 2 * top);
+					}
+					stack[top++] = child;
+				}
+			}
+		}
+
+		Collections.sort(matches);
+
+		return matches;
+	}
+
+	/**
+	 * Returns the indexed words closest to a word. Among the words at the same distance as the
+	 * last match, the alphabetically first ones are returned.
+	 *
+	 * @param word the query word
+	 * @param topK the maximum number of matches
+	 * @return the matches, sorted by distance and then alphabetically
+	 * @throws IllegalArgumentException
+	 */
+	public List<Match> nearest(String word, int topK) throws IllegalArgumentException {
+
+		MetricUtils.validate(word);
+
+		if (topK < 0) {
+			throw new IllegalArgumentException("The number of matches cannot be negative.");
+		}
+
+		// the worst of the best matches found so far is on top
+		PriorityQueue<Match> best = new PriorityQueue<Match>(Math.max(topK, 1), Collections.reverseOrder());
+		if (size == 0 || topK == 0) {
+			return new ArrayList<Match>();
+		}
+
+		int[] stack = new int[16];
+		int top = 0;
+		stack[top++] = 0;
+
+		while (top > 0) {
+			int node = stack[--top];
+
+			// the search radius shrinks as better matches are found
+			int radius = best.size() < topK ? Integer.MAX_VALUE : best.peek().getDistance();
+			int distance = radius == Integer.MAX_VALUE
+					? (int) edit.computeUnnormalizedDistance(word, words[node])
+					: edit.computeDistanceBounded(word, words[node], radius + maxLabel[node]);
+			if (distance == Edit.DISTANCE_EXCEEDED) {
+				continue;
+			}
+
+			if (distance <= radius) {
+				Match match = new Match(words[node], distance);
+				if (best.size() < topK) {
+					best.add(match);
+				}
+				else if (match.compareTo(best.peek()) < 0) {
+					best.poll();
+					best.add(match);
+				}
+				radius = best.size() < topK ? Integer.MAX_VALUE : best.peek().getDistance();
+			}
+
+			for (int child = firstChild[node]; child != NONE; child = nextSibling[child]) {
+				if (radius == Integer.MAX_VALUE || Math.abs(labels[child] - distance) <= radius) {
+					if (top == stack.length) {
+						stack = Arrays.copyOf(stack, 2 * top);
+					}
+					stack[top++] = child;
+				}
+			}
+		}
+
+		List<Match> matches = new ArrayList<Match>(best);
+		Collections.sort(matches);
+
+		return matches;
+	}
+
+	/**
+	 * Saves the index to a file.
+	 *
+	 * @param path the location of the file
+	 * @throws IOException
+	 */
+	public void write(String path) throws IOException {
+
+		logger.info("Saving the index of " + size + " words to " + path);
+
+		trim();
+		try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(path)))) {
+			out.writeObject(this);
+		}
+	}
+
+	/**
+	 * Loads an index saved with {@link #write(String)}.
+	 *
+	 * @param path the location of the file
+	 * @return the index
+	 * @throws IOException
+	 */
+	public static BKTree read(String path) throws IOException {
+
+		logger.info("Loading the index from " + path);
+
+		try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(path)))) {
+			return (BKTree) in.readObject();
+		}
+		catch (ClassNotFoundException | ClassCastException e) {
+			throw new IOException("Invalid index file " + path, e);
+		}
+	}
+
+	private int append(String word, int label) {
+
+		if (size == words.length) {
+			int capacity = 2 * size;
+			words = Arrays.copyOf(words, capacity);
+			labels = Arrays.copyOf(labels, capacity);
+			firstChild = Arrays.copyOf(firstChild, capacity);
+			nextSibling = Arrays.copyOf(nextSibling, capacity);
+			maxLabel = Arrays.copyOf(maxLabel, capacity);
+		}
+
+		words[size] = word;
+		labels[size] = label;
+		firstChild[size] = NONE;
+		nextSibling[size] = NONE;
+		maxLabel[size] = 0;
+
+		return size++;
+	}
+
+	private void trim() {
+
+		int capacity = Math.max(size, 1);
+		words = Arrays.copyOf(words, capacity);
+		labels = Arrays.copyOf(labels, capacity);
+		firstChild = Arrays.copyOf(firstChild, capacity);
+		nextSibling = Arrays.copyOf(nextSibling, capacity);
+		maxLabel = Arrays.copyOf(maxLabel, capacity);
+	}
+}
@@ -1,6 +1,6 @@
 package ro.unibuc.nlp.cognates.production;
 
-import ro.unibuc.nlp.cognates.detection.aligners.Aligner;
+import ro.unibuc.nlp.cognates.detection.aligners.BatchAligner;
 import ro.unibuc.nlp.cognates.detection.aligners.NeedlemanWunsch;
 import ro.unibuc.nlp.cognates.utils.FileUtils;
 
@@ -226,22 +226,7 @@ public class Reconstruction {
 	}
 	
 	public static void alignWords(String inFile, String outFile) throws IOException
-
 	{
-		List<String> lines = FileUtils.readLines(inFile);
-		String separator = "\\s+";
-		BufferedWriter out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(new File(outFile)), Charset.forName("UTF8")));
-
-		
-		for (String line : lines)
-
-		{
-			String left = line.split(separator)[0];
-			String right = line.split(separator)[1];
-			Aligner nw = new NeedlemanWunsch();
-			out.write(nw.align(left, right) + "\n");
-		}
-		
-		out.close();
+		new BatchAligner(new NeedlemanWunsch()).alignFiles(inFile, outFile, "\\s+", "_", false);
 	}
 }
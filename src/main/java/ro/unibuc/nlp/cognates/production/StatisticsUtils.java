@@ -12,6 +12,10 @@ import java.util.Map.Entry;
 import java.util.TreeMap;
 
 public class StatisticsUtils {
+	
+	// the metrics are stateless, so a single instance serves all the lines
+	private static final Edit edit = new Edit();
+	
 	// format word1_word2 ; I must remove - characters, because the words are aligned
 	public static void printStatistics(String inFile) throws IOException {
 		List<String> lines = FileUtils.readLines(inFile);
@@ -27,7 +31,7 @@ public class StatisticsUtils {
 			
 			leftSum += split[0].length();
 			rightSum += split[1].length();
-			editDistance += new Edit().computeDistance(split[0], split[1]);
+			editDistance += edit.computeDistance(split[0], split[1]);
 		}
 		
 		System.out.println(inFile);
@@ -56,7 +60,7 @@ public class StatisticsUtils {
 			String gold = split[1];
 			String produced = split[2].split(" \\| ")[0].trim();
 			
-			double editDistance = new Edit().computeDistance(gold, produced);
+			double editDistance = edit.computeDistance(gold, produced);
 			BigDecimal bd = new BigDecimal(editDistance).setScale(1, RoundingMode.HALF_UP);
 			map.put(bd.doubleValue(), map.get(bd.doubleValue()) == null ? 1 : map.get(bd.doubleValue()) + 1);
 		}
@@ -131,6 +131,31 @@ public class DiacriticUtils {
 
 	}
 
+	/**
+	 * The characters without diacritics, plus one (0 for the characters not looked up yet). The
+	 * table is filled lazily; concurrent writes are harmless, since they store the same value.
+	 */
+	private static final int[] characters = new int[Character.MAX_VALUE + 1];
+
+	/**
+	 * Removes the diacritics from the input character. The result of each character is computed
+	 * once, by {@link #removeDiacritics(String)}, then looked up in a table.
+	 * 
+	 * @param c the input character
+	 * @return the input character without diacritics
+	 */
+	public static char removeDiacritics(char c) {
+		
+		int removed = characters[c];
+		if (removed == 0) {
+			String string = removeDiacritics(String.valueOf(c));
+			removed = (string.length() == 1 ? string.charAt(0) : c) + 1;
+			characters[c] = removed;
+		}
+		
+		return (char) (removed - 1);
+	}
+
 	/**
 	 * Removes the diacritics from the input string
 	 * 
@@ -0,0 +1,175 @@
+package ro.unibuc.nlp.cognates.metrics;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Data-parallel kernels for the Hamming distance and the intersection of n-gram sets.
+ *
+ * This is the Java 17 version of the class, packaged in the multi-release jar. The kernels use the
+ * incubating Vector API when the {@code jdk.incubator.vector} module is enabled
+ * ({@code --add-modules jdk.incubator.vector}); otherwise, and for inputs shorter than a vector,
+ * they run the scalar loops of the Java 8 version.
+ */
+final class VectorKernels {
+
+	/**
+	 * Whether the Vector API can be used; the vector classes are only loaded when it can.
+	 */
+	private static final boolean VECTORIZED = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+	private VectorKernels() {
+	}
+
+	/**
+	 * Verifies if the kernels use the Vector API.
+	 *
+	 * @return <code>true</code> if the kernels are vectorized, <code>false</code> otherwise
+	 */
+	static boolean isVectorized() {
+
+		return VECTORIZED;
+	}
+
+	/**
+	 * Counts the positions at which two character sequences of the same length differ.
+	 *
+	 * @param a the first sequence
+	 * @param b the second sequence, at least as long as the first one
+	 * @return the number of mismatched positions
+	 */
+	static int countMismatches(CharSequence a, CharSequence b) {
+
+		if (VECTORIZED && a instanceof String && b instanceof String && a.length() >= Simd.CHAR_LANES) {
+			return Simd.countMismatches((String) a, (String) b);
+		}
+
+		int diff = 0;
+		for (int i = 0; i < a.length(); i++) {
+			if (a.charAt(i) != b.charAt(i)) {
+				diff++;
+			}
+		}
+
+		return diff;
+	}
+
+	/**
+	 * Counts the values shared by two sorted arrays of unique values.
+	 *
+	 * @param a the first array
+	 * @param aSize the number of values of the first array
+	 * @param b the second array
+	 * @param bSize the number of values of the second array
+	 * @return the number of common values
+	 */
+	static int countCommon(long[] a, int aSize, long[] b, int bSize) {
+
+		if (VECTORIZED && aSize >= Simd.CODE_LANES && bSize >= Simd.CODE_LANES) {
+			return Simd.countCommon(a, aSize, b, bSize);
+		}
+
+		return countCommon(a, 0, aSize, b, 0, bSize);
+	}
+
+	/**
+	 * Merges two sorted arrays of unique values from the given positions, counting the common values.
+	 */
+	static int countCommon(long[] a, int i, int aSize, long[] b, int j, int bSize) {
+
+		int common = 0;
+		while (i < aSize && j < bSize) {
+			if (a[i] < b[j]) {
+				i++;
+			}
+			else if (a[i] > b[j]) {
+				j++;
+			}
+			else {
+				common++;
+				i++;
+				j++;
+			}
+		}
+
+		return common;
+	}
+
+	/**
+	 * The vectorized kernels, in a class of their own so that the Vector API is not linked when
+	 * its module is missing.
+	 */
+	private static final class Simd {
+
+		private static final VectorSpecies<Short> CHARS = ShortVector.SPECIES_PREFERRED;
+		private static final VectorSpecies<Long> CODES = LongVector.SPECIES_256;
+
+		private static final int CHAR_LANES = CHARS.length();
+		private static final int CODE_LANES = CODES.length();
+
+		private static final ThreadLocal<char[][]> buffers = ThreadLocal.withInitial(() -> new char[2][64]);
+
+		/**
+		 * Compares the strings a vector of characters at a time, after copying them to buffers
+		 * owned by the current thread.
+		 */
+		private static int countMismatches(String a, String b) {
+
+			int length = a.length();
+			char[][] chars = buffers.get();
+			if (chars[0].length < length) {
+				chars[0] = new char[length];
+				chars[1] = new char[length];
+			}
+			a.getChars(0, length, chars[0], 0);
+			b.getChars(0, length, chars[1], 0);
+
+			int diff = 0;
+			int i = 0;
+			for (int bound = CHARS.loopBound(length); i < bound; i += CHAR_LANES) {
+				ShortVector aChars = ShortVector.fromCharArray(CHARS, chars[0], i);
+				ShortVector bChars = ShortVector.fromCharArray(CHARS, chars[1], i);
+				diff += aChars.compare(VectorOperators.NE, bChars).trueCount();
+			}
+			for (; i < length; i++) {
+				if (chars[0][i] != chars[1][i]) {
+					diff++;
+				}
+			}
+
+			return diff;
+		}
+
+		/**
+		 * Intersects the arrays a block of values at a time: each value of a block of the second
+		 * array is compared to a whole block of the first one, and the block that ends with the
+		 * smaller value is passed, since its values cannot occur further in the other array.
+		 */
+		private static int countCommon(long[] a, int aSize, long[] b, int bSize) {
+
+			int common = 0;
+			int i = 0;
+			int j = 0;
+			while (i + CODE_LANES <= aSize && j + CODE_LANES <= bSize) {
+				LongVector block = LongVector.fromArray(CODES, a, i);
+				for (int k = 0; k < CODE_LANES; k++) {
+					common += block.compare(VectorOperators.EQ, b[j + k]).trueCount();
+				}
+
+				long aLast = a[i + CODE_LANES - 1];
+				long bLast = b[j + CODE_LANES - 1];
+				if (aLast <= bLast) {
+					i += CODE_LANES;
+				}
+				if (bLast <= aLast) {
+					j += CODE_LANES;
+				}
+			}
+
+			// the values left in both arrays have not been compared yet
+			return common + VectorKernels.countCommon(a, i, aSize, b, j, bSize);
+		}
+	}
+}
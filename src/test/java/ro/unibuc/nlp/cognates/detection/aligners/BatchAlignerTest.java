@@ -0,0 +1,108 @@
+package ro.unibuc.nlp.cognates.detection.aligners;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import ro.unibuc.nlp.cognates.utils.FileUtils;
+import ro.unibuc.nlp.cognates.utils.TestUtils;
+
+public class BatchAlignerTest {
+
+	private static final String ALPHABET = "abcde\u0103";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testAlignFiles() throws Exception {
+
+		Random random = new Random(43);
+		List<String> lines = new ArrayList<String>();
+		for (int i = 0; i < 1000; i++) {
+			lines.add(TestUtils.randomWord(random, 1 + random.nextInt(10), ALPHABET) + "____"
+					  + TestUtils.randomWord(random, 1 + random.nextInt(10), ALPHABET));
+		}
+		File in = folder.newFile("pairs.txt");
+		File out = folder.newFile("aligned.txt");
+		FileUtils.writeLines(in.getPath(), lines);
+
+		new NeedlemanWunsch().alignFiles(in.getPath(), out.getPath(), "____");
+
+		// the chunks are written in the order of the input
+		NeedlemanWunsch aligner = new NeedlemanWunsch();
+		List<String> aligned = FileUtils.readLines(out.getPath());
+		Assert.assertEquals(lines.size(), aligned.size());
+		for (int i = 0; i < lines.size(); i++) {
+			String[] pair = lines.get(i).split("____");
+			Assert.assertEquals(aligner.align(pair[0], pair[1], "____"), aligned.get(i));
+		}
+	}
+
+	@Test
+	public void testAlign() throws Exception {
+
+		ForkJoinPool pool = new ForkJoinPool(3);
+		try {
+			// more chunks than the window of the reorder buffer
+			BatchAligner batch = new BatchAligner(new Hirschberg(), pool, 2);
+			StringBuilder input = new StringBuilder();
+			for (int i = 0; i < 100; i++) {
+				input.append("exhaustiv   esaustivo\nlapte lait\n");
+			}
+			StringWriter output = new StringWriter();
+
+			Assert.assertEquals(200, batch.align(new BufferedReader(new StringReader(input.toString())), output, "\\s+", "_", false));
+
+			String[] aligned = output.toString().split("\n");
+			Assert.assertEquals(200, aligned.length);
+			for (int i = 0; i < aligned.length; i += 2) {
+				Assert.assertEquals("exhaustiv-_es-austivo", aligned[i]);
+				Assert.assertEquals("lapte_lait-", aligned[i + 1]);
+			}
+		}
+		finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testInvalidArguments() throws Exception {
+
+		BatchAligner batch = new BatchAligner(new NeedlemanWunsch());
+
+		try {
+			batch.align(new BufferedReader(new StringReader("lapte lait\nlapte\n")), new StringWriter(), " ", "_", true);
+			Assert.fail("Expecting an exception for illegal arguments.");
+		}
+		catch (Exception e) {
+			Assert.assertTrue(e instanceof IllegalArgumentException);
+		}
+
+		try {
+			new BatchAligner(new NeedlemanWunsch(), ForkJoinPool.commonPool(), 0);
+			Assert.fail("Expecting an exception for illegal arguments.");
+		}
+		catch (Exception e) {
+			Assert.assertTrue(e instanceof IllegalArgumentException);
+		}
+
+		try {
+			new BatchAligner(null);
+			Assert.fail("Expecting an exception for illegal arguments.");
+		}
+		catch (Exception e) {
+			Assert.assertTrue(e instanceof IllegalArgumentException);
+		}
+	}
+}
@@ -0,0 +1,89 @@
+package ro.unibuc.nlp.cognates.detection.aligners;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import ro.unibuc.nlp.cognates.utils.TestUtils;
+
+public class HirschbergTest {
+
+	@Test
+	public void testAlign() {
+
+		Hirschberg aligner = new Hirschberg();
+
+		Assert.assertEquals("exhaustiv-_es-austivo", aligner.align("exhaustiv", "esaustivo"));
+		Assert.assertEquals(3, aligner.getScore("exhaustiv", "esaustivo"));
+		Assert.assertEquals(3, aligner.getAlignment("exhaustiv", "esaustivo").getScore());
+		Assert.assertEquals("_", aligner.align("", ""));
+		Assert.assertEquals("---|abc", aligner.align("", "abc", "|"));
+		Assert.assertEquals("abc|---", aligner.align("abc", "", "|"));
+	}
+
+	@Test
+	public void testSameAlignments() {
+
+		Random random = new Random(13);
+		SubstitutionCosts[] costs = {new CostTable(), new CostTable(1, 2), new CostTable(3, 1),
+									 (c1, c2) -> c1 == c2 ? 0 : c1 == '\0' || c2 == '\0' ? 2 : 1 + (c1 + c2) % 3};
+
+		// small alphabets make many ties, which must be broken as the full matrix does
+		for (SubstitutionCosts cost : costs) {
+			NeedlemanWunsch expected = new NeedlemanWunsch(cost);
+			Hirschberg actual = new Hirschberg(cost);
+			for (int k = 0; k < 300; k++) {
+				String a = TestUtils.randomWord(random, random.nextInt(k < 250 ? 12 : 120), "abăc");
+				String b = TestUtils.randomWord(random, random.nextInt(k < 250 ? 12 : 120), "abăc");
+
+				Alignment alignment = actual.getAlignment(a, b);
+				Assert.assertEquals(expected.align(a, b), alignment.toString());
+				Assert.assertEquals(expected.getScore(a, b), alignment.getScore());
+				Assert.assertEquals(expected.getScore(a, b), actual.getScore(a, b));
+			}
+		}
+	}
+
+	@Test
+	public void testLongSequences() {
+
+		// the blocks are split a dozen times
+		Random random = new Random(19);
+		String a = TestUtils.randomWord(random, 3000, "acgt");
+		String b = TestUtils.randomWord(random, 3000, "acgt");
+
+		Alignment alignment = new Hirschberg().getAlignment(a, b);
+
+		Assert.assertEquals(a, alignment.getFirst().replace("-", ""));
+		Assert.assertEquals(b, alignment.getSecond().replace("-", ""));
+		Assert.assertEquals(new Hirschberg().getScore(a, b), alignment.getScore());
+
+		// a traceback along the first column splits every block at its left edge
+		String c = TestUtils.randomWord(random, 2000, "ac");
+		String d = TestUtils.randomWord(random, 20, "ac");
+		Assert.assertEquals(new NeedlemanWunsch().align(c, d), new Hirschberg().align(c, d));
+		Assert.assertEquals(new NeedlemanWunsch().align(d, c), new Hirschberg().align(d, c));
+		Assert.assertEquals(new NeedlemanWunsch().align(c, ""), new Hirschberg().align(c, ""));
+	}
+
+	@Test
+	public void testInvalidArguments() {
+
+		try {
+			new Hirschberg().getAlignment("test", null);
+			Assert.fail("Expecting an exception for illegal arguments.");
+		}
+		catch (Exception e) {
+			Assert.assertTrue(e instanceof IllegalArgumentException);
+		}
+
+		try {
+			new Hirschberg(null);
+			Assert.fail("Expecting an exception for illegal arguments.");
+		}
+		catch (Exception e) {
+			Assert.assertTrue(e instanceof IllegalArgumentException);
+		}
+	}
+}
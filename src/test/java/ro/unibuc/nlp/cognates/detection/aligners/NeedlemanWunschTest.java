@@ -0,0 +1,167 @@
+package ro.unibuc.nlp.cognates.detection.aligners;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import ro.unibuc.nlp.cognates.utils.StringUtils;
+import ro.unibuc.nlp.cognates.utils.TestUtils;
+
+public class NeedlemanWunschTest {
+
+	@Test
+	public void testAlign() {
+
+		NeedlemanWunsch aligner = new NeedlemanWunsch();
+
+		Assert.assertEquals("exhaustiv-_es-austivo", aligner.align("exhaustiv", "esaustivo"));
+		Assert.assertEquals(3, aligner.getScore("exhaustiv", "esaustivo"));
+		Assert.assertEquals("lapte|lait-", aligner.align("lapte", "lait", "|"));
+		Assert.assertEquals("_", aligner.align("", ""));
+		Assert.assertEquals(0, aligner.getScore("", ""));
+		Assert.assertEquals(3, aligner.getScore("abc", ""));
+	}
+
+	@Test
+	public void testAlignment() {
+
+		Alignment alignment = new NeedlemanWunsch().getAlignment("exhaustiv", "esaustivo");
+
+		Assert.assertEquals(10, alignment.length());
+		Assert.assertEquals(3, alignment.getScore());
+		Assert.assertEquals("exhaustiv-", alignment.getFirst());
+		Assert.assertEquals("es-austivo", alignment.getSecond());
+		Assert.assertEquals('x', alignment.getFirst(1));
+		Assert.assertEquals('s', alignment.getSecond(1));
+		Assert.assertEquals(Alignment.GAP, alignment.getSecond(2));
+		Assert.assertEquals(Alignment.GAP, alignment.getFirst(9));
+		Assert.assertEquals("exhaustiv-|es-austivo", alignment.toString("|"));
+		Assert.assertEquals("exhaustiv-_es-austivo", alignment.toString());
+
+		Alignment empty = new NeedlemanWunsch().getAlignment("", "");
+		Assert.assertEquals(0, empty.length());
+		Assert.assertEquals("", empty.getFirst());
+
+		// an aligner that only implements align reads its alignments from the aligned strings
+		NeedlemanWunsch nw = new NeedlemanWunsch();
+		Aligner external = new Aligner() {
+
+			@Override
+			public int getScore(String string1, String string2) {
+
+				return nw.getScore(string1, string2);
+			}
+
+			@Override
+			public String align(String string1, String string2) {
+
+				return nw.align(string1, string2);
+			}
+		};
+		Assert.assertEquals("exhaustiv-_es-austivo", external.getAlignment("exhaustiv", "esaustivo").toString());
+		Assert.assertEquals(3, external.getAlignment("exhaustiv", "esaustivo").getScore());
+		Assert.assertEquals(nw.getAlignment("a_b", "_c_d").toString(), external.getAlignment("a_b", "_c_d").toString());
+		Assert.assertEquals(0, external.getAlignment("", "").length());
+
+		try {
+			alignment.getFirst(10);
+			Assert.fail("Expecting an exception for an invalid position.");
+		}
+		catch (Exception e) {
+			Assert.assertTrue(e instanceof IndexOutOfBoundsException);
+		}
+	}
+
+	@Test
+	public void testCosts() {
+
+		CostTable costs = new CostTable();
+		String alphabet = "aăâbcdeéèiîsștțAĂÂ";
+
+		// the table agrees with the comparison of the strings without diacritics
+		for (char c1 : (alphabet + '\0').toCharArray()) {
+			for (char c2 : (alphabet + '\0').toCharArray()) {
+				int expected = c1 == c2 || StringUtils.areEqual(c1 + "", c2 + "", true) ? 0 : 1;
+				Assert.assertEquals(expected, costs.getCost(c1, c2));
+			}
+		}
+
+		Assert.assertEquals(0, new NeedlemanWunsch().getScore("fără", "fara"));
+		Assert.assertEquals(1, new NeedlemanWunsch().getScore("fără", "fard"));
+	}
+
+	@Test
+	public void testCustomCosts() {
+
+		// expensive gaps favour substitutions
+		NeedlemanWunsch aligner = new NeedlemanWunsch(new CostTable(1, 5));
+		Assert.assertEquals(2, aligner.getScore("ab", "ba"));
+		Assert.assertEquals("ab_ba", aligner.align("ab", "ba"));
+
+		// cheap substitutions between vowels
+		String vowels = "aeiou";
+		NeedlemanWunsch vowelAligner = new NeedlemanWunsch((c1, c2) -> c1 == c2 ? 0
+				: vowels.indexOf(c1) >= 0 && vowels.indexOf(c2) >= 0 ? 1 : 3);
+		Assert.assertEquals(2, vowelAligner.getScore("lingua", "lengue"));
+		Assert.assertEquals(3, vowelAligner.getScore("lapte", "lapse"));
+	}
+
+	@Test
+	public void testScore() {
+
+		Random random = new Random(29);
+		// asymmetric costs, to check the transposition of the matrix over the shorter string
+		NeedlemanWunsch aligner = new NeedlemanWunsch((c1, c2) -> c1 == c2 ? 0 : c2 == '\0' ? 2 : c1 == '\0' ? 1 : c1 < c2 ? 1 : 3);
+
+		for (int k = 0; k < 200; k++) {
+			String a = TestUtils.randomWord(random, random.nextInt(15), "abcd");
+			String b = TestUtils.randomWord(random, random.nextInt(15), "abcd");
+			int score = aligner.getAlignment(a, b).getScore();
+
+			Assert.assertEquals(score, aligner.getScore(a, b));
+			for (int bound = 0; bound <= 10; bound++) {
+				Assert.assertEquals(score <= bound ? score : bound + 1, aligner.getScore(a, b, bound));
+			}
+		}
+
+		Assert.assertEquals(1, new NeedlemanWunsch().getScore("exhaustiv", "esaustivo", 0));
+		Assert.assertEquals(3, new NeedlemanWunsch().getScore("exhaustiv", "esaustivo", 3));
+	}
+
+	@Test
+	public void testInvalidArguments() {
+
+		try {
+			new NeedlemanWunsch().align(null, "test");
+			Assert.fail("Expecting an exception for illegal arguments.");
+		}
+		catch (Exception e) {
+			Assert.assertTrue(e instanceof IllegalArgumentException);
+		}
+
+		try {
+			new NeedlemanWunsch(null);
+			Assert.fail("Expecting an exception for illegal arguments.");
+		}
+		catch (Exception e) {
+			Assert.assertTrue(e instanceof IllegalArgumentException);
+		}
+
+		try {
+			new NeedlemanWunsch().getScore("a", "b", -1);
+			Assert.fail("Expecting an exception for illegal arguments.");
+		}
+		catch (Exception e) {
+			Assert.assertTrue(e instanceof IllegalArgumentException);
+		}
+
+		try {
+			new CostTable(-1, 1);
+			Assert.fail("Expecting an exception for illegal arguments.");
+		}
+		catch (Exception e) {
+			Assert.assertTrue(e instanceof IllegalArgumentException);
+		}
+	}
+}
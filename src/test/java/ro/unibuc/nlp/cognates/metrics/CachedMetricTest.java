@@ -0,0 +1,126 @@
+package ro.unibuc.nlp.cognates.metrics;
+
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CachedMetricTest extends MetricTest {
+
+	public CachedMetricTest() {
+		
+		metric = new CachedMetric(new Edit());
+	}
+	
+	@Test
+	@Override
+	public void testMetric() {
+		
+		// computed, then cached
+		for (int i = 0; i < 2; i++) {
+			Assert.assertEquals(0.33, metric.computeDistance("langue", "lingua"), DELTA);
+			Assert.assertEquals(0.67, metric.computeSimilarity("langue", "lingua"), DELTA);
+			Assert.assertEquals(0.57, metric.computeDistance("spera", "espérer"), DELTA);
+		}
+		
+		// distance for lists
+		Assert.assertEquals(0.33, metric.computeDistance(Arrays.asList("l", "a", "n", "g", "u", "e"), Arrays.asList("l", "i", "n", "g", "u", "a")), DELTA);
+	}
+
+	@Test
+	public void testValues() {
+
+		for (Metric metric : Arrays.asList(new Edit(), new Lcsr(), new Dice(), new Jaccard(), new Rank())) {
+			CachedMetric cached = new CachedMetric(metric);
+			for (int round = 0; round < 2; round++) {
+				for (String[] pair : new String[][] {{"lingua", "lengua"}, {"lengua", "lingua"}, {"", "lapte"}, {"", ""}}) {
+					Assert.assertEquals(metric.computeDistance(pair[0], pair[1]),
+										cached.computeDistance(pair[0], pair[1]), 0);
+					Assert.assertEquals(metric.computeSimilarity(pair[0], pair[1]),
+										cached.computeSimilarity(pair[0], pair[1]), 0);
+					Assert.assertEquals(metric.computeDistance(new PreparedWord(pair[0]), new PreparedWord(pair[1])),
+										cached.computeDistance(new PreparedWord(pair[0]), new PreparedWord(pair[1])), 0);
+				}
+			}
+
+			// the first round misses, the second one hits; the prepared words share the string keys
+			Assert.assertEquals(8, cached.getMisses());
+			Assert.assertEquals(16, cached.getHits());
+			Assert.assertEquals(2.0 / 3, cached.getHitRate(), DELTA);
+		}
+	}
+
+	@Test
+	public void testEvictions() {
+
+		// room for a handful of pairs only
+		CachedMetric cached = new CachedMetric(new Edit(), 1024);
+		for (int i = 0; i < 100; i++) {
+			cached.computeDistance("word" + i, "word" + (i + 1));
+		}
+
+		Assert.assertEquals(100, cached.getMisses());
+		Assert.assertTrue(cached.getEvictions() > 0);
+		Assert.assertTrue(cached.size() < 100);
+		Assert.assertEquals(3.0 / 7, cached.computeDistance("word99", "word100"), DELTA);
+
+		cached.clear();
+		Assert.assertEquals(0, cached.size());
+		Assert.assertEquals(0, cached.getMisses() + cached.getHits() + cached.getEvictions());
+		Assert.assertTrue(cached.toString().startsWith("Edit cache: size=0, hits=0, misses=0, evictions=0"));
+	}
+
+	@Test
+	public void testInvalidArguments() {
+
+		CachedMetric cached = new CachedMetric(new Hamming());
+
+		try {
+			cached.computeDistance(null, "test");
+			Assert.fail("Expecting an exception for illegal arguments.");
+		}
+		catch (Exception e) {
+			Assert.assertTrue(e instanceof IllegalArgumentException);
+		}
+
+		// the exceptions of the metric are not cached
+		for (int i = 0; i < 2; i++) {
+			try {
+				cached.computeDistance("ab", "abc");
+				Assert.fail("Expecting an exception for illegal arguments.");
+			}
+			catch (Exception e) {
+				Assert.assertTrue(e instanceof IllegalArgumentException);
+			}
+		}
+
+		try {
+			new CachedMetric(new Edit(), 0);
+			Assert.fail("Expecting an exception for illegal arguments.");
+		}
+		catch (Exception e) {
+			Assert.assertTrue(e instanceof IllegalArgumentException);
+		}
+	}
+
+	@Test
+	@Override
+	public void testEqualValues() {
+		
+		equalValues();
+	}
+
+	@Test
+	@Override
+	public void testCornerCases() {
+		
+		cornerCases();
+	}
+
+	@Test
+	@Override
+	public void testValidation() {
+		
+		nullValues();
+	}
+}
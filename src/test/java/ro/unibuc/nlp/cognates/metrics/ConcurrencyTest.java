@@ -0,0 +1,149 @@
+package ro.unibuc.nlp.cognates.metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import ro.unibuc.nlp.cognates.utils.TestUtils;
+
+/**
+ * Shares a single instance of each metric between the threads of a pool, and verifies that the
+ * concurrent results are those of a sequential computation.
+ */
+public class ConcurrencyTest {
+
+	private static final String ALPHABET = "abcdef";
+
+	private static final int THREADS = 8;
+	private static final int ROUNDS = 2;
+
+	@Test
+	public void testSharedMetrics() throws Exception {
+
+		Random random = new Random(31);
+		List<String[]> pairs = new ArrayList<String[]>();
+		for (int i = 0; i < 100; i++) {
+			// long words exercise the blocked and dynamic programming kernels
+			int length = i % 10 == 0 ? 70 + random.nextInt(30) : random.nextInt(12);
+			String a = TestUtils.randomWord(random, length, ALPHABET);
+			String b = TestUtils.randomWord(random, i % 2 == 0 ? length : random.nextInt(12), ALPHABET);
+			pairs.add(new String[] {a, b});
+		}
+
+		List<Metric> metrics = Arrays.asList(new Edit(), new Edit(Edit.Engine.DYNAMIC_PROGRAMMING), new Lcsr(),
+											 new Hamming(), new Dice(), new Jaccard(), new Rank());
+		for (Metric metric : metrics) {
+			double[][] expected = compute(metric, pairs);
+			runConcurrently(() -> Assert.assertArrayEquals(expected, compute(metric, pairs)));
+		}
+	}
+
+	@Test
+	public void testSharedMetricVector() throws Exception {
+
+		Random random = new Random(37);
+		List<String[]> pairs = new ArrayList<String[]>();
+		for (int i = 0; i < 100; i++) {
+			pairs.add(new String[] {TestUtils.randomWord(random, random.nextInt(12), ALPHABET),
+									TestUtils.randomWord(random, random.nextInt(12), ALPHABET)});
+		}
+
+		MetricVector vector = new MetricVector(MetricVector.Feature.values());
+		double[][] expected = vector.computeDistances(pairs);
+		runConcurrently(() -> Assert.assertArrayEquals(expected, vector.computeDistances(pairs)));
+	}
+
+	@Test
+	public void testSharedFilterCascade() throws Exception {
+
+		Random random = new Random(41);
+		List<PreparedWord[]> pairs = new ArrayList<PreparedWord[]>();
+		for (int i = 0; i < 100; i++) {
+			pairs.add(new PreparedWord[] {new PreparedWord(TestUtils.randomWord(random, random.nextInt(12), ALPHABET)),
+										  new PreparedWord(TestUtils.randomWord(random, random.nextInt(12), ALPHABET))});
+		}
+
+		FilterCascade cascade = new FilterCascade(new Edit(), 0.5);
+		double[] expected = new double[pairs.size()];
+		for (int i = 0; i < pairs.size(); i++) {
+			expected[i] = cascade.computeDistance(pairs.get(i)[0], pairs.get(i)[1]);
+		}
+		long accepted = cascade.getAccepted();
+		cascade.resetCounters();
+
+		runConcurrently(() -> {
+			for (int i = 0; i < pairs.size(); i++) {
+				Assert.assertEquals(expected[i], cascade.computeDistance(pairs.get(i)[0], pairs.get(i)[1]), 0);
+			}
+		});
+
+		// the counters do not lose the increments of concurrent threads
+		Assert.assertEquals(THREADS * ROUNDS * pairs.size(), cascade.getPairs());
+		Assert.assertEquals(THREADS * ROUNDS * accepted, cascade.getAccepted());
+	}
+
+	/**
+	 * Computes the distances of the pairs through every entry point of the metric: strings,
+	 * prepared words and token sequences.
+	 */
+	private static double[][] compute(Metric metric, List<String[]> pairs) {
+
+		double[][] values = new double[pairs.size()][];
+		for (int i = 0; i < pairs.size(); i++) {
+			String a = pairs.get(i)[0];
+			String b = pairs.get(i)[1];
+			if (metric instanceof Hamming && a.length() != b.length()) {
+				values[i] = new double[0];
+				continue;
+			}
+			List<String> aTokens = Arrays.asList(a.split(""));
+			List<String> bTokens = Arrays.asList(b.split(""));
+			values[i] = new double[] {
+				metric.computeDistance(a, b),
+				metric.computeSimilarity(a, b),
+				metric.computeDistance(new PreparedWord(a), new PreparedWord(b)),
+				metric.computeDistance(aTokens, bTokens)
+			};
+		}
+
+		return values;
+	}
+
+	/**
+	 * Runs the task on a pool of threads, all the threads starting together, and rethrows the
+	 * first failure.
+	 */
+	private static void runConcurrently(Runnable task) throws Exception {
+
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+		try {
+			List<Future<?>> futures = new ArrayList<Future<?>>();
+			for (int t = 0; t < THREADS; t++) {
+				futures.add(pool.submit(() -> {
+					start.await();
+					for (int round = 0; round < ROUNDS; round++) {
+						task.run();
+					}
+					return null;
+				}));
+			}
+			start.countDown();
+			for (Future<?> future : futures) {
+				future.get(120, TimeUnit.SECONDS);
+			}
+		}
+		finally {
+			pool.shutdownNow();
+		}
+	}
+}
@@ -25,6 +25,21 @@ public class DiceTest extends MetricTest {
 		Assert.assertEquals(0.50, metric.computeSimilarity("an", "anno"), DELTA);
 	}
 
+	@Test
+	public void testNgramSizes() {
+		
+		Dice dice = new Dice();
+		ngramSizes(dice::computeSimilarity, dice::computeSimilarity, 
+				(common, size1, size2) -> 2 * (double) common / (size1 + size2));
+	}
+	
+	@Test
+	public void testSequences() {
+		
+		// n-grams of multi-character tokens
+		sequences(1.00, 0.20, 0.33);
+	}
+	
 	@Test
 	@Override
 	public void testEqualValues() {
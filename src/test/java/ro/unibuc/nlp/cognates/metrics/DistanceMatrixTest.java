@@ -0,0 +1,94 @@
+package ro.unibuc.nlp.cognates.metrics;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DistanceMatrixTest {
+
+	private static final double DELTA = 1e-6;
+
+	private static final List<String> ROMANIAN = Arrays.asList("limbă", "noapte", "lapte", "a spera", "", "internațional",
+			"frate", "cântec", "ochi", "mână");
+
+	private static final List<String> ITALIAN = Arrays.asList("lingua", "notte", "latte", "sperare", "internazionale",
+			"fratello", "canto");
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testMatrix() throws Exception {
+
+		ForkJoinPool pool = new ForkJoinPool(3);
+
+		try {
+			for (Metric metric : Arrays.asList(new Edit(), new Lcsr(), new Dice(), new Rank())) {
+				for (int tileSize : new int[] {1, 3, 128}) {
+					DistanceMatrix matrix = new DistanceMatrix(metric, pool, tileSize);
+
+					String path = new File(folder.getRoot(), "asymmetric.bin").getPath();
+					matrix.write(ROMANIAN, ITALIAN, path);
+					checkMatrix(metric, ROMANIAN, ITALIAN, path);
+
+					path = new File(folder.getRoot(), "symmetric.bin").getPath();
+					matrix.write(ROMANIAN, ROMANIAN, path);
+					checkMatrix(metric, ROMANIAN, ROMANIAN, path);
+				}
+			}
+		}
+		finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testInvalidArguments() throws Exception {
+
+		String path = new File(folder.getRoot(), "matrix.bin").getPath();
+		new DistanceMatrix(new Edit()).write(ROMANIAN, ITALIAN, path);
+
+		try {
+			DistanceMatrix.readRow(path, ROMANIAN.size());
+			Assert.fail("Expecting an exception for illegal arguments.");
+		}
+		catch (Exception e) {
+			Assert.assertTrue(e instanceof IllegalArgumentException);
+		}
+
+		try {
+			new DistanceMatrix(new Edit()).write(ROMANIAN, null, path);
+			Assert.fail("Expecting an exception for illegal arguments.");
+		}
+		catch (Exception e) {
+			Assert.assertTrue(e instanceof IllegalArgumentException);
+		}
+
+		try {
+			new DistanceMatrix(new Edit(), ForkJoinPool.commonPool(), 0);
+			Assert.fail("Expecting an exception for illegal arguments.");
+		}
+		catch (Exception e) {
+			Assert.assertTrue(e instanceof IllegalArgumentException);
+		}
+	}
+
+	private static void checkMatrix(Metric metric, List<String> rows, List<String> columns, String path) throws Exception {
+
+		Assert.assertEquals(DistanceMatrix.HEADER_SIZE + 4L * rows.size() * columns.size(), new File(path).length());
+
+		for (int i = 0; i < rows.size(); i++) {
+			float[] row = DistanceMatrix.readRow(path, i);
+			Assert.assertEquals(columns.size(), row.length);
+			for (int j = 0; j < columns.size(); j++) {
+				Assert.assertEquals(metric.computeDistance(rows.get(i), columns.get(j)), row[j], DELTA);
+			}
+		}
+	}
+}
@@ -1,12 +1,20 @@
 package ro.unibuc.nlp.cognates.metrics;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
 
 import org.junit.Assert;
 import org.junit.Test;
 
+import ro.unibuc.nlp.cognates.utils.TestUtils;
+
 public class EditTest extends MetricTest {
 
+	private static final String ALPHABET = "aeinrstăîșé";
+
 	public EditTest() {
 		
 		metric = new Edit();
@@ -32,6 +40,122 @@ public class EditTest extends MetricTest {
 		Assert.assertEquals(0.50, metric.computeDistance(Arrays.asList("a", "n"), Arrays.asList("a", "n", "n", "o")), DELTA);
 	}
 
+	@Test
+	public void testSequences() {
+		
+		Random random = new Random(42);
+		String[] tokens = {"a", "e", "ă", "ai", "ea", "n", "ng", "r", "s", "ș"};
+		
+		// long sequences, tokens of several characters, linked lists
+		for (int length : new int[] {0, 1, 10, 64, 65, 300, 3000}) {
+			List<String> a = new ArrayList<String>();
+			List<String> b = new LinkedList<String>();
+			StringBuilder aEncoded = new StringBuilder();
+			StringBuilder bEncoded = new StringBuilder();
+			for (int i = 0; i < length; i++) {
+				int x = random.nextInt(tokens.length);
+				int y = random.nextInt(tokens.length);
+				a.add(tokens[x]);
+				aEncoded.append((char) ('a' + x));
+				if (random.nextInt(4) > 0) {
+					b.add(tokens[y]);
+					bEncoded.append((char) ('a' + y));
+				}
+			}
+			
+			double expected = new Edit(Edit.Engine.DYNAMIC_PROGRAMMING).computeUnnormalizedDistance(aEncoded.toString(), bEncoded.toString());
+			for (Edit.Engine engine : Edit.Engine.values()) {
+				Assert.assertEquals(expected, new Edit(engine).computeEdit(a, b), DELTA);
+				Assert.assertEquals(expected, new Edit(engine).computeEdit(b, a), DELTA);
+			}
+		}
+	}
+
+	@Test
+	public void testUnnormalizedDistance() {
+		
+		Edit edit = new Edit();
+		
+		Assert.assertEquals(2, edit.computeUnnormalizedDistance("langue", "lingua"), DELTA);
+		Assert.assertEquals(4, edit.computeUnnormalizedDistance("spera", "espérer"), DELTA);
+		Assert.assertEquals(3, edit.computeUnnormalizedDistance("kitten", "sitting"), DELTA);
+		Assert.assertEquals(3, edit.computeUnnormalizedDistance("sitting", "kitten"), DELTA);
+		Assert.assertEquals(7, edit.computeUnnormalizedDistance("", "espérer"), DELTA);
+		Assert.assertEquals(2, edit.computeDistance("an", "anno", false), DELTA);
+		
+		// the scratch buffers are reused for inputs of different sizes
+		Assert.assertEquals(5, edit.computeUnnormalizedDistance("internaționalizare", "internationalization"), DELTA);
+		Assert.assertEquals(1, edit.computeUnnormalizedDistance("ab", "a"), DELTA);
+	}
+
+	@Test
+	public void testEngines() {
+		
+		Edit dynamic = new Edit(Edit.Engine.DYNAMIC_PROGRAMMING);
+		Edit bitParallel = new Edit(Edit.Engine.BIT_PARALLEL);
+		Edit blocked = new Edit(Edit.Engine.BLOCKED_BIT_PARALLEL);
+		
+		Assert.assertEquals(Edit.Engine.BIT_PARALLEL, new Edit().getEngine());
+		Assert.assertEquals(3, blocked.computeUnnormalizedDistance("kitten", "sitting"), DELTA);
+		Assert.assertEquals(4, bitParallel.computeUnnormalizedDistance("espérer", "spera"), DELTA);
+		
+		// short words, words around the size of a block and words spanning several blocks
+		Random random = new Random(42);
+		for (int i = 0; i < 1000; i++) {
+			String a = TestUtils.randomWord(random, random.nextInt(i % 2 == 0 ? 20 : 200), ALPHABET);
+			String b = TestUtils.randomWord(random, random.nextInt(i % 2 == 0 ? 20 : 200), ALPHABET);
+			
+			double expected = dynamic.computeUnnormalizedDistance(a, b);
+			Assert.assertEquals(expected, bitParallel.computeUnnormalizedDistance(a, b), DELTA);
+			Assert.assertEquals(expected, blocked.computeUnnormalizedDistance(a, b), DELTA);
+		}
+	}
+	
+	@Test
+	public void testInvalidEngine() {
+		
+		try {
+			new Edit(null);
+			Assert.fail("Expecting an exception for illegal arguments.");
+		}
+		catch (Exception e) {
+			Assert.assertTrue(e instanceof IllegalArgumentException);
+		}
+	}
+	
+	@Test
+	public void testBoundedDistance() {
+		
+		Edit edit = new Edit();
+		
+		Assert.assertEquals(3, edit.computeDistanceBounded("kitten", "sitting", 3));
+		Assert.assertEquals(Edit.DISTANCE_EXCEEDED, edit.computeDistanceBounded("kitten", "sitting", 2));
+		Assert.assertEquals(Edit.DISTANCE_EXCEEDED, edit.computeDistanceBounded("an", "anno", 1));
+		Assert.assertEquals(2, edit.computeDistanceBounded("an", "anno", Integer.MAX_VALUE));
+		Assert.assertEquals(0, edit.computeDistanceBounded("", "", 0));
+		Assert.assertEquals(0, edit.computeDistanceBounded("langue", "langue", 0));
+		Assert.assertEquals(6, edit.computeDistanceBounded("langue", "", 6));
+		
+		Random random = new Random(7);
+		for (int i = 0; i < 1000; i++) {
+			String a = TestUtils.randomWord(random, random.nextInt(30), ALPHABET);
+			String b = TestUtils.randomWord(random, random.nextInt(30), ALPHABET);
+			int maxDistance = random.nextInt(15);
+			
+			int expected = (int) edit.computeUnnormalizedDistance(a, b);
+			Assert.assertEquals(expected <= maxDistance ? expected : Edit.DISTANCE_EXCEEDED, 
+								edit.computeDistanceBounded(a, b, maxDistance));
+		}
+		
+		try {
+			edit.computeDistanceBounded("an", "anno", -1);
+			Assert.fail("Expecting an exception for illegal arguments.");
+		}
+		catch (Exception e) {
+			Assert.assertTrue(e instanceof IllegalArgumentException);
+		}
+	}
+	
 	@Test
 	@Override
 	public void testEqualValues() {
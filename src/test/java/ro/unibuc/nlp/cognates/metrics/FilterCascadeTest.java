@@ -0,0 +1,118 @@
+package ro.unibuc.nlp.cognates.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import ro.unibuc.nlp.cognates.utils.TestUtils;
+
+public class FilterCascadeTest {
+
+	private static final String ALPHABET = "aeinrst";
+
+	private static final double DELTA = 1e-9;
+
+	@Test
+	public void testBounds() {
+
+		Random random = new Random(42);
+		Edit edit = new Edit();
+		Lcsr lcsr = new Lcsr();
+
+		for (int i = 0; i < 1000; i++) {
+			PreparedWord a = new PreparedWord(TestUtils.randomWord(random, random.nextInt(12), ALPHABET));
+			PreparedWord b = new PreparedWord(TestUtils.randomWord(random, random.nextInt(12), ALPHABET));
+			double distance = edit.computeUnnormalizedDistance(a, b);
+			double lcs = lcsr.computeLcs(a, b);
+
+			for (FilterCascade.Stage stage : FilterCascade.Stage.values()) {
+				Assert.assertTrue(FilterCascade.computeEditLowerBound(stage, a, b) <= distance);
+				Assert.assertTrue(FilterCascade.computeLcsUpperBound(stage, a, b) >= lcs);
+			}
+		}
+	}
+
+	@Test
+	public void testCascade() {
+
+		Random random = new Random(42);
+		List<PreparedWord> words = new ArrayList<PreparedWord>();
+		for (int i = 0; i < 60; i++) {
+			words.add(new PreparedWord(TestUtils.randomWord(random, random.nextInt(10), ALPHABET)));
+		}
+
+		for (Metric metric : new Metric[] {new Edit(), new Lcsr()}) {
+			for (double maxDistance : new double[] {0, 0.2, 0.5, 1}) {
+				FilterCascade cascade = new FilterCascade(metric, maxDistance);
+				int accepted = 0;
+				for (PreparedWord a : words) {
+					for (PreparedWord b : words) {
+						double expected = metric.computeDistance(a, b);
+						double actual = cascade.computeDistance(a, b);
+						if (expected <= maxDistance) {
+							Assert.assertEquals(expected, actual, DELTA);
+							accepted++;
+						}
+						else {
+							Assert.assertEquals(FilterCascade.REJECTED, actual, DELTA);
+						}
+					}
+				}
+
+				long rejected = cascade.getRejectedByMetric();
+				for (FilterCascade.Stage stage : FilterCascade.Stage.values()) {
+					rejected += cascade.getRejected(stage);
+				}
+				Assert.assertEquals(words.size() * words.size(), cascade.getPairs());
+				Assert.assertEquals(accepted, cascade.getAccepted());
+				Assert.assertEquals(cascade.getPairs() - accepted, rejected);
+			}
+		}
+	}
+
+	@Test
+	public void testCounters() {
+
+		FilterCascade cascade = new FilterCascade(new Edit(), 0.34, FilterCascade.Stage.LENGTH, FilterCascade.Stage.HISTOGRAM);
+
+		Assert.assertEquals(0.33, cascade.computeDistance("lingua", "langue"), 0.01);
+		Assert.assertEquals(FilterCascade.REJECTED, cascade.computeDistance("an", "anno"), DELTA);
+		Assert.assertEquals(FilterCascade.REJECTED, cascade.computeDistance("abcd", "abxy"), DELTA);
+		Assert.assertEquals(FilterCascade.REJECTED, cascade.computeDistance("roma", "amor"), DELTA);
+		Assert.assertEquals(FilterCascade.REJECTED, cascade.computeDistance("abcd", "abdc"), DELTA);
+
+		Assert.assertEquals(5, cascade.getPairs());
+		Assert.assertEquals(1, cascade.getRejected(FilterCascade.Stage.LENGTH));
+		Assert.assertEquals(1, cascade.getRejected(FilterCascade.Stage.HISTOGRAM));
+		Assert.assertEquals(0, cascade.getRejected(FilterCascade.Stage.QGRAM));
+		Assert.assertEquals(2, cascade.getRejectedByMetric());
+		Assert.assertEquals(1, cascade.getAccepted());
+		Assert.assertEquals("Edit <= 0.34: pairs=5, LENGTH=1, HISTOGRAM=1, METRIC=2, accepted=1", cascade.toString());
+
+		cascade.resetCounters();
+		Assert.assertEquals(0, cascade.getPairs());
+	}
+
+	@Test
+	public void testInvalidArguments() {
+
+		try {
+			new FilterCascade(new Dice(), 0.5);
+			Assert.fail("Expecting an exception for illegal arguments.");
+		}
+		catch (Exception e) {
+			Assert.assertTrue(e instanceof IllegalArgumentException);
+		}
+
+		try {
+			new FilterCascade(new Edit(), -0.5);
+			Assert.fail("Expecting an exception for illegal arguments.");
+		}
+		catch (Exception e) {
+			Assert.assertTrue(e instanceof IllegalArgumentException);
+		}
+	}
+}
@@ -1,5 +1,8 @@
 package ro.unibuc.nlp.cognates.metrics;
 
+import java.util.Arrays;
+import java.util.LinkedList;
+
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -19,6 +22,10 @@ public class HammingTest extends MetricTest {
 		
 		// similarity
 		Assert.assertEquals(0.67, metric.computeSimilarity("langue", "lingua"), DELTA);
+		
+		// distance for lists
+		Assert.assertEquals(0.33, metric.computeDistance(Arrays.asList("l", "a", "n", "g", "u", "e"), Arrays.asList("l", "i", "n", "g", "u", "a")), DELTA);
+		Assert.assertEquals(0.50, metric.computeDistance(new LinkedList<String>(Arrays.asList("la", "n", "gue", "s")), Arrays.asList("la", "n", "gua", "")), DELTA);
 	}
 	
 	@Test
@@ -33,6 +40,15 @@ public class HammingTest extends MetricTest {
 			Assert.assertTrue(e instanceof IllegalArgumentException);
 		}
 		
+		// distance for lists
+		try {
+			metric.computeDistance(Arrays.asList("a", "n"), Arrays.asList("a", "n", "n", "o"));
+			Assert.fail("Expecting an exception for illegal arguments.");
+		}
+		catch (Exception e) {
+			Assert.assertTrue(e instanceof IllegalArgumentException);
+		}
+		
 		// similarity
 		try {
 			metric.computeSimilarity("an", "anno");
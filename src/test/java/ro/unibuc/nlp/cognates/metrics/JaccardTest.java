@@ -25,6 +25,21 @@ public class JaccardTest extends MetricTest{
 		Assert.assertEquals(0.33, metric.computeSimilarity("an", "anno"), DELTA);
 	}
 
+	@Test
+	public void testNgramSizes() {
+		
+		Jaccard jaccard = new Jaccard();
+		ngramSizes(jaccard::computeSimilarity, jaccard::computeSimilarity, 
+				(common, size1, size2) -> (double) common / (size1 + size2 - common));
+	}
+	
+	@Test
+	public void testSequences() {
+		
+		// n-grams of multi-character tokens
+		sequences(1.00, 0.33, 0.50);
+	}
+	
 	@Test
 	@Override
 	public void testEqualValues() {
@@ -1,11 +1,17 @@
 package ro.unibuc.nlp.cognates.metrics;
 
 import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
 
 import org.junit.Assert;
 import org.junit.Test;
 
+import ro.unibuc.nlp.cognates.utils.TestUtils;
+
 public class LcsrTest extends MetricTest {
+
+	private static final String ALPHABET = "aeinrstăîșé";
 	
 	public LcsrTest() {
 		
@@ -32,6 +38,45 @@ public class LcsrTest extends MetricTest {
 		Assert.assertEquals(0.50, metric.computeDistance(Arrays.asList("a", "n"), Arrays.asList("a", "n", "n", "o")), DELTA);
 	}
 
+	@Test
+	public void testLcs() {
+		
+		Lcsr lcsr = new Lcsr();
+		
+		Assert.assertEquals(4, lcsr.computeLcs("langue", "lingua"), DELTA);
+		Assert.assertEquals(4, lcsr.computeLcs("espérer", "spera"), DELTA);
+		Assert.assertEquals(0, lcsr.computeLcs("", "spera"), DELTA);
+		
+		// short words, words around the size of a block and words spanning several blocks
+		Random random = new Random(42);
+		for (int i = 0; i < 1000; i++) {
+			String a = TestUtils.randomWord(random, random.nextInt(i % 2 == 0 ? 20 : 200), ALPHABET);
+			String b = TestUtils.randomWord(random, random.nextInt(i % 2 == 0 ? 20 : 200), ALPHABET);
+			List<String> listA = Arrays.asList(a.split(""));
+			List<String> listB = Arrays.asList(b.split(""));
+			
+			int expected = computeLcs(a, b);
+			Assert.assertEquals(expected, lcsr.computeLcs(a, b), DELTA);
+			if (!a.isEmpty() && !b.isEmpty()) {
+				Assert.assertEquals(expected, lcsr.computeLcs(listA, listB), DELTA);
+			}
+		}
+	}
+	
+	private static int computeLcs(String a, String b) {
+		
+		int[][] lcs = new int[a.length() + 1][b.length() + 1];
+		for (int i = 1; i <= a.length(); i++) {
+			for (int j = 1; j <= b.length(); j++) {
+				lcs[i][j] = a.charAt(i - 1) == b.charAt(j - 1) 
+						  ? lcs[i - 1][j - 1] + 1 
+						  : Math.max(lcs[i - 1][j], lcs[i][j - 1]);
+			}
+		}
+		
+		return lcs[a.length()][b.length()];
+	}
+	
 	@Test
 	@Override
 	public void testEqualValues() {
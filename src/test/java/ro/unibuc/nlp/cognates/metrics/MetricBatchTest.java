@@ -0,0 +1,99 @@
+package ro.unibuc.nlp.cognates.metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MetricBatchTest {
+
+	private static final double DELTA = 1e-9;
+
+	@Test
+	public void testDistances() {
+
+		List<String[]> pairs = randomPairs(5000);
+		List<Metric> metrics = Arrays.asList(new Edit(), new Lcsr(), new Dice(), new Jaccard(), new Rank());
+		ForkJoinPool pool = new ForkJoinPool(4);
+
+		try {
+			for (Metric metric : metrics) {
+				double[] distances = metric.computeDistances(pairs);
+				double[] similarities = new MetricBatch(metric, pool, 16).computeSimilarities(pairs);
+
+				CharSequence[] a = new CharSequence[pairs.size()];
+				CharSequence[] b = new CharSequence[pairs.size()];
+				for (int i = 0; i < pairs.size(); i++) {
+					a[i] = new StringBuilder(pairs.get(i)[0]);
+					b[i] = pairs.get(i)[1];
+				}
+				double[] out = new double[pairs.size()];
+				new MetricBatch(metric, pool, 7).computeDistances(a, b, out);
+
+				Assert.assertEquals(pairs.size(), distances.length);
+				for (int i = 0; i < pairs.size(); i++) {
+					double expected = metric.computeDistance(pairs.get(i)[0], pairs.get(i)[1]);
+					Assert.assertEquals(expected, distances[i], DELTA);
+					Assert.assertEquals(expected, out[i], DELTA);
+					Assert.assertEquals(metric.computeSimilarity(pairs.get(i)[0], pairs.get(i)[1]), similarities[i], DELTA);
+				}
+			}
+		}
+		finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testInvalidArguments() {
+
+		try {
+			new Edit().computeDistances(Arrays.asList(new String[] {"a", "b"}, new String[] {"a"}));
+			Assert.fail("Expecting an exception for illegal arguments.");
+		}
+		catch (Exception e) {
+			Assert.assertTrue(e instanceof IllegalArgumentException);
+		}
+
+		try {
+			new Edit().computeDistances(new CharSequence[] {"a"}, new CharSequence[] {"b", "c"}, new double[2]);
+			Assert.fail("Expecting an exception for illegal arguments.");
+		}
+		catch (Exception e) {
+			Assert.assertTrue(e instanceof IllegalArgumentException);
+		}
+
+		try {
+			new MetricBatch(new Edit(), new ForkJoinPool(1), 0);
+			Assert.fail("Expecting an exception for illegal arguments.");
+		}
+		catch (Exception e) {
+			Assert.assertTrue(e instanceof IllegalArgumentException);
+		}
+	}
+
+	private static List<String[]> randomPairs(int size) {
+
+		Random random = new Random(42);
+		String alphabet = "aeinrstăîș";
+		List<String[]> pairs = new ArrayList<String[]>(size);
+		for (int i = 0; i < size; i++) {
+			String[] pair = new String[2];
+			for (int k = 0; k < 2; k++) {
+				StringBuilder builder = new StringBuilder();
+				int length = random.nextInt(20);
+				for (int j = 0; j < length; j++) {
+					builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+				}
+				pair[k] = builder.toString();
+			}
+			pairs.add(pair);
+		}
+
+		return pairs;
+	}
+}
@@ -1,13 +1,23 @@
 package ro.unibuc.nlp.cognates.metrics;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
 
 import org.junit.Assert;
 
+import ro.unibuc.nlp.cognates.utils.TestUtils;
+
 public abstract class MetricTest {
 
 	public static final double DELTA = 0.01;
 	
+	private static final String ALPHABET = "aeinrăîș";
+	
 	protected Metric metric;
 	
 	public abstract void testCornerCases();
@@ -38,9 +48,9 @@ public abstract class MetricTest {
 		Assert.assertEquals(0.00, metric.computeDistance("", ""), DELTA);
 		
 		// distance lists
-//		Assert.assertEquals(1.00, metric.computeDistance(Arrays.asList("l", "a", "n", "g", "u", "e"), Arrays.asList()), DELTA);
-//		Assert.assertEquals(1.00, metric.computeDistance(Arrays.asList(), Arrays.asList("e", "s", "p", "é", "r", "e", "r")), DELTA);
-//		Assert.assertEquals(0.00, metric.computeDistance(Arrays.asList(), Arrays.asList()), DELTA);
+		Assert.assertEquals(1.00, metric.computeDistance(Arrays.asList("l", "a", "n", "g", "u", "e"), Arrays.<String>asList()), DELTA);
+		Assert.assertEquals(1.00, metric.computeDistance(Arrays.<String>asList(), Arrays.asList("e", "s", "p", "é", "r", "e", "r")), DELTA);
+		Assert.assertEquals(0.00, metric.computeDistance(Arrays.<String>asList(), Arrays.<String>asList()), DELTA);
 		
 		// similarity
 		Assert.assertEquals(0.00, metric.computeSimilarity("langue", ""), DELTA);
@@ -48,6 +58,69 @@ public abstract class MetricTest {
 		Assert.assertEquals(1.00, metric.computeSimilarity("", ""), DELTA);
 	}	
 	
+	/**
+	 * Computes the similarity of two sequences over their n-grams of size n.
+	 */
+	protected interface NgramSimilarity<T> {
+		
+		public double computeSimilarity(T a, T b, int n);
+	}
+	
+	/**
+	 * Computes the similarity of two sets of n-grams from their number of common n-grams and their sizes.
+	 */
+	protected interface SetSimilarity {
+		
+		public double computeSimilarity(int common, int size1, int size2);
+	}
+	
+	protected void ngramSizes(NgramSimilarity<String> strings, NgramSimilarity<List<String>> lists, SetSimilarity expected) {
+		
+		// packed n-grams (up to 4 characters) and n-grams compared as strings
+		Random random = new Random(42);
+		for (int i = 0; i < 500; i++) {
+			String a = TestUtils.randomWord(random, random.nextInt(12), ALPHABET);
+			String b = TestUtils.randomWord(random, random.nextInt(12), ALPHABET);
+			
+			for (int n = 1; n <= 6; n++) {
+				Set<String> aNgrams = MetricUtils.getUniqueNgrams(a, n);
+				Set<String> bNgrams = MetricUtils.getUniqueNgrams(b, n);
+				Set<String> common = new HashSet<String>(aNgrams);
+				common.retainAll(bNgrams);
+				
+				// two words without n-grams are equal
+				double similarity = aNgrams.isEmpty() && bNgrams.isEmpty() 
+						? 1 : expected.computeSimilarity(common.size(), aNgrams.size(), bNgrams.size());
+				Assert.assertEquals(similarity, strings.computeSimilarity(a, b, n), 1e-9);
+				Assert.assertEquals(similarity, lists.computeSimilarity(toList(a), toList(b), n), 1e-9);
+			}
+		}
+	}
+	
+	/**
+	 * Checks the distances between sequences of multi-character tokens.
+	 * 
+	 * @param split the distance between two splits of the same characters into different tokens
+	 * @param longer the distance to the same sequence with one more token
+	 * @param shorter the distance to the same sequence with one token less, as a linked list
+	 */
+	protected void sequences(double split, double longer, double shorter) {
+		
+		Assert.assertEquals(split, metric.computeDistance(Arrays.asList("ab", "c", "d"), Arrays.asList("a", "bc", "d")), DELTA);
+		Assert.assertEquals(longer, metric.computeDistance(Arrays.asList("la", "n", "gue"), Arrays.asList("la", "n", "gue", "s")), DELTA);
+		Assert.assertEquals(shorter, metric.computeDistance(new LinkedList<String>(Arrays.asList("la", "n", "gue")), Arrays.asList("la", "n")), DELTA);
+	}
+	
+	private static List<String> toList(String string) {
+		
+		List<String> list = new ArrayList<String>();
+		for (char c : string.toCharArray()) {
+			list.add(String.valueOf(c));
+		}
+		
+		return list;
+	}
+	
 	protected void nullValues() {
 		
 		// distance + first argument
@@ -60,13 +133,13 @@ public abstract class MetricTest {
 		}
 		
 		// distance + first argument
-//		try {
-//			metric.computeDistance(null, Arrays.asList("e", "s", "p", "é", "r", "e", "r"));
-//			Assert.fail("Expecting an exception for illegal arguments.");
-//		}
-//		catch (Exception e) {
-//			Assert.assertTrue(e instanceof IllegalArgumentException);
-//		}
+		try {
+			metric.computeDistance(null, Arrays.asList("e", "s", "p", "é", "r", "e", "r"));
+			Assert.fail("Expecting an exception for illegal arguments.");
+		}
+		catch (Exception e) {
+			Assert.assertTrue(e instanceof IllegalArgumentException);
+		}
 		
 		// similarity + second argument
 		try {
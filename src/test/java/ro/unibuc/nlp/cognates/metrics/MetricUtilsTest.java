@@ -1,5 +1,7 @@
 package ro.unibuc.nlp.cognates.metrics;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.junit.Assert;
@@ -27,6 +29,15 @@ public class MetricUtilsTest {
 		catch (Exception e) {
 			Assert.assertTrue(e instanceof IllegalArgumentException);
 		}
+		
+		// test validation on a single argument
+		try {
+			MetricUtils.validate(null);
+			Assert.fail("Expecting an exception for illegal arguments.");
+		}
+		catch (Exception e) {
+			Assert.assertTrue(e instanceof IllegalArgumentException);
+		}
 	}
 	
 	@Test
@@ -70,4 +81,90 @@ public class MetricUtilsTest {
 								"lin", "ing", "ngu", "gua"};
 		Assert.assertArrayEquals(actual, expected);		
 	}
-}
\ No newline at end of file
+	
+	@Test
+	public void testNgramVisitor() {
+		
+		// the views match the n-grams of the list methods, in the same order
+		for (String word : new String[]{"lingua", "a", "", "lengua"}) {
+			for (int size = 1; size <= 4; size++) {
+				for (boolean range : new boolean[]{false, true}) {
+					List<String> visited = new ArrayList<String>();
+					List<Integer> starts = new ArrayList<Integer>();
+					MetricUtils.forEachNgram(word, size, range, (ngram, start) -> {
+						visited.add(ngram.toString());
+						starts.add(start);
+						Assert.assertEquals(ngram.toString(), word.substring(start, start + ngram.length()));
+					});
+					Assert.assertEquals(MetricUtils.getNgrams(word, size, range), visited);
+				}
+			}
+		}
+		
+		// the view behaves as a character sequence
+		MetricUtils.forEachNgram(new StringBuilder("lingua"), 3, false, (ngram, start) -> {
+			if (start == 2) {
+				Assert.assertEquals(3, ngram.length());
+				Assert.assertEquals('n', ngram.charAt(0));
+				Assert.assertEquals("gu", ngram.subSequence(1, 3).toString());
+			}
+		});
+		
+		try {
+			MetricUtils.forEachNgram(null, 2, false, (ngram, start) -> {});
+			Assert.fail("Expecting an exception for illegal arguments.");
+		}
+		catch (Exception e) {
+			Assert.assertTrue(e instanceof IllegalArgumentException);
+		}
+	}
+	
+	@Test
+	public void testPackedNgrams() {
+		
+		List<Long> codes = new ArrayList<Long>();
+		List<Integer> starts = new ArrayList<Integer>();
+		MetricUtils.forEachPackedNgram("lingua", 2, (code, start) -> {
+			codes.add(code);
+			starts.add(start);
+		});
+		Assert.assertEquals(Arrays.asList(0, 1, 2, 3, 4), starts);
+		Assert.assertEquals(Long.valueOf('l' << 16 | 'i'), codes.get(0));
+		Assert.assertEquals(Long.valueOf('u' << 16 | 'a'), codes.get(4));
+		
+		// equal n-grams have equal codes
+		codes.clear();
+		MetricUtils.forEachPackedNgram("banana", 4, (code, start) -> codes.add(code));
+		Assert.assertEquals(3, codes.size());
+		Assert.assertNotEquals(codes.get(0), codes.get(1));
+		codes.clear();
+		MetricUtils.forEachPackedNgram("abab", 2, (code, start) -> codes.add(code));
+		Assert.assertEquals(codes.get(0), codes.get(2));
+		
+		try {
+			MetricUtils.forEachPackedNgram("lingua", 5, (code, start) -> {});
+			Assert.fail("Expecting an exception for illegal arguments.");
+		}
+		catch (Exception e) {
+			Assert.assertTrue(e instanceof IllegalArgumentException);
+		}
+	}
+	
+	@Test
+	public void testAdjacentAndSentenceNgrams() {
+		
+		Assert.assertEquals(Arrays.asList("al", "in", "ut", "za"), MetricUtils.getAdjacentNgrams("alinutzab", 2, false));
+		Assert.assertEquals(Arrays.asList("a", "i", "u", "z", "b", "al", "in", "ut", "za"),
+				MetricUtils.getAdjacentNgrams("alinutzab", 2, true));
+		
+		Assert.assertEquals(Arrays.asList("a_", "_b", "b_", "_c"), MetricUtils.getSentenceNgrams("a  b\tc", 2, false));
+		
+		List<String> visited = new ArrayList<String>();
+		MetricUtils.forEachSentenceNgram("a  b\tc", 2, false, (ngram, start) -> visited.add(ngram.toString()));
+		Assert.assertEquals(MetricUtils.getSentenceNgrams("a  b\tc", 2, false), visited);
+		
+		// token n-grams are joined with '_'
+		Assert.assertEquals(Arrays.asList("lingua_latina", "latina_vulgaris"),
+				MetricUtils.getNgrams(Arrays.asList("lingua", "latina", "vulgaris"), 2, false));
+	}
+}
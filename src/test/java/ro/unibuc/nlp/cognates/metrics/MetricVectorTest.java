@@ -0,0 +1,150 @@
+package ro.unibuc.nlp.cognates.metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import ro.unibuc.nlp.cognates.detection.aligners.NeedlemanWunsch;
+import ro.unibuc.nlp.cognates.metrics.MetricVector.Feature;
+import ro.unibuc.nlp.cognates.utils.TestUtils;
+
+public class MetricVectorTest {
+
+	private static final double DELTA = 1e-9;
+
+	@Test
+	public void testFeatures() {
+
+		MetricVector vector = new MetricVector(Feature.values());
+		NeedlemanWunsch aligner = new NeedlemanWunsch();
+		Random random = new Random(17);
+
+		// short words with diacritics, and equal lengths for the Hamming distance
+		for (int k = 0; k < 150; k++) {
+			String a = TestUtils.randomWord(random, random.nextInt(8), "ab\u0103\u00e2ct\u0163");
+			String b = k % 3 == 0 ? TestUtils.randomWord(random, a.length(), "ab\u0103\u00e2ct\u0163")
+								  : TestUtils.randomWord(random, random.nextInt(8), "ab\u0103\u00e2ct\u0163");
+			double[] values = vector.computeDistances(a, b);
+
+			Assert.assertEquals(new Edit().computeDistance(a, b), values[0], DELTA);
+			Assert.assertEquals(new Lcsr().computeDistance(a, b), values[1], DELTA);
+			if (a.length() == b.length()) {
+				Assert.assertEquals(new Hamming().computeDistance(a, b), values[2], DELTA);
+			}
+			else {
+				Assert.assertTrue(Double.isNaN(values[2]));
+			}
+			Assert.assertEquals(new Dice().computeDistance(a, b), values[3], DELTA);
+			Assert.assertEquals(new Jaccard().computeDistance(a, b), values[4], DELTA);
+			Assert.assertEquals(aligner.getScore(a, b), values[5], DELTA);
+		}
+	}
+
+	@Test
+	public void testLongWords() {
+
+		// patterns of more than 64 characters use the blocked kernels
+		MetricVector vector = new MetricVector(Feature.LCSR, Feature.EDIT);
+		Random random = new Random(23);
+		double[] values = new double[3];
+
+		for (int k = 0; k < 50; k++) {
+			String a = TestUtils.randomWord(random, 60 + random.nextInt(100), "abcd");
+			String b = TestUtils.randomWord(random, 60 + random.nextInt(100), "abcd");
+			vector.computeDistances(a, b, values);
+
+			Assert.assertEquals(new Lcsr().computeDistance(a, b), values[0], DELTA);
+			Assert.assertEquals(new Edit().computeDistance(a, b), values[1], DELTA);
+		}
+	}
+
+	@Test
+	public void testAlignmentScore() {
+
+		MetricVector vector = new MetricVector(Feature.ALIGNMENT, Feature.EDIT);
+		NeedlemanWunsch aligner = new NeedlemanWunsch();
+
+		Assert.assertArrayEquals(new double[] {3, 3.0 / 9}, vector.computeDistances("exhaustiv", "esaustivo"), DELTA);
+		// the characters that differ only by their diacritics are equal
+		Assert.assertEquals(aligner.getScore("f\u0103t", "fat"), vector.computeDistances("f\u0103t", "fat")[0], DELTA);
+		Assert.assertEquals(0, vector.computeDistances("f\u0103t", "fat")[0], DELTA);
+		// the null character is the gap of the aligner
+		Assert.assertEquals(aligner.getScore("a\0b", "ab"), vector.computeDistances("a\0b", "ab")[0], DELTA);
+	}
+
+	@Test
+	public void testPairs() {
+
+		List<String[]> pairs = new ArrayList<String[]>();
+		pairs.add(new String[] {"lingua", "lengua", "cognate"});
+		pairs.add(new String[] {"", ""});
+
+		MetricVector vector = new MetricVector(Feature.DICE, Feature.HAMMING);
+		double[][] values = vector.computeDistances(pairs);
+
+		Assert.assertEquals(2, values.length);
+		Assert.assertArrayEquals(new double[] {new Dice().computeDistance("lingua", "lengua"), 1.0 / 6}, values[0], DELTA);
+		Assert.assertArrayEquals(new double[] {0, 0}, values[1], DELTA);
+		Assert.assertEquals("DICE+HAMMING", vector.toString());
+	}
+
+	@Test
+	public void testOffset() {
+
+		// the values are written after the offset, and the rest of the row is left unchanged
+		MetricVector vector = new MetricVector(Feature.EDIT, Feature.LCSR);
+		double[] row = new double[] {-1, -1, -1, -1};
+		vector.computeDistances("exhaustiv", "esaustivo", row, 1);
+
+		double[] values = vector.computeDistances("exhaustiv", "esaustivo");
+		Assert.assertArrayEquals(new double[] {-1, values[0], values[1], -1}, row, DELTA);
+	}
+
+	@Test
+	public void testInvalidArguments() {
+
+		try {
+			new MetricVector();
+			Assert.fail("Expecting an exception for illegal arguments.");
+		}
+		catch (Exception e) {
+			Assert.assertTrue(e instanceof IllegalArgumentException);
+		}
+
+		try {
+			new MetricVector(Feature.EDIT).computeDistances(null, "test");
+			Assert.fail("Expecting an exception for illegal arguments.");
+		}
+		catch (Exception e) {
+			Assert.assertTrue(e instanceof IllegalArgumentException);
+		}
+
+		try {
+			new MetricVector(Feature.EDIT, Feature.LCSR).computeDistances("a", "b", new double[1]);
+			Assert.fail("Expecting an exception for illegal arguments.");
+		}
+		catch (Exception e) {
+			Assert.assertTrue(e instanceof IllegalArgumentException);
+		}
+
+		try {
+			new MetricVector(Feature.EDIT, Feature.LCSR).computeDistances("a", "b", new double[3], 2);
+			Assert.fail("Expecting an exception for illegal arguments.");
+		}
+		catch (Exception e) {
+			Assert.assertTrue(e instanceof IllegalArgumentException);
+		}
+
+		try {
+			new MetricVector(Feature.EDIT).computeDistances(Arrays.<String[]>asList(new String[] {"a"}));
+			Assert.fail("Expecting an exception for illegal arguments.");
+		}
+		catch (Exception e) {
+			Assert.assertTrue(e instanceof IllegalArgumentException);
+		}
+	}
+}
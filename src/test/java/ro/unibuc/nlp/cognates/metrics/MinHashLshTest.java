@@ -0,0 +1,148 @@
+package ro.unibuc.nlp.cognates.metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MinHashLshTest {
+
+	private static final double DELTA = 1e-9;
+
+	@Test
+	public void testSignature() {
+
+		MinHashLsh lsh = new MinHashLsh(2, 200, 20);
+		int[] a = lsh.computeSignature("internaționalizare");
+		int[] b = lsh.computeSignature("internationalization");
+
+		Assert.assertEquals(200, a.length);
+		Assert.assertArrayEquals(a, lsh.computeSignature("internaționalizare"));
+		Assert.assertEquals(1, MinHashLsh.estimateJaccard(a, a), DELTA);
+
+		// the estimate is close to the exact similarity
+		double exact = new Jaccard().computeSimilarity("internaționalizare", "internationalization", 2);
+		Assert.assertEquals(exact, MinHashLsh.estimateJaccard(a, b), 0.1);
+
+		// signatures over n-grams that cannot be packed
+		MinHashLsh large = new MinHashLsh(5, 100, 10);
+		Assert.assertArrayEquals(large.computeSignature("lingua"), large.computeSignature("lingua"));
+		Assert.assertEquals(0, MinHashLsh.estimateJaccard(large.computeSignature("lingua"), large.computeSignature("langue")), 0.05);
+	}
+
+	@Test
+	public void testJoin() {
+
+		Random random = new Random(42);
+		List<String> words = new ArrayList<String>();
+		for (int i = 0; i < 200; i++) {
+			StringBuilder builder = new StringBuilder();
+			for (int j = 0; j < 8 + random.nextInt(4); j++) {
+				builder.append((char) ('a' + random.nextInt(10)));
+			}
+			words.add(builder.toString());
+		}
+		// near duplicates
+		for (int i = 0; i < 50; i++) {
+			String word = words.get(i);
+			words.add(word.substring(0, word.length() - 1) + "z");
+		}
+
+		Jaccard jaccard = new Jaccard();
+		MinHashLsh lsh = new MinHashLsh(2, 128, 32);
+
+		List<SimilarityJoin.Pair> verified = lsh.selfJoin(words, 0.6, true);
+		int expected = 0;
+		for (int i = 0; i < words.size(); i++) {
+			for (int j = i + 1; j < words.size(); j++) {
+				if (jaccard.computeSimilarity(words.get(i), words.get(j), 2) >= 0.6) {
+					expected++;
+				}
+			}
+		}
+		for (SimilarityJoin.Pair pair : verified) {
+			Assert.assertTrue(pair.getLeft() < pair.getRight());
+			Assert.assertEquals(jaccard.computeSimilarity(words.get(pair.getLeft()), words.get(pair.getRight()), 2),
+					pair.getSimilarity(), DELTA);
+			Assert.assertTrue(pair.getSimilarity() >= 0.6);
+		}
+		// with 32 bands of 4 rows, pairs above 0.6 are found with a probability above 0.98
+		Assert.assertTrue(expected >= 50);
+		Assert.assertTrue(verified.size() >= 0.9 * expected);
+
+		List<SimilarityJoin.Pair> estimated = lsh.selfJoin(words, 0.6, false);
+		Assert.assertFalse(estimated.isEmpty());
+		for (SimilarityJoin.Pair pair : estimated) {
+			Assert.assertTrue(pair.getSimilarity() >= 0.6);
+		}
+
+		List<SimilarityJoin.Pair> cross = lsh.join(words.subList(0, 50), words.subList(200, 250), 0.6, true);
+		for (SimilarityJoin.Pair pair : cross) {
+			Assert.assertEquals(jaccard.computeSimilarity(words.get(pair.getLeft()), words.get(200 + pair.getRight()), 2),
+					pair.getSimilarity(), DELTA);
+		}
+		Assert.assertTrue(cross.size() >= 45);
+	}
+
+	@Test
+	public void testWordsWithoutNgrams() {
+
+		MinHashLsh lsh = new MinHashLsh(2, 128, 32);
+
+		// the words without n-grams are all similar to each other, as in the exact join
+		List<String> words = Arrays.asList("a", "b", "a", "lingua", "a", "lingua");
+		List<SimilarityJoin.Pair> pairs = lsh.selfJoin(words, 0.5, true);
+		Assert.assertEquals("[(0, 1, 1.0), (0, 2, 1.0), (0, 4, 1.0), (1, 2, 1.0), (1, 4, 1.0), (2, 4, 1.0), (3, 5, 1.0)]",
+				toString(pairs));
+		Assert.assertEquals(toString(new SimilarityJoin(SimilarityJoin.Measure.JACCARD, 2, 0.5).selfJoin(words)),
+				toString(pairs));
+
+		pairs = lsh.selfJoin(Arrays.asList("a", "b", "ab"), 0.9, true);
+		Assert.assertEquals("[(0, 1, 1.0)]", toString(pairs));
+
+		pairs = lsh.join(Arrays.asList("a", "b", "lingua"), Arrays.asList("b", "lingua", "a", "c"), 0.5, false);
+		Assert.assertEquals("[(0, 0, 1.0), (0, 2, 1.0), (0, 3, 1.0), (1, 0, 1.0), (1, 2, 1.0), (1, 3, 1.0), (2, 1, 1.0)]",
+				toString(pairs));
+	}
+
+	@Test
+	public void testInvalidArguments() {
+
+		try {
+			new MinHashLsh(2, 100, 7);
+			Assert.fail("Expecting an exception for illegal arguments.");
+		}
+		catch (Exception e) {
+			Assert.assertTrue(e instanceof IllegalArgumentException);
+		}
+
+		try {
+			MinHashLsh.estimateJaccard(new int[2], new int[3]);
+			Assert.fail("Expecting an exception for illegal arguments.");
+		}
+		catch (Exception e) {
+			Assert.assertTrue(e instanceof IllegalArgumentException);
+		}
+
+		try {
+			new MinHashLsh(2, 100, 10).selfJoin(Arrays.asList("a", null), 0.5, true);
+			Assert.fail("Expecting an exception for illegal arguments.");
+		}
+		catch (Exception e) {
+			Assert.assertTrue(e instanceof IllegalArgumentException);
+		}
+	}
+
+	private static String toString(List<SimilarityJoin.Pair> pairs) {
+
+		List<String> strings = new ArrayList<String>();
+		for (SimilarityJoin.Pair pair : pairs) {
+			strings.add("(" + pair.getLeft() + ", " + pair.getRight() + ", " + pair.getSimilarity() + ")");
+		}
+
+		return strings.toString();
+	}
+}
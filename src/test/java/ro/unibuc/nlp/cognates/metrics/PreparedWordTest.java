@@ -0,0 +1,84 @@
+package ro.unibuc.nlp.cognates.metrics;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PreparedWordTest {
+
+	private static final double DELTA = 1e-9;
+
+	private static final List<String> WORDS = Arrays.asList("langue", "lingua", "spera", "espérer", "an", "anno", "",
+			"internaționalizare", "internationalization", "abcdefghijklmnopqrstuvwxyzabcdefghijklmnopqrstuvwxyzabcdefghijklmnopq");
+
+	@Test
+	public void testMetrics() {
+
+		List<PreparedWord> prepared = PreparedWord.prepare(WORDS);
+		List<Metric> metrics = Arrays.asList(new Edit(), new Edit(Edit.Engine.DYNAMIC_PROGRAMMING),
+				new Edit(Edit.Engine.BLOCKED_BIT_PARALLEL), new Lcsr(), new Dice(), new Jaccard(), new Rank());
+
+		for (Metric metric : metrics) {
+			for (int i = 0; i < WORDS.size(); i++) {
+				for (int j = 0; j < WORDS.size(); j++) {
+					Assert.assertEquals(metric.computeDistance(WORDS.get(i), WORDS.get(j)),
+							metric.computeDistance(prepared.get(i), prepared.get(j)), DELTA);
+					Assert.assertEquals(metric.computeSimilarity(WORDS.get(i), WORDS.get(j)),
+							metric.computeSimilarity(prepared.get(i), prepared.get(j)), DELTA);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testNgramSizes() {
+
+		Dice dice = new Dice();
+		Jaccard jaccard = new Jaccard();
+		PreparedWord a = new PreparedWord("langue", 3);
+		PreparedWord b = new PreparedWord("lingua");
+
+		for (int n = 1; n <= 6; n++) {
+			Assert.assertEquals(dice.computeSimilarity("langue", "lingua", n), dice.computeSimilarity(a, b, n), DELTA);
+			Assert.assertEquals(jaccard.computeDistance("langue", "lingua", n), jaccard.computeDistance(a, b, n), DELTA);
+		}
+	}
+
+	@Test
+	public void testWord() {
+
+		PreparedWord word = new PreparedWord("espérer");
+
+		Assert.assertEquals("espérer", word.getValue());
+		Assert.assertEquals(7, word.length());
+		Assert.assertEquals(PreparedWord.DEFAULT_NGRAM_SIZE, word.getNgramSize());
+		Assert.assertEquals(2, word.count('e'));
+		Assert.assertEquals(1, word.count('é'));
+		Assert.assertEquals(0, word.count('a'));
+
+		Assert.assertEquals(2, new Edit().computeUnnormalizedDistance(word, new PreparedWord("esperar")), DELTA);
+		Assert.assertEquals(5, new Lcsr().computeLcs(word, new PreparedWord("esperar")), DELTA);
+	}
+
+	@Test
+	public void testValidation() {
+
+		try {
+			new PreparedWord(null);
+			Assert.fail("Expecting an exception for illegal arguments.");
+		}
+		catch (Exception e) {
+			Assert.assertTrue(e instanceof IllegalArgumentException);
+		}
+
+		try {
+			new Edit().computeDistance(new PreparedWord("an"), (PreparedWord) null);
+			Assert.fail("Expecting an exception for illegal arguments.");
+		}
+		catch (Exception e) {
+			Assert.assertTrue(e instanceof IllegalArgumentException);
+		}
+	}
+}
@@ -1,12 +1,20 @@
 package ro.unibuc.nlp.cognates.metrics;
 
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
 
 import org.junit.Assert;
 import org.junit.Test;
 
+import ro.unibuc.nlp.cognates.utils.TestUtils;
+
 public class RankTest extends MetricTest {
 
+	private static final String ALPHABET = "aeinrăîș";
+
 	public RankTest() {
 		
 		metric = new Rank();
@@ -32,6 +40,68 @@ public class RankTest extends MetricTest {
 		Assert.assertEquals(0.54, metric.computeDistance(Arrays.asList("a", "n"), Arrays.asList("a", "n", "n", "o")), DELTA);
 	}
 
+	@Test
+	public void testRandomValues() {
+		
+		Random random = new Random(42);
+		for (int i = 0; i < 500; i++) {
+			String a = TestUtils.randomWord(random, random.nextInt(40), ALPHABET);
+			String b = TestUtils.randomWord(random, random.nextInt(40), ALPHABET);
+			List<String> listA = Arrays.asList(a.isEmpty() ? new String[0] : a.split(""));
+			List<String> listB = Arrays.asList(b.isEmpty() ? new String[0] : b.split(""));
+			
+			double maxDistance = a.length() * (a.length() + 1) / 2 + b.length() * (b.length() + 1) / 2;
+			double expected = maxDistance == 0 ? 0 : computeRankDistance(a, b) / maxDistance;
+			
+			Assert.assertEquals(expected, metric.computeDistance(a, b), 1e-9);
+			Assert.assertEquals(expected, metric.computeDistance(listA, listB), 1e-9);
+			Assert.assertEquals(expected, metric.computeDistance(new PreparedWord(a), new PreparedWord(b)), 1e-9);
+		}
+	}
+	
+	@Test
+	public void testTokens() {
+		
+		// multi-character tokens are not confused with indexed tokens
+		Assert.assertEquals(0.67, metric.computeDistance(Arrays.asList("a1", "b"), Arrays.asList("a", "b")), DELTA);
+		Assert.assertEquals(0.00, metric.computeDistance(Arrays.asList("ab", "ab"), Arrays.asList("ab", "ab")), DELTA);
+	}
+	
+	/**
+	 * Straightforward rank distance, with the indexed characters stored in maps.
+	 */
+	private static double computeRankDistance(String a, String b) {
+		
+		Map<String, Integer> ranksA = new HashMap<String, Integer>();
+		Map<Character, Integer> indexes = new HashMap<Character, Integer>();
+		for (int i = 0; i < a.length(); i++) {
+			int index = indexes.containsKey(a.charAt(i)) ? indexes.get(a.charAt(i)) + 1 : 0;
+			indexes.put(a.charAt(i), index);
+			ranksA.put(a.charAt(i) + "" + index, a.length() - i);
+		}
+		
+		Map<String, Integer> ranksB = new HashMap<String, Integer>();
+		indexes.clear();
+		for (int i = 0; i < b.length(); i++) {
+			int index = indexes.containsKey(b.charAt(i)) ? indexes.get(b.charAt(i)) + 1 : 0;
+			indexes.put(b.charAt(i), index);
+			ranksB.put(b.charAt(i) + "" + index, b.length() - i);
+		}
+		
+		double distance = 0;
+		for (Map.Entry<String, Integer> entry : ranksA.entrySet()) {
+			Integer rank = ranksB.get(entry.getKey());
+			distance += rank == null ? entry.getValue() : Math.abs(entry.getValue() - rank);
+		}
+		for (Map.Entry<String, Integer> entry : ranksB.entrySet()) {
+			if (!ranksA.containsKey(entry.getKey())) {
+				distance += entry.getValue();
+			}
+		}
+		
+		return distance;
+	}
+	
 	@Test
 	@Override
 	public void testEqualValues() {
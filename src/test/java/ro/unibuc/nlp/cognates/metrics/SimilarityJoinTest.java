@@ -0,0 +1,124 @@
+package ro.unibuc.nlp.cognates.metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SimilarityJoinTest {
+
+	@Test
+	public void testJoin() {
+
+		Random random = new Random(42);
+		List<String> left = randomWords(random, 60);
+		List<String> right = randomWords(random, 50);
+		Dice dice = new Dice();
+		Jaccard jaccard = new Jaccard();
+
+		for (int n = 1; n <= 5; n++) {
+			for (SimilarityJoin.Measure measure : SimilarityJoin.Measure.values()) {
+				Metric metric = measure == SimilarityJoin.Measure.DICE ? dice : jaccard;
+				double[][] similarities = new double[left.size()][right.size()];
+				double[][] selfSimilarities = new double[left.size()][left.size()];
+				for (int i = 0; i < left.size(); i++) {
+					for (int j = 0; j < right.size(); j++) {
+						similarities[i][j] = metric == dice
+								? dice.computeSimilarity(left.get(i), right.get(j), n)
+								: jaccard.computeSimilarity(left.get(i), right.get(j), n);
+					}
+					for (int j = i + 1; j < left.size(); j++) {
+						selfSimilarities[i][j] = metric == dice
+								? dice.computeSimilarity(left.get(i), left.get(j), n)
+								: jaccard.computeSimilarity(left.get(i), left.get(j), n);
+					}
+				}
+
+				for (double threshold : new double[] {0.3, 0.5, 0.6, 2.0 / 3, 0.8, 1.0}) {
+					List<String> expected = new ArrayList<String>();
+					List<String> expectedSelf = new ArrayList<String>();
+					for (int i = 0; i < left.size(); i++) {
+						for (int j = 0; j < right.size(); j++) {
+							if (similarities[i][j] >= threshold) {
+								expected.add("(" + i + ", " + j + ", " + similarities[i][j] + ")");
+							}
+						}
+						for (int j = i + 1; j < left.size(); j++) {
+							if (selfSimilarities[i][j] >= threshold) {
+								expectedSelf.add("(" + i + ", " + j + ", " + selfSimilarities[i][j] + ")");
+							}
+						}
+					}
+
+					SimilarityJoin join = new SimilarityJoin(measure, n, threshold);
+					Assert.assertEquals(expected.toString(), join.join(left, right).toString());
+					Assert.assertEquals(expectedSelf.toString(), join.selfJoin(left).toString());
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testCognates() {
+
+		SimilarityJoin join = new SimilarityJoin(SimilarityJoin.Measure.DICE, 2, 0.6);
+		List<SimilarityJoin.Pair> pairs = join.join(Arrays.asList("noapte", "lapte", "frate"),
+				Arrays.asList("notte", "latte", "fratello"));
+
+		Assert.assertEquals(1, pairs.size());
+		Assert.assertEquals(2, pairs.get(0).getLeft());
+		Assert.assertEquals(2, pairs.get(0).getRight());
+		Assert.assertEquals(0.73, pairs.get(0).getSimilarity(), 0.01);
+
+		// lapte - latte and frate - latte share half of their bi-grams
+		Assert.assertEquals(3, new SimilarityJoin(SimilarityJoin.Measure.DICE, 2, 0.5).join(Arrays.asList("noapte", "lapte", "frate"),
+				Arrays.asList("notte", "latte", "fratello")).size());
+	}
+
+	@Test
+	public void testInvalidArguments() {
+
+		try {
+			new SimilarityJoin(SimilarityJoin.Measure.DICE, 2, 0);
+			Assert.fail("Expecting an exception for illegal arguments.");
+		}
+		catch (Exception e) {
+			Assert.assertTrue(e instanceof IllegalArgumentException);
+		}
+
+		try {
+			new SimilarityJoin(SimilarityJoin.Measure.JACCARD, 0, 0.5);
+			Assert.fail("Expecting an exception for illegal arguments.");
+		}
+		catch (Exception e) {
+			Assert.assertTrue(e instanceof IllegalArgumentException);
+		}
+
+		try {
+			new SimilarityJoin(SimilarityJoin.Measure.JACCARD, 2, 0.5).join(Arrays.asList("a", null), Arrays.asList("b"));
+			Assert.fail("Expecting an exception for illegal arguments.");
+		}
+		catch (Exception e) {
+			Assert.assertTrue(e instanceof IllegalArgumentException);
+		}
+	}
+
+	private static List<String> randomWords(Random random, int size) {
+
+		String alphabet = "aeinrt";
+		List<String> words = new ArrayList<String>();
+		for (int i = 0; i < size; i++) {
+			StringBuilder builder = new StringBuilder();
+			int length = random.nextInt(8);
+			for (int j = 0; j < length; j++) {
+				builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+			}
+			words.add(builder.toString());
+		}
+
+		return words;
+	}
+}
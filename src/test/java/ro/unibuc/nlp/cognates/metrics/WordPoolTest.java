@@ -0,0 +1,144 @@
+package ro.unibuc.nlp.cognates.metrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class WordPoolTest {
+
+	private static final List<String> WORDS = Arrays.asList("lingua", "lengua", "", "langue", "f\u0103r\u0103", "fara", "exhaustiv", "esaustivo");
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testWords() {
+
+		WordPool pool = WordPool.of(WORDS);
+
+		Assert.assertEquals(WORDS.size(), pool.size());
+		for (int i = 0; i < WORDS.size(); i++) {
+			Assert.assertEquals(WORDS.get(i), pool.get(i));
+			Assert.assertEquals(WORDS.get(i).length(), pool.length(i));
+			Assert.assertEquals(WORDS.get(i), pool.view(i).toString());
+		}
+		Assert.assertEquals("gu", pool.view(0).subSequence(3, 5).toString());
+		Assert.assertEquals('\u0103', pool.view(4).charAt(1));
+	}
+
+	@Test
+	public void testFiles() throws Exception {
+
+		File text = folder.newFile("words.txt");
+		try (PrintWriter writer = new PrintWriter(text, "UTF-8")) {
+			for (String word : WORDS) {
+				writer.println(word);
+			}
+		}
+
+		WordPool loaded = WordPool.load(text.getPath());
+		File file = folder.newFile("words.pool");
+		loaded.write(file.getPath());
+		WordPool mapped = WordPool.map(file.getPath());
+
+		Assert.assertEquals(WORDS.size(), loaded.size());
+		Assert.assertEquals(WORDS.size(), mapped.size());
+		for (int i = 0; i < WORDS.size(); i++) {
+			Assert.assertEquals(WORDS.get(i), loaded.get(i));
+			Assert.assertEquals(WORDS.get(i), mapped.get(i));
+		}
+	}
+
+	@Test
+	public void testMetrics() throws Exception {
+
+		WordPool a = WordPool.of(WORDS);
+		File file = folder.newFile("words.pool");
+		a.write(file.getPath());
+		WordPool b = WordPool.map(file.getPath());
+
+		for (Metric metric : Arrays.asList(new Edit(), new Edit(Edit.Engine.DYNAMIC_PROGRAMMING), new Lcsr(),
+										   new Dice(), new Jaccard(), new Rank(), new CachedMetric(new Edit()))) {
+			for (int i = 0; i < WORDS.size(); i++) {
+				for (int j = 0; j < WORDS.size(); j++) {
+					Assert.assertEquals(metric.computeDistance(WORDS.get(i), WORDS.get(j)),
+										metric.computeDistance(a, i, b, j), 0);
+					Assert.assertEquals(metric.computeSimilarity(WORDS.get(i), WORDS.get(j)),
+										metric.computeSimilarity(a, i, b, j), 0);
+				}
+			}
+		}
+
+		Hamming hamming = new Hamming();
+		Assert.assertEquals(hamming.computeDistance("lingua", "lengua"), hamming.computeDistance(a, 0, b, 1), 0);
+		Assert.assertEquals(hamming.computeSimilarity("lingua", "lengua"), hamming.computeSimilarity(a, 0, b, 1), 0);
+		Assert.assertEquals(0, hamming.computeDistance(a, 2, b, 2), 0);
+	}
+
+	@Test
+	public void testCorruptFiles() throws Exception {
+
+		File file = folder.newFile("words.pool");
+		WordPool.of(WORDS).write(file.getPath());
+
+		// the third word starts after the fourth one, so it has a negative length
+		try (RandomAccessFile corrupt = new RandomAccessFile(file, "rw")) {
+			corrupt.seek(WordPool.HEADER_SIZE + 4 * 2);
+			corrupt.write(new byte[] {18, 0, 0, 0});
+		}
+
+		try {
+			WordPool.map(file.getPath());
+			Assert.fail("Expecting an exception for a corrupt file.");
+		}
+		catch (Exception e) {
+			Assert.assertTrue(e instanceof IOException);
+		}
+	}
+
+	@Test
+	public void testInvalidArguments() {
+
+		WordPool pool = WordPool.of(WORDS);
+
+		try {
+			pool.get(WORDS.size());
+			Assert.fail("Expecting an exception for an invalid index.");
+		}
+		catch (Exception e) {
+			Assert.assertTrue(e instanceof IndexOutOfBoundsException);
+		}
+
+		try {
+			new Edit().computeDistance(null, 0, pool, 0);
+			Assert.fail("Expecting an exception for illegal arguments.");
+		}
+		catch (Exception e) {
+			Assert.assertTrue(e instanceof IllegalArgumentException);
+		}
+
+		try {
+			new Hamming().computeDistance(pool, 0, pool, 2);
+			Assert.fail("Expecting an exception for illegal arguments.");
+		}
+		catch (Exception e) {
+			Assert.assertTrue(e instanceof IllegalArgumentException);
+		}
+
+		try {
+			WordPool.of(Arrays.asList("lingua", null));
+			Assert.fail("Expecting an exception for illegal arguments.");
+		}
+		catch (Exception e) {
+			Assert.assertTrue(e instanceof IllegalArgumentException);
+		}
+	}
+}
@@ -0,0 +1,134 @@
+package ro.unibuc.nlp.cognates.metrics.index;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import ro.unibuc.nlp.cognates.etymology.model.ModelHandler;
+import ro.unibuc.nlp.cognates.metrics.Edit;
+import ro.unibuc.nlp.cognates.utils.TestUtils;
+
+import com.google.common.io.Resources;
+
+public class BKTreeTest {
+
+	private static final String ALPHABET = "aeinrst";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testSearch() {
+
+		Random random = new Random(42);
+		List<String> words = new ArrayList<String>();
+		for (int i = 0; i < 2000; i++) {
+			words.add(TestUtils.randomWord(random, 1 + random.nextInt(8), ALPHABET));
+		}
+		BKTree tree = new BKTree(words);
+
+		for (int q = 0; q < 50; q++) {
+			String query = TestUtils.randomWord(random, random.nextInt(9), ALPHABET);
+			List<BKTree.Match> expected = bruteForce(words, query);
+
+			for (int k = 0; k <= 3; k++) {
+				List<String> actual = toStrings(tree.radiusSearch(query, k));
+				List<String> reference = new ArrayList<String>();
+				for (BKTree.Match match : expected) {
+					if (match.getDistance() <= k) {
+						reference.add(match.toString());
+					}
+				}
+				Assert.assertEquals(reference, actual);
+			}
+
+			for (int topK : new int[] {1, 5, 20}) {
+				Assert.assertEquals(toStrings(expected.subList(0, topK)), toStrings(tree.nearest(query, topK)));
+			}
+		}
+	}
+
+	@Test
+	public void testIndex() throws Exception {
+
+		BKTree tree = new BKTree();
+		Assert.assertTrue(tree.add("lingua"));
+		Assert.assertTrue(tree.add("langue"));
+		Assert.assertTrue(tree.add("limbă"));
+		Assert.assertFalse(tree.add("lingua"));
+		Assert.assertEquals(3, tree.size());
+		Assert.assertEquals("[lingua(0), langue(2)]", tree.radiusSearch("lingua", 2).toString());
+		Assert.assertEquals("[]", new BKTree().nearest("lingua", 3).toString());
+		Assert.assertEquals("[lingua(0), langue(2), limbă(4)]", tree.radiusSearch("lingua", Integer.MAX_VALUE).toString());
+
+		String path = new File(folder.getRoot(), "index.bin").getPath();
+		tree.write(path);
+		BKTree loaded = BKTree.read(path);
+		Assert.assertEquals(3, loaded.size());
+		Assert.assertEquals(tree.nearest("limba", 2).toString(), loaded.nearest("limba", 2).toString());
+		Assert.assertTrue(loaded.add("lengua"));
+		Assert.assertEquals("[lengua(0), lingua(1)]", loaded.radiusSearch("lengua", 1).toString());
+	}
+
+	@Test
+	public void testLemmas() throws Exception {
+
+		String lemmasPath = Resources.getResource("etymology/matcher/lemmas-it.xml").getPath();
+		BKTree tree = BKTree.build(ModelHandler.readModel(lemmasPath));
+
+		List<BKTree.Match> matches = tree.nearest("abonamento", 1);
+		Assert.assertEquals(1, matches.size());
+		Assert.assertEquals("abbonamento", matches.get(0).getWord());
+		Assert.assertEquals(1, matches.get(0).getDistance());
+	}
+
+	@Test
+	public void testInvalidArguments() {
+
+		try {
+			new BKTree().radiusSearch("lingua", -1);
+			Assert.fail("Expecting an exception for illegal arguments.");
+		}
+		catch (Exception e) {
+			Assert.assertTrue(e instanceof IllegalArgumentException);
+		}
+
+		try {
+			new BKTree().add(null);
+			Assert.fail("Expecting an exception for illegal arguments.");
+		}
+		catch (Exception e) {
+			Assert.assertTrue(e instanceof IllegalArgumentException);
+		}
+	}
+
+	private static List<BKTree.Match> bruteForce(List<String> words, String query) {
+
+		Edit edit = new Edit(Edit.Engine.DYNAMIC_PROGRAMMING);
+		List<BKTree.Match> matches = new ArrayList<BKTree.Match>();
+		for (String word : new LinkedHashSet<String>(words)) {
+			matches.add(new BKTree.Match(word, (int) edit.computeUnnormalizedDistance(query, word)));
+		}
+		Collections.sort(matches);
+
+		return matches;
+	}
+
+	private static List<String> toStrings(List<BKTree.Match> matches) {
+
+		List<String> strings = new ArrayList<String>();
+		for (BKTree.Match match : matches) {
+			strings.add(match.toString());
+		}
+
+		return strings;
+	}
+}
@@ -0,0 +1,30 @@
+package ro.unibuc.nlp.cognates.utils;
+
+import java.util.Random;
+
+/**
+ * Helpers shared by the tests.
+ */
+public final class TestUtils {
+
+	private TestUtils() {
+	}
+
+	/**
+	 * Generates a random word over the given alphabet.
+	 *
+	 * @param random the source of randomness
+	 * @param length the length of the word
+	 * @param alphabet the characters of the word
+	 * @return the random word
+	 */
+	public static String randomWord(Random random, int length, String alphabet) {
+
+		StringBuilder word = new StringBuilder();
+		for (int i = 0; i < length; i++) {
+			word.append(alphabet.charAt(random.nextInt(alphabet.length())));
+		}
+
+		return word.toString();
+	}
+}